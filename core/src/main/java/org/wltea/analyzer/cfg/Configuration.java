@@ -1,10 +1,16 @@
 package org.wltea.analyzer.cfg;
 
 
+import org.wltea.analyzer.dic.DictOverlay;
+
 import java.nio.file.Path;
+import java.util.concurrent.Executor;
 
 public abstract class Configuration {
 
+	//字母、数字串最大长度的上限，须小于分词缓冲区的可用长度，超长串才能在一段之内被识别
+	public static final int MAX_TOKEN_LENGTH_LIMIT = 2048;
+
 	//是否启用智能分词
 	protected boolean useSmart = false;
 
@@ -14,6 +20,69 @@ public abstract class Configuration {
 	//是否启用小写处理
 	protected boolean enableLowercase = true;
 
+	//并行分词的文本长度阈值，0表示不启用
+	protected int parallelThreshold = 0;
+
+	//执行并行分词任务的线程池，null时使用ForkJoinPool.commonPool()，只适用于独立使用分词器；插件须使用宿主管理的线程池
+	protected Executor parallelExecutor;
+
+	//并行分词的最大分段数，使用parallelExecutor时有效
+	protected int parallelism = 0;
+
+	//是否一次切分同时生成两种模式的结果，供同一字段的另一模式分词器取用
+	protected boolean enableDualMode = false;
+
+	//是否启用精简细粒度分词：智能切分结果加上受限的子词
+	protected boolean useLean = false;
+
+	//精简细粒度分词输出的子词最小长度
+	protected int leanMinLength = 2;
+
+	//精简细粒度分词中每个词元最多输出的子词数目
+	protected int leanMaxSubwords = 3;
+
+	//精简细粒度分词是否输出未成词的单字
+	protected boolean leanSingleChar = true;
+
+	//是否以最大匹配代替歧义裁决，用于吞吐量优先的字段
+	protected boolean useMaxMatch = false;
+
+	//最大匹配是否双向进行，false时只做正向最大匹配
+	protected boolean maxMatchBidirectional = true;
+
+	//歧义裁决时每条歧义路径的候选方案数目上限，0表示不限制
+	protected int arbitrationBeamWidth = 0;
+
+	//每篇文档的歧义裁决工作量（遍历的词元数）上限，0表示不限制
+	protected long arbitrationBudget = 0;
+
+	//字母、数字串的最大长度，0表示不限制
+	protected int maxTokenLength = 0;
+
+	//超长的字母、数字串截断为最大长度输出，false时跳过不输出
+	protected boolean truncateLongToken = true;
+
+	//每个字段值最多输出的词元数，0表示不限制
+	protected int maxTokenCount = 0;
+
+	//每个字段值最多分析的字符数，0表示不限制
+	protected int maxChars = 0;
+
+	//分析器（分词器）名称，用于分词统计，为空时按分词模式取内置名称
+	protected String analyzerName;
+
+	//慢分词日志各级别的耗时阈值（纳秒），-1表示不记录该级别
+	protected long slowLogWarnNanos = -1;
+	protected long slowLogInfoNanos = -1;
+	protected long slowLogDebugNanos = -1;
+	protected long slowLogTraceNanos = -1;
+
+	//慢分词日志中记录的文本前缀长度
+	protected int slowLogSourceChars = 100;
+
+	//索引级的扩展词典，没有配置时为null
+	protected DictOverlay dictOverlay;
+
 	
 	public Configuration() {
 	}
@@ -38,6 +107,133 @@ public abstract class Configuration {
 	public boolean isEnableLowercase() {
 		return enableLowercase;
 	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public Executor getParallelExecutor() {
+		return parallelExecutor;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public boolean isEnableDualMode() {
+		return enableDualMode;
+	}
+
+	public boolean isUseLean() {
+		return useLean;
+	}
+
+	public Configuration setUseLean(boolean useLean) {
+		this.useLean = useLean;
+		return this;
+	}
+
+	public int getLeanMinLength() {
+		return leanMinLength;
+	}
+
+	public int getLeanMaxSubwords() {
+		return leanMaxSubwords;
+	}
+
+	public boolean isLeanSingleChar() {
+		return leanSingleChar;
+	}
+
+	public boolean isUseMaxMatch() {
+		return useMaxMatch;
+	}
+
+	public Configuration setUseMaxMatch(boolean useMaxMatch) {
+		this.useMaxMatch = useMaxMatch;
+		return this;
+	}
+
+	public boolean isMaxMatchBidirectional() {
+		return maxMatchBidirectional;
+	}
+
+	public int getArbitrationBeamWidth() {
+		return arbitrationBeamWidth;
+	}
+
+	public long getArbitrationBudget() {
+		return arbitrationBudget;
+	}
+
+	public boolean isArbitrationBounded() {
+		return arbitrationBeamWidth > 0 || arbitrationBudget > 0;
+	}
+
+	public int getMaxTokenLength() {
+		return maxTokenLength;
+	}
+
+	public boolean isTruncateLongToken() {
+		return truncateLongToken;
+	}
+
+	public int getMaxTokenCount() {
+		return maxTokenCount;
+	}
+
+	public int getMaxChars() {
+		return maxChars;
+	}
+
+	public String getAnalyzerName() {
+		if (analyzerName != null) {
+			return analyzerName;
+		}
+		if (useMaxMatch) {
+			return "ik_smart_mm";
+		}
+		if (useLean) {
+			return "ik_lean";
+		}
+		return useSmart ? "ik_smart" : "ik_max_word";
+	}
+
+	public Configuration setAnalyzerName(String analyzerName) {
+		this.analyzerName = analyzerName;
+		return this;
+	}
+
+	public long getSlowLogWarnNanos() {
+		return slowLogWarnNanos;
+	}
+
+	public long getSlowLogInfoNanos() {
+		return slowLogInfoNanos;
+	}
+
+	public long getSlowLogDebugNanos() {
+		return slowLogDebugNanos;
+	}
+
+	public long getSlowLogTraceNanos() {
+		return slowLogTraceNanos;
+	}
+
+	public int getSlowLogSourceChars() {
+		return slowLogSourceChars;
+	}
+
+	public DictOverlay getDictOverlay() {
+		return dictOverlay;
+	}
+
+	/**
+	 * 索引级扩展词典的编号，没有时为0，分词结果缓存以此区分不同扩展词典的结果
+	 */
+	public int getDictOverlayId() {
+		return dictOverlay != null ? dictOverlay.getId() : 0;
+	}
 	
 	public abstract Path getPath(String first, String... more);
 	
@@ -43,9 +43,9 @@ import org.wltea.analyzer.dic.Dictionary;
 class AnalyzeContext {
 	
 	//默认缓冲区大小
-	private static final int BUFF_SIZE = 4096;
+	static final int BUFF_SIZE = 4096;
 	//缓冲区耗尽的临界值
-	private static final int BUFF_EXHAUST_CRITICAL = 100;	
+	static final int BUFF_EXHAUST_CRITICAL = 100;	
 	
  
 	//字符串读取缓冲
@@ -63,6 +63,20 @@ class AnalyzeContext {
 	private int available;
 	//末尾非CJK字符数目
 	private int lastUselessCharNum;
+	//从输入中已读入的字符数
+	private int sourcePosition;
+	//输入是否已读完（或读入的字符数达到上限），本段之后没有新的字符
+	private boolean inputExhausted;
+	//本段中子分词器全部解锁的最后一个位置，没有时为-1
+	private int lastUnlocked = -1;
+	//下一段分析的起始位置，参见endWindow()
+	private int nextBegin;
+	//是否正在跳过超长的字母、数字串，换段后继续跳过
+	private boolean skippingLetters;
+	//当前字母、数字串在输入中的起始位置，换段后保留，没有时为-1
+	private int letterRunStart = -1;
+	//丢弃的停止词数，供分词统计使用
+	private int stopWordCount;
 
 	
 	//子分词器锁
@@ -111,30 +125,116 @@ class AnalyzeContext {
     /**
      * 根据context的上下文情况，填充segmentBuff 
      * @param reader
+     * @param maxChars 最多从reader读入的字符数，0表示不限制
      * @return 返回待分析的（有效的）字串长度
      * @throws java.io.IOException
      */
-    int fillBuffer(Reader reader) throws IOException{
+    int fillBuffer(Reader reader , int maxChars) throws IOException{
+    	int offset = this.shiftBuffer();
+    	int length = BUFF_SIZE - offset;
+    	if(maxChars > 0 && maxChars - this.sourcePosition <= length){
+    		length = maxChars - this.sourcePosition;
+    		this.inputExhausted = true;
+    	}
+    	//继续读取reader ，以onceReadIn - onceAnalyzed为起始位置，继续填充segmentBuff剩余的部分
+    	//读满缓冲区或读完为止，缓冲区未满即表示输入已读完
     	int readCount = 0;
+    	while(readCount < length){
+    		int n = reader.read(this.segmentBuff , offset + readCount , length - readCount);
+    		if(n < 0){
+    			this.inputExhausted = true;
+    			break;
+    		}
+    		readCount += n;
+    	}
+    	this.sourcePosition += readCount;
+    	return this.markAvailable(offset , readCount);
+    }
+
+    /**
+     * 从输入中已读入的字符数
+     */
+    int getSourcePosition(){
+    	return this.sourcePosition;
+    }
+
+    /**
+     * 根据context的上下文情况，直接从字符数组填充segmentBuff，不经过Reader
+     * @param text 待分析的字符数组
+     * @param begin 待分析文本在数组中的起始位置
+     * @param length 待分析文本的长度
+     * @return 返回待分析的（有效的）字串长度
+     */
+    int fillBuffer(char[] text , int begin , int length){
+    	int offset = this.shiftBuffer();
+    	int position = this.sourcePosition;
+    	int readCount = Math.min(length - position , BUFF_SIZE - offset);
+    	if(readCount > 0){
+    		System.arraycopy(text , begin + position , this.segmentBuff , offset , readCount);
+    		this.sourcePosition += readCount;
+    	}
+    	this.inputExhausted = this.sourcePosition >= length;
+    	return this.markAvailable(offset , readCount);
+    }
+
+    /**
+     * 根据context的上下文情况，直接从字符序列填充segmentBuff，不经过Reader
+     * @param text 待分析的字符序列
+     * @return 返回待分析的（有效的）字串长度
+     */
+    int fillBuffer(CharSequence text){
+    	int offset = this.shiftBuffer();
+    	int position = this.sourcePosition;
+    	int readCount = Math.min(text.length() - position , BUFF_SIZE - offset);
+    	if(readCount > 0){
+    		if(text instanceof String){
+    			((String)text).getChars(position , position + readCount , this.segmentBuff , offset);
+    		}else if(text instanceof StringBuilder){
+    			((StringBuilder)text).getChars(position , position + readCount , this.segmentBuff , offset);
+    		}else{
+    			for(int i = 0 ; i < readCount ; i++){
+    				this.segmentBuff[offset + i] = text.charAt(position + i);
+    			}
+    		}
+    		this.sourcePosition += readCount;
+    	}
+    	this.inputExhausted = this.sourcePosition >= text.length();
+    	return this.markAvailable(offset , readCount);
+    }
+
+    /**
+     * 将最近一次读入但未处理的字串移至segmentBuff头部
+     * @return 移至头部的字符数，即本次读入的起始位置
+     */
+    private int shiftBuffer(){
     	if(this.buffOffset == 0){
-    		//首次读取reader
-    		readCount = reader.read(segmentBuff);
+    		//首次读取
 			this.lastUselessCharNum = 0;
-    	}else{
-    		int offset = this.available - this.cursor;
-    		if(offset > 0){
-    			//最近一次读取的>最近一次处理的，将未处理的字串拷贝到segmentBuff头部
-    			System.arraycopy(this.segmentBuff , this.cursor , this.segmentBuff , 0 , offset);
-    			readCount = offset;
-    		}
-    		//继续读取reader ，以onceReadIn - onceAnalyzed为起始位置，继续填充segmentBuff剩余的部分
-    		readCount += reader.read(this.segmentBuff , offset , BUFF_SIZE - offset);
-    	}            	
+			return 0;
+    	}
+    	int offset = this.available - this.nextBegin;
+    	if(offset > 0){
+    		//最近一次读取的>最近一次处理的，将未处理的字串拷贝到segmentBuff头部
+    		System.arraycopy(this.segmentBuff , this.nextBegin , this.segmentBuff , 0 , offset);
+    		return offset;
+    	}
+    	return 0;
+    }
+
+    /**
+     * 记录最后一次读入的可用字符长度，并重置当前指针
+     * @param offset 保留在segmentBuff头部的字符数
+     * @param readCount 本次读入的字符数，小于等于0表示没有读入新的字符
+     * @return 可处理的字串长度
+     */
+    private int markAvailable(int offset , int readCount){
     	//记录最后一次从Reader中读入的可用字符长度
-    	this.available = readCount;
+    	this.available = offset + Math.max(readCount , 0);
     	//重置当前指针
     	this.cursor = 0;
-    	return readCount;
+    	this.lastUnlocked = -1;
+    	this.nextBegin = this.available;
+    	return this.available;
     }
 
     /**
@@ -189,12 +289,92 @@ class AnalyzeContext {
 	}
 
 	/**
-	 * 判断当前segmentBuff是否已经用完
-	 * 当前执针cursor移至segmentBuff末端this.available - 1
+	 * 释放全部子分词器对segmentBuff的占用
+	 */
+	void unlockBuffer(){
+		this.buffLocker.clear();
+	}
+
+	boolean isSkippingLetters(){
+		return this.skippingLetters;
+	}
+
+	void setSkippingLetters(boolean skippingLetters){
+		this.skippingLetters = skippingLetters;
+	}
+
+	int getLetterRunStart(){
+		return this.letterRunStart;
+	}
+
+	void setLetterRunStart(int letterRunStart){
+		this.letterRunStart = letterRunStart;
+	}
+
+	/**
+	 * 指针连续跳过字母、数字及连接符号，停在字母、数字串的最后一个字符，
+	 * 缓冲区满载时不进入临界区，以便在临界区内正常换段
+	 * 跳过的字符同样做规格化处理
+	 * @return 跳过的字符数
+	 */
+	int skipLetters(){
+		int limit = this.available == BUFF_SIZE ? this.available - BUFF_EXHAUST_CRITICAL : this.available - 1;
+		int from = this.cursor;
+		while(this.cursor < limit){
+			int next = this.cursor + 1;
+			char c = CharacterUtil.regularize(this.segmentBuff[next] , cfg.isEnableLowercase());
+			int type = CharacterUtil.identifyCharType(c);
+			if(!LetterSegmenter.isRunChar(type , c)){
+				break;
+			}
+			this.segmentBuff[next] = c;
+			this.charTypes[next] = type;
+			this.cursor = next;
+		}
+		return this.cursor - from;
+	}
+
+	/**
+	 * 判断当前segmentBuff是否已经用完，子分词器需要输出未完成的词元
+	 * 当前执针cursor移至segmentBuff末端this.available - 1，并且输入已读完或本段没有解锁位置
+	 * 输入未读完时本段退回到最后一个解锁位置换段，未完成的词元在下一段重新分析，参见endWindow()
 	 * @return
 	 */
 	boolean isBufferConsumed(){
-		return this.cursor == this.available - 1;
+		return this.cursor == this.available - 1 && (this.inputExhausted || this.lastUnlocked < 0);
+	}
+
+	/**
+	 * 记录当前字符处理完毕后子分词器是否全部解锁
+	 * 解锁位置之后不存在跨越的词元，可以在此换段
+	 */
+	void markUnlocked(){
+		if(this.buffLocker.isEmpty()){
+			this.lastUnlocked = this.cursor;
+		}
+	}
+
+	/**
+	 * 本段分析结束，确定下一段的起始位置
+	 * 1.在临界区内的解锁位置换段，或缓冲区已用完：从当前指针的下一个字符开始
+	 * 2.输入未读完而缓冲区在锁定状态下读到末尾：退回到最后一个解锁位置，丢弃其后开始的词元，
+	 *   从解锁位置的下一个字符开始，保证换段不改变分词结果
+	 * 3.整段没有解锁位置：保留最后一个字符与下一段衔接
+	 */
+	void endWindow(){
+		if(this.cursor < this.available - 1 || this.inputExhausted || this.lastUnlocked == this.cursor){
+			this.nextBegin = this.cursor + 1;
+		}else if(this.lastUnlocked >= 0){
+			while(!this.orgLexemes.isEmpty() && this.orgLexemes.peekLast().getBegin() > this.lastUnlocked){
+				this.orgLexemes.pollLast();
+			}
+			this.cursor = this.lastUnlocked;
+			this.nextBegin = this.lastUnlocked + 1;
+		}else{
+			this.nextBegin = this.cursor;
+		}
+		//未完成的词元在下一段重新分析
+		this.buffLocker.clear();
 	}
 	
 	/**
@@ -218,7 +398,7 @@ class AnalyzeContext {
 	 * 累计当前的segmentBuff相对于reader起始位置的位移
 	 */
 	void markBufferOffset(){
-		this.buffOffset += this.cursor;
+		this.buffOffset += this.nextBegin;
 	}
 	
 	/**
@@ -323,23 +503,59 @@ class AnalyzeContext {
 	 * @return
 	 */
 	Lexeme getNextLexeme(){
+		return this.getNextLexeme(true);
+	}
+
+	/**
+	 * 返回lexeme
+	 *
+	 * 同时处理合并
+	 * @param materialize 是否生成词元文本，批量分词时可按需生成
+	 * @return
+	 */
+	Lexeme getNextLexeme(boolean materialize){
+		return this.getNextLexeme(materialize , this.cfg.isUseSmart());
+	}
+
+	/**
+	 * 返回lexeme
+	 *
+	 * 同时处理合并
+	 * @param materialize 是否生成词元文本，批量分词时可按需生成
+	 * @param useSmart 是否按智能分词模式合并数量词
+	 * @return
+	 */
+	Lexeme getNextLexeme(boolean materialize , boolean useSmart){
 		//从结果集取出，并移除第一个Lexme
 		Lexeme result = this.results.pollFirst();
 		while(result != null){
     		//数量词合并
-    		this.compound(result);
-    		if(Dictionary.getSingleton().isStopWord(this.segmentBuff ,  result.getBegin() , result.getLength())){
+    		this.compound(result , useSmart);
+    		if(Dictionary.getSingleton().isStopWord(this.segmentBuff ,  result.getBegin() , result.getLength())
+    				|| (this.cfg.getDictOverlay() != null && this.cfg.getDictOverlay().isStopWord(this.segmentBuff , result.getBegin() , result.getLength()))){
        			//是停止词继续取列表的下一个
+    			this.stopWordCount++;
     			result = this.results.pollFirst(); 				
     		}else{
 	 			//不是停止词, 生成lexeme的词元文本,输出
-	    		result.setLexemeText(String.valueOf(segmentBuff , result.getBegin() , result.getLength()));
+	 			if(materialize){
+	    			result.setLexemeText(String.valueOf(segmentBuff , result.getBegin() , result.getLength()));
+	 			}
 	    		break;
     		}
 		}
 		return result;
 	}
 
+	/**
+	 * 返回上次调用以来丢弃的停止词数，并重新计数
+	 */
+	int pollStopWordCount(){
+		int count = this.stopWordCount;
+		this.stopWordCount = 0;
+		return count;
+	}
+
 	/**
 	 * 返回末尾非CJK字符字符数目
 	 */
@@ -347,6 +563,13 @@ class AnalyzeContext {
 		return this.lastUselessCharNum;
 	}
 
+	/**
+	 * 恢复末尾非CJK字符数目，同一缓冲区多次输出结果时使用
+	 */
+	void setLastUselessCharNum(int lastUselessCharNum){
+		this.lastUselessCharNum = lastUselessCharNum;
+	}
+
 	/**
 	 * 重置分词上下文状态
 	 */
@@ -355,19 +578,25 @@ class AnalyzeContext {
         this.orgLexemes = new QuickSortSet();
         this.available =0;
         this.buffOffset = 0;
-    	this.charTypes = new int[BUFF_SIZE];
+        this.sourcePosition = 0;
+        this.inputExhausted = false;
+        this.lastUnlocked = -1;
+        this.nextBegin = 0;
+        this.skippingLetters = false;
+        this.letterRunStart = -1;
+        this.stopWordCount = 0;
     	this.cursor = 0;
     	this.results.clear();
-    	this.segmentBuff = new char[BUFF_SIZE];
+    	//segmentBuff及charTypes在下次读入时被覆盖，无需重新分配
     	this.pathMap.clear();
 	}
 	
 	/**
 	 * 组合词元
 	 */
-	private void compound(Lexeme result){
+	private void compound(Lexeme result , boolean useSmart){
 
-		if(!this.cfg.isUseSmart()){
+		if(!useSmart){
 			return ;
 		}
    		//数量词合并处理
@@ -0,0 +1,56 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：一条歧义路径的裁决
+ * 默认不启用，未启用时IKArbitrator不创建事件对象，每次裁决只多一次isEnabled()判断
+ */
+@Name("org.wltea.analyzer.Arbitration")
+@Label("IK Arbitration")
+@Category("IK Analyzer")
+@Description("Ambiguity arbitration of one cross path")
+@Enabled(false)
+@StackTrace(false)
+final class ArbitrationEvent extends jdk.jfr.Event {
+
+	@Label("Path Length")
+	@Description("Length of the cross path in chars")
+	int pathLength;
+
+	@Label("Lexemes")
+	@Description("Number of lexemes in the cross path")
+	int lexemes;
+
+	@Label("Candidate Paths")
+	int candidatePaths;
+
+	@Label("Limited")
+	@Description("Stopped by the arbitration beam width or budget")
+	boolean limited;
+}
@@ -0,0 +1,331 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.Dictionary;
+
+/**
+ * 文档集合并行分词器
+ * 在ForkJoinPool或调用方提供的Executor上并行分词，IKSegmenter取自实例内的池并在分词后归还，
+ * 不在线程池的线程上留下线程变量，所有线程共享同一个Dictionary单例
+ * 同时在途的文档数有上限，超过上限时提交线程阻塞（背压）
+ */
+public final class BatchSegmenter {
+
+	//分词器配置项
+	private final Configuration configuration;
+	//执行分词任务的线程池
+	private final Executor executor;
+	//同时在途的文档数上限
+	private final int maxInFlight;
+	//是否按输入顺序输出结果
+	private boolean ordered = false;
+
+	//可复用的分词器，数量不超过同时在途的文档数
+	private final ConcurrentLinkedQueue<IKSegmenter> segmenterPool = new ConcurrentLinkedQueue<IKSegmenter>();
+	//可复用的列式分词结果
+	private final ConcurrentLinkedQueue<LexemeBatch> batchPool = new ConcurrentLinkedQueue<LexemeBatch>();
+
+	/**
+	 * 使用配置的线程池（参见Configuration.getParallelExecutor()）并行分词
+	 * 未配置时使用ForkJoinPool.commonPool()，只适用于独立使用分词器
+	 * @param configuration
+	 */
+	public BatchSegmenter(Configuration configuration){
+		this(configuration ,
+				configuration.getParallelExecutor() != null ? configuration.getParallelExecutor() : ForkJoinPool.commonPool() ,
+				(configuration.getParallelExecutor() != null ? configuration.getParallelism() : ForkJoinPool.getCommonPoolParallelism()) * 4);
+	}
+
+	/**
+	 * @param configuration
+	 * @param executor 执行分词任务的线程池
+	 * @param maxInFlight 同时在途（分词中或等待输出）的文档数上限
+	 */
+	public BatchSegmenter(Configuration configuration , Executor executor , int maxInFlight){
+		if(executor == null){
+			throw new IllegalArgumentException("executor must not be null");
+		}
+		if(maxInFlight < 1){
+			throw new IllegalArgumentException("maxInFlight must be positive");
+		}
+		this.configuration = configuration;
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+		Dictionary.initial(configuration);
+	}
+
+	/**
+	 * 设置是否按输入顺序输出结果
+	 * 不保序时consumer会被多个工作线程并发调用，必须是线程安全的
+	 * 保序时consumer的调用是串行的
+	 */
+	public BatchSegmenter setOrdered(boolean ordered){
+		this.ordered = ordered;
+		return this;
+	}
+
+	public boolean isOrdered(){
+		return this.ordered;
+	}
+
+	/**
+	 * 并行分词，所有文档处理完毕后返回
+	 * consumer返回后Result中的LexemeBatch会被回收复用，不能在consumer之外持有
+	 * @param texts 待分词的文档
+	 * @param consumer 分词结果处理
+	 * @return 本次分词的吞吐统计
+	 */
+	public Stats segment(Iterable<? extends CharSequence> texts , Consumer<Result> consumer){
+		return this.segment(texts.iterator() , consumer);
+	}
+
+	/**
+	 * 并行分词，所有文档处理完毕后返回，返回前关闭texts
+	 * @see #segment(Iterable, Consumer)
+	 */
+	public Stats segment(Stream<? extends CharSequence> texts , Consumer<Result> consumer){
+		try(Stream<? extends CharSequence> stream = texts){
+			return this.segment(stream.iterator() , consumer);
+		}
+	}
+
+	private Stats segment(Iterator<? extends CharSequence> texts , Consumer<Result> consumer){
+		Run run = new Run(consumer);
+		long index = 0;
+		while(run.failure.get() == null && texts.hasNext()){
+			CharSequence text = texts.next();
+			//背压：在途文档数达到上限时阻塞
+			run.permits.acquireUninterruptibly();
+			final long docIndex = index++;
+			try{
+				this.executor.execute(() -> run.process(docIndex , text));
+			}catch(RuntimeException e){
+				run.permits.release();
+				run.failure.compareAndSet(null , e);
+			}
+		}
+		//等待所有在途文档处理完毕
+		run.permits.acquireUninterruptibly(this.maxInFlight);
+		run.permits.release(this.maxInFlight);
+
+		Throwable failure = run.failure.get();
+		if(failure instanceof RuntimeException){
+			throw (RuntimeException)failure;
+		}else if(failure instanceof Error){
+			throw (Error)failure;
+		}else if(failure != null){
+			throw new RuntimeException(failure);
+		}
+		return new Stats(run.documents.sum() , run.chars.sum() , run.lexemes.sum() , System.nanoTime() - run.startNanos);
+	}
+
+	/**
+	 * 一次segment调用的状态
+	 */
+	private final class Run {
+		private final Consumer<Result> consumer;
+		private final Semaphore permits = new Semaphore(maxInFlight);
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		private final LongAdder documents = new LongAdder();
+		private final LongAdder chars = new LongAdder();
+		private final LongAdder lexemes = new LongAdder();
+		private final long startNanos = System.nanoTime();
+
+		//保序输出时，等待前序文档的结果
+		private final Map<Long , Result> pending = new HashMap<Long , Result>();
+		//保序输出时，下一个应输出的文档序号
+		private long nextIndex = 0;
+
+		Run(Consumer<Result> consumer){
+			this.consumer = consumer;
+		}
+
+		void process(long index , CharSequence text){
+			Result result = null;
+			try{
+				if(this.failure.get() == null){
+					LexemeBatch batch = batchPool.poll();
+					if(batch == null){
+						batch = new LexemeBatch();
+					}
+					IKSegmenter segmenter = segmenterPool.poll();
+					if(segmenter == null){
+						segmenter = new IKSegmenter("" , configuration);
+					}
+					try{
+						segmenter.reset(text);
+						segmenter.segment(batch);
+					}finally{
+						//归还前清空对文档的引用
+						segmenter.reset("");
+						segmenterPool.offer(segmenter);
+					}
+					this.documents.increment();
+					this.chars.add(text.length());
+					this.lexemes.add(batch.size());
+					result = new Result(index , text , batch);
+				}
+			}catch(IOException e){
+				this.failure.compareAndSet(null , new UncheckedIOException(e));
+			}catch(Throwable t){
+				this.failure.compareAndSet(null , t);
+			}
+			if(ordered){
+				this.deliverInOrder(index , result);
+			}else{
+				this.deliver(result);
+				this.permits.release();
+			}
+		}
+
+		/**
+		 * 按文档序号输出，失败的文档以null占位
+		 */
+		private synchronized void deliverInOrder(long index , Result result){
+			this.pending.put(index , result);
+			while(this.pending.containsKey(this.nextIndex)){
+				this.deliver(this.pending.remove(this.nextIndex));
+				this.nextIndex++;
+				this.permits.release();
+			}
+		}
+
+		private void deliver(Result result){
+			if(result == null){
+				return;
+			}
+			try{
+				if(this.failure.get() == null){
+					this.consumer.accept(result);
+				}
+			}catch(Throwable t){
+				this.failure.compareAndSet(null , t);
+			}finally{
+				result.lexemes.clear();
+				batchPool.offer(result.lexemes);
+			}
+		}
+	}
+
+	/**
+	 * 单篇文档的分词结果
+	 */
+	public static final class Result {
+		private final long index;
+		private final CharSequence text;
+		private final LexemeBatch lexemes;
+
+		Result(long index , CharSequence text , LexemeBatch lexemes){
+			this.index = index;
+			this.text = text;
+			this.lexemes = lexemes;
+		}
+
+		/**
+		 * 文档在输入中的序号
+		 */
+		public long getIndex(){
+			return this.index;
+		}
+
+		public CharSequence getText(){
+			return this.text;
+		}
+
+		/**
+		 * 列式分词结果，只在consumer调用期间有效
+		 */
+		public LexemeBatch getLexemes(){
+			return this.lexemes;
+		}
+	}
+
+	/**
+	 * 吞吐统计
+	 */
+	public static final class Stats {
+		private final long documents;
+		private final long chars;
+		private final long lexemes;
+		private final long elapsedNanos;
+
+		Stats(long documents , long chars , long lexemes , long elapsedNanos){
+			this.documents = documents;
+			this.chars = chars;
+			this.lexemes = lexemes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public long getDocuments(){
+			return this.documents;
+		}
+
+		public long getChars(){
+			return this.chars;
+		}
+
+		public long getLexemes(){
+			return this.lexemes;
+		}
+
+		public long getElapsedNanos(){
+			return this.elapsedNanos;
+		}
+
+		public double getDocumentsPerSecond(){
+			return this.perSecond(this.documents);
+		}
+
+		public double getCharsPerSecond(){
+			return this.perSecond(this.chars);
+		}
+
+		public double getLexemesPerSecond(){
+			return this.perSecond(this.lexemes);
+		}
+
+		private double perSecond(long count){
+			return this.elapsedNanos > 0 ? count * 1e9 / this.elapsedNanos : 0;
+		}
+
+		public String toString(){
+			return String.format("documents: %d, chars: %d, lexemes: %d, elapsed: %.3fs, %.0f chars/s, %.0f docs/s",
+					this.documents , this.chars , this.lexemes , this.elapsedNanos / 1e9 ,
+					this.getCharsPerSecond() , this.getDocumentsPerSecond());
+		}
+	}
+}
@@ -25,6 +25,7 @@
  */
 package org.wltea.analyzer.core;
 
+import org.wltea.analyzer.dic.DictOverlay;
 import org.wltea.analyzer.dic.Dictionary;
 import org.wltea.analyzer.dic.Hit;
 
@@ -41,10 +42,13 @@ class CJKSegmenter implements ISegmenter {
 	static final String SEGMENTER_NAME = "CJK_SEGMENTER";
 	//待处理的分词hit队列
 	private List<Hit> tmpHits;
+	//索引级的扩展词典，没有扩展词时为null
+	private final DictOverlay overlay;
 	
 	
-	CJKSegmenter(){
+	CJKSegmenter(DictOverlay overlay){
 		this.tmpHits = new LinkedList<Hit>();
+		this.overlay = overlay != null && overlay.hasWords() ? overlay : null;
 	}
 
 	/* (non-Javadoc)
@@ -78,19 +82,10 @@ class CJKSegmenter implements ISegmenter {
 			//*********************************
 			//再对当前指针位置的字符进行单字匹配
 			Hit singleCharHit = Dictionary.getSingleton().matchInMainDict(context.getSegmentBuff(), context.getCursor(), 1);
-			if(singleCharHit.isMatch()){//首字成词
-				//输出当前的词
-				Lexeme newLexeme = new Lexeme(context.getBufferOffset() , context.getCursor() , 1 , Lexeme.TYPE_CNWORD);
-				context.addLexeme(newLexeme);
-
-				//同时也是词前缀
-				if(singleCharHit.isPrefix()){
-					//前缀匹配则放入hit列表
-					this.tmpHits.add(singleCharHit);
-				}
-			}else if(singleCharHit.isPrefix()){//首字为词前缀
-				//前缀匹配则放入hit列表
-				this.tmpHits.add(singleCharHit);
+			this.processSingleCharHit(context , singleCharHit);
+			if(this.overlay != null){
+				//扩展词典的hit与主词典的hit一起继续匹配，重复的词元由结果集合去重
+				this.processSingleCharHit(context , this.overlay.matchInWords(context.getSegmentBuff(), context.getCursor(), 1));
 			}
 			
 
@@ -115,6 +110,23 @@ class CJKSegmenter implements ISegmenter {
 		}
 	}
 
+	private void processSingleCharHit(AnalyzeContext context , Hit singleCharHit){
+		if(singleCharHit.isMatch()){//首字成词
+			//输出当前的词
+			Lexeme newLexeme = new Lexeme(context.getBufferOffset() , context.getCursor() , 1 , Lexeme.TYPE_CNWORD);
+			context.addLexeme(newLexeme);
+
+			//同时也是词前缀
+			if(singleCharHit.isPrefix()){
+				//前缀匹配则放入hit列表
+				this.tmpHits.add(singleCharHit);
+			}
+		}else if(singleCharHit.isPrefix()){//首字为词前缀
+			//前缀匹配则放入hit列表
+			this.tmpHits.add(singleCharHit);
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.wltea.analyzer.core.ISegmenter#reset()
 	 */
@@ -0,0 +1,214 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 文本分段的分词结果，不可变
+ * 词元位置相对于分段起始位置，同时记录分段内子分词器全部解锁的位置
+ *
+ * 子分词器全部解锁的位置之后不存在跨越的词元和歧义路径，在这些位置切分不会改变分词结果。
+ * 分段拼接前据此校验：
+ * 1.每个切分点之前的字符都是解锁位置
+ * 2.各段自身，以及整篇文档串行分词时，缓冲区都能在解锁位置换段，不会被强制截断
+ * 校验通过时拼接结果与IKSegmenter对整篇文档串行分词的结果完全一致
+ */
+final class ChunkResult {
+
+	//分段长度
+	final int length;
+	//词元相对于分段起始位置的位移
+	final int[] begins;
+	//词元长度
+	final int[] lengths;
+	//词元类型
+	final int[] types;
+	//子分词器全部解锁的位置，相对于分段起始位置
+	final BitSet unlocked;
+	//分段末尾非CJK字符数目
+	final int lastUselessCharNum;
+
+	private ChunkResult(int length , LexemeBatch batch , BitSet unlocked){
+		this.length = length;
+		this.begins = Arrays.copyOf(batch.getBegins() , batch.size());
+		this.lengths = Arrays.copyOf(batch.getLengths() , batch.size());
+		this.types = Arrays.copyOf(batch.getTypes() , batch.size());
+		this.unlocked = unlocked;
+		this.lastUselessCharNum = batch.getLastUselessCharNum(0);
+	}
+
+	/**
+	 * 对字符数组的指定区间分词
+	 * @param segmenter 用于分词的IKSegmenter，会被重置为该区间
+	 * @param text 待分析的字符数组
+	 * @param begin 分段在数组中的起始位置
+	 * @param length 分段长度
+	 * @param scratch 临时使用的列式分词结果，会被清空
+	 */
+	static ChunkResult segment(IKSegmenter segmenter , char[] text , int begin , int length , LexemeBatch scratch) throws IOException{
+		BitSet unlocked = new BitSet(length);
+		segmenter.reset(text , begin , length);
+		segmenter.trackUnlockedPositions(unlocked);
+		scratch.clear();
+		segmenter.segment(scratch);
+		return new ChunkResult(length , scratch , unlocked);
+	}
+
+	/**
+	 * 候选切分字符：不会与前后字符组成词元的非CJK字符
+	 * @param input 规格化后的字符
+	 */
+	static boolean isSeparator(char input){
+		return CharacterUtil.identifyCharType(input) == CharacterUtil.CHAR_USELESS && !LetterSegmenter.isConnector(input);
+	}
+
+	/**
+	 * 词元数目
+	 */
+	int size(){
+		return this.begins.length;
+	}
+
+	/**
+	 * 估算占用的内存字节数
+	 */
+	long ramBytesUsed(){
+		return 96 + 12L * this.begins.length + (this.unlocked.size() >>> 3);
+	}
+
+	/**
+	 * 校验分段拼接后的结果与整篇文档串行分词是否一致
+	 * @param chunks 按顺序排列的分段
+	 * @param starts 各分段在文档中的起始位置
+	 * @param count 分段数目
+	 * @param length 文档长度
+	 */
+	static boolean isConsistent(ChunkResult[] chunks , int[] starts , int count , int length){
+		for(int j = 0 ; j < count ; j++){
+			ChunkResult chunk = chunks[j];
+			//切分点之前的字符处理完毕后，子分词器必须全部解锁
+			if(j < count - 1 && !chunk.unlocked.get(chunk.length - 1)){
+				return false;
+			}
+			if(!isWindowed(chunks , starts , count , starts[j] , starts[j] + chunk.length)){
+				return false;
+			}
+		}
+		return isWindowed(chunks , starts , count , 0 , length);
+	}
+
+	/**
+	 * 按位移拼接各段的分词结果，作为一篇新文档追加到批次中
+	 * @param text 文档文本
+	 * @param lowercase 分词时是否启用了小写处理
+	 * @return 追加的词元数目
+	 */
+	static int stitch(ChunkResult[] chunks , int[] starts , int count , CharSequence text , boolean lowercase , LexemeBatch batch){
+		batch.startDocument(text , lowercase);
+		int size = 0;
+		for(int j = 0 ; j < count ; j++){
+			ChunkResult chunk = chunks[j];
+			for(int i = 0 ; i < chunk.size() ; i++){
+				batch.add(starts[j] + chunk.begins[i] , chunk.lengths[i] , chunk.types[i]);
+			}
+			size += chunk.size();
+		}
+		//末尾非CJK字符可能跨越多段
+		int lastUselessCharNum = 0;
+		for(int j = count - 1 ; j >= 0 ; j--){
+			lastUselessCharNum += chunks[j].lastUselessCharNum;
+			if(chunks[j].lastUselessCharNum < chunks[j].length){
+				break;
+			}
+		}
+		batch.endDocument(lastUselessCharNum);
+		return size;
+	}
+
+	/**
+	 * 模拟AnalyzeContext的缓冲区换段过程，参见AnalyzeContext.endWindow()
+	 * @return 每次换段都发生在解锁位置时返回true，缓冲区被强制截断时返回false
+	 */
+	private static boolean isWindowed(ChunkResult[] chunks , int[] starts , int count , int start , int end){
+		int offset = start;
+		//最后一段读完即结束，不需要换段
+		while(end - offset > AnalyzeContext.BUFF_SIZE){
+			int last = offset + AnalyzeContext.BUFF_SIZE - 1;
+			//临界区内的解锁位置
+			int p = nextUnlocked(chunks , starts , count , last - AnalyzeContext.BUFF_EXHAUST_CRITICAL + 2);
+			if(p < 0 || p > last){
+				//退回到本段最后一个解锁位置
+				p = previousUnlocked(chunks , starts , count , last);
+				if(p < offset){
+					return false;
+				}
+			}
+			offset = p + 1;
+		}
+		return true;
+	}
+
+	/**
+	 * 返回from之后（含）第一个解锁位置，没有时返回-1
+	 */
+	private static int nextUnlocked(ChunkResult[] chunks , int[] starts , int count , int from){
+		for(int j = chunkAt(starts , count , from) ; j < count ; j++){
+			int p = chunks[j].unlocked.nextSetBit(Math.max(from - starts[j] , 0));
+			if(p >= 0){
+				return starts[j] + p;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 返回from之前（含）最后一个解锁位置，没有时返回-1
+	 */
+	private static int previousUnlocked(ChunkResult[] chunks , int[] starts , int count , int from){
+		for(int j = chunkAt(starts , count , from) ; j >= 0 ; j--){
+			int p = chunks[j].unlocked.previousSetBit(Math.min(from - starts[j] , chunks[j].length - 1));
+			if(p >= 0){
+				return starts[j] + p;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 二分查找位置所在的分段
+	 */
+	private static int chunkAt(int[] starts , int count , int position){
+		int low = 0;
+		int high = count - 1;
+		while(low < high){
+			int mid = (low + high + 1) >>> 1;
+			if(starts[mid] <= position){
+				low = mid;
+			}else{
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,410 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.Dictionary;
+
+/**
+ * 子句级分词结果缓存，节点内所有分词器共享
+ * 文档在标点、空白等非CJK字符处切分为子句，子句的分词结果与上下文无关，
+ * 以子句规格化文本的哈希为键缓存，重复出现的子句直接按位移拼接缓存的词元
+ * 拼接前校验分段结果（参见ChunkResult），校验不通过时退回整篇串行分词
+ * 内存占用有上限，超出时按CLOCK算法淘汰；词典变更后清空
+ * 在IKAnalyzer.cfg.xml中配置：
+ * clause_cache_memory_mb 缓存占用内存上限（MB），0表示不启用（默认）
+ * clause_cache_max_length 可缓存的子句长度上限，默认64
+ */
+public final class ClauseCache {
+
+	//缓存占用内存上限
+	public static final String CLAUSE_CACHE_MEMORY_MB = "clause_cache_memory_mb";
+	//可缓存的子句长度上限
+	public static final String CLAUSE_CACHE_MAX_LENGTH = "clause_cache_max_length";
+	//默认可缓存的子句长度上限
+	public static final int DEFAULT_MAX_LENGTH = 64;
+
+	//FNV-1a哈希参数
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	//节点共享实例
+	private static volatile ClauseCache shared;
+	//未启用时的占位实例
+	private static final ClauseCache DISABLED = new ClauseCache(0 , 0);
+
+	private final long maxMemory;
+	private final int maxLength;
+
+	private final ConcurrentHashMap<Long , Entry> entries = new ConcurrentHashMap<Long , Entry>();
+	//CLOCK淘汰队列，由this保护
+	private final ArrayDeque<Entry> clock = new ArrayDeque<Entry>();
+	//已占用内存，由this保护
+	private long memoryUsed;
+	//缓存条目对应的词典版本号
+	private volatile long version;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+	/**
+	 * @param maxMemory 缓存占用内存上限（字节），0表示不启用
+	 * @param maxLength 可缓存的子句长度上限
+	 */
+	public ClauseCache(long maxMemory , int maxLength){
+		if(maxMemory < 0){
+			throw new IllegalArgumentException("maxMemory must not be negative");
+		}
+		if(maxLength < 0){
+			throw new IllegalArgumentException("maxLength must not be negative");
+		}
+		this.maxMemory = maxMemory;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * 返回节点共享的缓存实例，首次调用时读取IKAnalyzer.cfg.xml中的配置
+	 * 词典须已初始化
+	 */
+	public static ClauseCache getShared(){
+		ClauseCache cache = shared;
+		if(cache == null){
+			synchronized(ClauseCache.class){
+				cache = shared;
+				if(cache == null){
+					Dictionary dictionary = Dictionary.getSingleton();
+					long maxMemory = dictionary.getIntProperty(CLAUSE_CACHE_MEMORY_MB , 0) * 1024L * 1024L;
+					int maxLength = dictionary.getIntProperty(CLAUSE_CACHE_MAX_LENGTH , DEFAULT_MAX_LENGTH);
+					cache = maxMemory > 0 ? new ClauseCache(maxMemory , maxLength) : DISABLED;
+					shared = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * 返回节点共享的缓存实例，尚未创建时返回null，不读取配置
+	 */
+	static ClauseCache peekShared(){
+		return shared;
+	}
+
+	/**
+	 * 是否启用
+	 */
+	public boolean isEnabled(){
+		return this.maxMemory > 0;
+	}
+
+	/**
+	 * 分词，将字符数组指定区间的全部词元追加到批次中，作为一篇新文档
+	 * 结果与IKSegmenter直接对该区间分词完全一致
+	 * @param segmenter 用于对未命中的子句分词的IKSegmenter，会被重置
+	 * @param text 待分析的字符数组，分词过程中不会被修改
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 * @param configuration 分词器配置项
+	 * @param batch 列式分词结果
+	 * @return 本次追加的词元数目
+	 * @throws java.io.IOException
+	 */
+	public int segment(IKSegmenter segmenter , char[] text , int begin , int length , Configuration configuration , LexemeBatch batch) throws IOException{
+		boolean lowercase = configuration.isEnableLowercase();
+		//不同的索引级扩展词典分词结果不同，以其编号区分
+		int flags = (configuration.isUseSmart() ? 1 : 0) | (lowercase ? 2 : 0) | (configuration.getDictOverlayId() << 2);
+		//在分词之前读取版本号，分词期间词典变更时缓存的条目随即失效
+		long version = Dictionary.getSingleton().getVersion();
+		this.checkVersion(version);
+		//各子句不单独记录慢分词日志，整篇文档记录一次
+		SlowLog slowLog = segmenter.suspendSlowLog();
+		long start = System.nanoTime();
+		int count;
+		try{
+			count = this.segment(segmenter , text , begin , length , version , flags , lowercase , batch);
+		}finally{
+			segmenter.resumeSlowLog(slowLog);
+		}
+		if(slowLog != null){
+			String mode = configuration.isUseSmart() ? IKSegmenter.MODE_SMART : IKSegmenter.MODE_MAX_WORD;
+			slowLog.log(mode , length , count , 0 , System.nanoTime() - start , CharBuffer.wrap(text , begin , length));
+		}
+		return count;
+	}
+
+	private int segment(IKSegmenter segmenter , char[] text , int begin , int length , long version , int flags , boolean lowercase ,
+			LexemeBatch batch) throws IOException{
+		Clauses clauses = new Clauses(segmenter , text , begin , version , flags);
+		int clauseStart = 0;
+		long hash = FNV_OFFSET ^ flags;
+		boolean inSeparators = false;
+		for(int i = 0 ; i < length ; i++){
+			char c = CharacterUtil.regularize(text[begin + i] , lowercase);
+			boolean separator = ChunkResult.isSeparator(c);
+			if(inSeparators && !separator){
+				//子句包含末尾连续的分隔字符
+				clauses.add(clauseStart , i , hash);
+				clauseStart = i;
+				hash = FNV_OFFSET ^ flags;
+			}
+			hash = (hash ^ c) * FNV_PRIME;
+			inSeparators = separator;
+		}
+		if(clauseStart < length){
+			clauses.add(clauseStart , length , hash);
+		}
+		clauses.flush(length);
+
+		if(ChunkResult.isConsistent(clauses.chunks , clauses.starts , clauses.count , length)){
+			return ChunkResult.stitch(clauses.chunks , clauses.starts , clauses.count , CharBuffer.wrap(text , begin , length) , lowercase , batch);
+		}
+		this.fallbacks.increment();
+		segmenter.reset(text , begin , length);
+		return segmenter.segment(batch);
+	}
+
+	/**
+	 * 词典版本变更时清空缓存
+	 */
+	private void checkVersion(long version){
+		if(version != this.version){
+			synchronized(this){
+				if(version != this.version){
+					this.entries.clear();
+					this.clock.clear();
+					this.memoryUsed = 0;
+					this.version = version;
+				}
+			}
+		}
+	}
+
+	private Entry get(long hash , char[] text , int begin , int length , long version , int flags , boolean lowercase){
+		Entry entry = this.entries.get(hash);
+		if(entry != null && entry.matches(text , begin , length , version , flags , lowercase)){
+			entry.referenced = true;
+			this.hits.increment();
+			return entry;
+		}
+		this.misses.increment();
+		return null;
+	}
+
+	private synchronized void put(long hash , Entry entry){
+		if(entry.version != this.version || this.entries.putIfAbsent(hash , entry) != null){
+			return;
+		}
+		this.clock.addLast(entry);
+		this.memoryUsed += entry.bytes;
+		//CLOCK淘汰：最近被访问过的条目获得第二次机会
+		while(this.memoryUsed > this.maxMemory && !this.clock.isEmpty()){
+			Entry victim = this.clock.pollFirst();
+			if(victim.referenced){
+				victim.referenced = false;
+				this.clock.addLast(victim);
+			}else{
+				this.entries.remove(victim.hash , victim);
+				this.memoryUsed -= victim.bytes;
+				this.evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public synchronized void clear(){
+		this.entries.clear();
+		this.clock.clear();
+		this.memoryUsed = 0;
+	}
+
+	/**
+	 * 当前缓存条目数
+	 */
+	public int size(){
+		return this.entries.size();
+	}
+
+	/**
+	 * 当前估算的内存占用（字节）
+	 */
+	public synchronized long getMemoryUsed(){
+		return this.memoryUsed;
+	}
+
+	public long getHits(){
+		return this.hits.sum();
+	}
+
+	public long getMisses(){
+		return this.misses.sum();
+	}
+
+	public long getEvictions(){
+		return this.evictions.sum();
+	}
+
+	/**
+	 * 校验不通过、退回整篇串行分词的文档数
+	 */
+	public long getFallbacks(){
+		return this.fallbacks.sum();
+	}
+
+	/**
+	 * 命中率，没有查找记录时返回0
+	 */
+	public double getHitRate(){
+		long hits = this.hits.sum();
+		long total = hits + this.misses.sum();
+		return total > 0 ? (double)hits / total : 0;
+	}
+
+	public String toString(){
+		return String.format("size: %d, memory: %d/%d, hits: %d, misses: %d, evictions: %d, fallbacks: %d, hit rate: %.2f%%",
+				this.size() , this.getMemoryUsed() , this.maxMemory , this.getHits() , this.getMisses() ,
+				this.getEvictions() , this.getFallbacks() , this.getHitRate() * 100);
+	}
+
+	/**
+	 * 一篇文档切分出的分段
+	 * 可缓存的子句各自成段，连续的超长子句合并为一段直接分词
+	 */
+	private final class Clauses {
+		private final IKSegmenter segmenter;
+		private final char[] text;
+		private final int begin;
+		private final long version;
+		private final int flags;
+		private final boolean lowercase;
+		private LexemeBatch scratch;
+
+		private ChunkResult[] chunks = new ChunkResult[16];
+		private int[] starts = new int[16];
+		private int count;
+		//尚未分词的超长子句的起始位置，-1表示没有
+		private int pendingStart = -1;
+
+		Clauses(IKSegmenter segmenter , char[] text , int begin , long version , int flags){
+			this.segmenter = segmenter;
+			this.text = text;
+			this.begin = begin;
+			this.version = version;
+			this.flags = flags;
+			this.lowercase = (flags & 2) != 0;
+		}
+
+		void add(int start , int end , long hash) throws IOException{
+			int length = end - start;
+			if(length > maxLength){
+				if(this.pendingStart < 0){
+					this.pendingStart = start;
+				}
+				return;
+			}
+			this.flush(start);
+			Entry entry = get(hash , this.text , this.begin + start , length , this.version , this.flags , this.lowercase);
+			if(entry == null){
+				ChunkResult chunk = this.segment(start , length);
+				entry = new Entry(hash , this.text , this.begin + start , length , this.version , this.flags , this.lowercase , chunk);
+				put(hash , entry);
+			}
+			this.append(start , entry.chunk);
+		}
+
+		/**
+		 * 对尚未分词的超长子句分词
+		 */
+		void flush(int end) throws IOException{
+			if(this.pendingStart >= 0){
+				this.append(this.pendingStart , this.segment(this.pendingStart , end - this.pendingStart));
+				this.pendingStart = -1;
+			}
+		}
+
+		private ChunkResult segment(int start , int length) throws IOException{
+			if(this.scratch == null){
+				this.scratch = new LexemeBatch();
+			}
+			return ChunkResult.segment(this.segmenter , this.text , this.begin + start , length , this.scratch);
+		}
+
+		private void append(int start , ChunkResult chunk){
+			if(this.count == this.chunks.length){
+				this.chunks = Arrays.copyOf(this.chunks , this.count << 1);
+				this.starts = Arrays.copyOf(this.starts , this.count << 1);
+			}
+			this.chunks[this.count] = chunk;
+			this.starts[this.count] = start;
+			this.count++;
+		}
+	}
+
+	/**
+	 * 缓存条目
+	 */
+	private static final class Entry {
+		private final long hash;
+		//规格化后的子句文本，用于排除哈希冲突
+		private final char[] text;
+		private final long version;
+		private final int flags;
+		private final ChunkResult chunk;
+		//估算的内存占用
+		private final long bytes;
+		//CLOCK访问标记
+		private volatile boolean referenced;
+
+		Entry(long hash , char[] text , int begin , int length , long version , int flags , boolean lowercase , ChunkResult chunk){
+			this.hash = hash;
+			this.text = new char[length];
+			for(int i = 0 ; i < length ; i++){
+				this.text[i] = CharacterUtil.regularize(text[begin + i] , lowercase);
+			}
+			this.version = version;
+			this.flags = flags;
+			this.chunk = chunk;
+			this.bytes = 96 + 2L * length + chunk.ramBytesUsed();
+		}
+
+		boolean matches(char[] text , int begin , int length , long version , int flags , boolean lowercase){
+			if(this.version != version || this.flags != flags || this.text.length != length){
+				return false;
+			}
+			for(int i = 0 ; i < length ; i++){
+				if(this.text[i] != CharacterUtil.regularize(text[begin + i] , lowercase)){
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.Dictionary;
+
+/**
+ * 双模式分词结果交接
+ * 同一字段值常以ik_max_word和ik_smart各分析一次（multi-fields），
+ * 第一个分词器一次切分同时生成两种模式的结果，将另一模式的结果留在当前线程，
+ * 同一线程中下一个分析相同文本的另一模式分词器直接取用
+ * 只在观察到成对分析时才生成交接结果：另一模式的分词器紧随其后分析相同文本而未能取用时开始生成，
+ * 生成的结果无人取用时停止，因此每次开始成对分析时多分词一次
+ * 没有另一模式的分词器时，每篇文档只额外复制一次文本，并与下一篇文档比较；
+ * 另一模式的分词器不再出现后，至多多做一次另一模式的歧义处理
+ */
+public final class DualModeSegmenter {
+
+	//可交接的文本长度上限，超长文本只生成当前模式的结果，避免线程长期持有大数组
+	public static final int MAX_HANDOFF_LENGTH = 16384;
+
+	private static final ThreadLocal<DualModeSegmenter> HANDOFF = ThreadLocal.withInitial(DualModeSegmenter::new);
+
+	//取用交接结果的次数
+	private static final LongAdder hits = new LongAdder();
+	//另一模式的分词器分析相同文本但没有交接结果、重新分词的次数，只在取用方计数
+	private static final LongAdder misses = new LongAdder();
+
+	//上一篇文档文本的副本
+	private char[] text = new char[0];
+	//上一篇文档的文本长度，-1表示没有可配对的文档
+	private int length = -1;
+	//上一篇文档的分词模式
+	private boolean smart;
+	//上一篇文档是否启用了小写处理
+	private boolean lowercase;
+	//上一篇文档分析时的词典版本号
+	private long version;
+	//上一篇文档使用的索引级扩展词典编号，没有时为0
+	private int overlayId;
+	//是否留有另一模式的交接结果
+	private boolean handoff;
+	//是否同时生成另一模式的结果，观察到成对分析时开始，交接结果无人取用时停止
+	private boolean producing;
+	//交接的分词结果
+	private final LexemeBatch lexemes = new LexemeBatch();
+
+	private DualModeSegmenter(){
+	}
+
+	/**
+	 * 分词，将当前模式的全部词元追加到批次中，作为一篇新文档
+	 * 当前线程留有相同文本、当前模式的结果时直接取用，否则分词；正在成对分析时一次切分生成两种模式的结果，留下另一模式的结果
+	 * @param segmenter 用于分词的IKSegmenter，会被重置
+	 * @param text 待分析的字符数组，分词过程中不会被修改
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 * @param configuration 分词器配置项
+	 * @param batch 列式分词结果
+	 * @return 本次追加的词元数目
+	 * @throws java.io.IOException
+	 */
+	public static int segment(IKSegmenter segmenter , char[] text , int begin , int length , Configuration configuration , LexemeBatch batch) throws IOException{
+		return HANDOFF.get().segmentOrTake(segmenter , text , begin , length , configuration , batch);
+	}
+
+	public static long getHits(){
+		return hits.sum();
+	}
+
+	public static long getMisses(){
+		return misses.sum();
+	}
+
+	private int segmentOrTake(IKSegmenter segmenter , char[] text , int begin , int length , Configuration configuration , LexemeBatch batch) throws IOException{
+		boolean smart = configuration.isUseSmart();
+		boolean lowercase = configuration.isEnableLowercase();
+		//在分词之前读取版本号，分词期间词典变更时交接的结果随即失效
+		long version = Dictionary.getSingleton().getVersion();
+		int overlayId = configuration.getDictOverlayId();
+		int size = batch.size();
+		//上一篇文档是另一模式分析的相同文本
+		boolean partner = this.matches(text , begin , length , !smart , lowercase , version , overlayId);
+		if(partner && this.handoff){
+			batch.startDocument(CharBuffer.wrap(text , begin , length) , lowercase);
+			for(int i = 0 ; i < this.lexemes.size() ; i++){
+				batch.add(this.lexemes.getBegin(i) , this.lexemes.getLength(i) , this.lexemes.getType(i));
+			}
+			batch.endDocument(this.lexemes.getLastUselessCharNum(0));
+			this.release();
+			hits.increment();
+			return batch.size() - size;
+		}
+		if(partner){
+			misses.increment();
+			this.producing = true;
+		}else if(this.handoff){
+			this.producing = false;
+		}
+		this.release();
+		segmenter.reset(text , begin , length);
+		if(partner || length > MAX_HANDOFF_LENGTH){
+			//已配对的文档不再与下一篇配对
+			return segmenter.segment(batch);
+		}
+		if(!this.producing){
+			segmenter.segment(batch);
+		}else if(smart){
+			segmenter.segment(this.lexemes , batch);
+			this.handoff = true;
+		}else{
+			segmenter.segment(batch , this.lexemes);
+			this.handoff = true;
+		}
+		if(this.text.length < length){
+			this.text = new char[Math.min(Math.max(length , this.text.length << 1) , MAX_HANDOFF_LENGTH)];
+		}
+		System.arraycopy(text , begin , this.text , 0 , length);
+		this.length = length;
+		this.smart = smart;
+		this.lowercase = lowercase;
+		this.version = version;
+		this.overlayId = overlayId;
+		return batch.size() - size;
+	}
+
+	/**
+	 * 交接结果已取用或作废，清空结果，不再引用分词时的原始文本
+	 */
+	private void release(){
+		this.length = -1;
+		this.handoff = false;
+		this.lexemes.clear();
+	}
+
+	private boolean matches(char[] text , int begin , int length , boolean smart , boolean lowercase , long version , int overlayId){
+		if(this.length != length || this.smart != smart || this.lowercase != lowercase || this.version != version || this.overlayId != overlayId){
+			return false;
+		}
+		for(int i = 0 ; i < length ; i++){
+			if(this.text[i] != text[begin + i]){
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -26,14 +26,70 @@ package org.wltea.analyzer.core;
 
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wltea.analyzer.cfg.Configuration;
 
 /**
  * IK分词歧义裁决器
+ * 异常输入（大量重复字符、连续的数词量词等）会产生很长的歧义路径，为避免单篇文档长时间占用线程，
+ * 可限制每条歧义路径生成的候选方案数目（beam宽度），以及每篇文档的裁决工作量（遍历的词元数），
+ * 超出限制时取已生成方案中的最优者，工作量耗尽后只做正向贪心选择
  */
 class IKArbitrator {
 
-	IKArbitrator(){
-		
+	//候选方案数目达到上限的次数
+	static final LongAdder beamLimited = new LongAdder();
+	//文档裁决工作量耗尽的次数
+	static final LongAdder budgetExhausted = new LongAdder();
+	//只用于判断JFR事件是否启用，未启用时裁决不创建事件对象
+	private static final ArbitrationEvent EVENT_PROBE = new ArbitrationEvent();
+
+	//每条歧义路径的候选方案数目上限，0表示不限制
+	private final int beamWidth;
+	//每篇文档的裁决工作量上限，0表示不限制
+	private final long budget;
+	//当前文档已用的裁决工作量
+	private long work;
+	//尚未计入分词统计的裁决次数、歧义路径词元总数及最大词元数
+	private long arbitrations;
+	private long crossPathLexemes;
+	private int maxCrossPath;
+	//当前文档的最长歧义路径词元数，不区分是否做歧义处理，用于慢分词日志
+	private int longestCrossPath;
+	//最近一次裁决生成的候选方案数目，以及是否因beam宽度或工作量限制提前结束
+	private int lastOptions;
+	private boolean lastLimited;
+
+	IKArbitrator(Configuration configuration){
+		this.beamWidth = configuration.getArbitrationBeamWidth();
+		this.budget = configuration.getArbitrationBudget();
+	}
+
+	/**
+	 * 开始新文档，重置裁决工作量
+	 */
+	void reset(){
+		this.work = 0;
+	}
+
+	/**
+	 * 将累计的裁决统计计入stats，并重新计数
+	 */
+	void flushStats(SegmenterStats stats){
+		stats.addArbitrations(this.arbitrations , this.crossPathLexemes , this.maxCrossPath);
+		this.arbitrations = 0;
+		this.crossPathLexemes = 0;
+		this.maxCrossPath = 0;
+	}
+
+	/**
+	 * 返回当前文档的最长歧义路径词元数，并重新计数
+	 */
+	int pollLongestCrossPath(){
+		int longest = this.longestCrossPath;
+		this.longestCrossPath = 0;
+		return longest;
 	}
 	
 	/**
@@ -49,14 +105,14 @@ class IKArbitrator {
 		while(orgLexeme != null){
 			if(!crossPath.addCrossLexeme(orgLexeme)){
 				//找到与crossPath不相交的下一个crossPath	
+				this.longestCrossPath = Math.max(this.longestCrossPath , crossPath.size());
 				if(crossPath.size() == 1 || !useSmart){
 					//crossPath没有歧义 或者 不做歧义处理
 					//直接输出当前crossPath
 					context.addLexemePath(crossPath);
 				}else{
 					//对当前的crossPath进行歧义处理
-					QuickSortSet.Cell headCell = crossPath.getHead();
-					LexemePath judgeResult = this.judge(headCell, crossPath.getPathLength());
+					LexemePath judgeResult = this.judge(crossPath);
 					//输出歧义处理结果judgeResult
 					context.addLexemePath(judgeResult);
 				}
@@ -70,19 +126,42 @@ class IKArbitrator {
 		
 		
 		//处理最后的path
+		this.longestCrossPath = Math.max(this.longestCrossPath , crossPath.size());
 		if(crossPath.size() == 1 || !useSmart){
 			//crossPath没有歧义 或者 不做歧义处理
 			//直接输出当前crossPath
 			context.addLexemePath(crossPath);
 		}else{
 			//对当前的crossPath进行歧义处理
-			QuickSortSet.Cell headCell = crossPath.getHead();
-			LexemePath judgeResult = this.judge(headCell, crossPath.getPathLength());
+			LexemePath judgeResult = this.judge(crossPath);
 			//输出歧义处理结果judgeResult
 			context.addLexemePath(judgeResult);
 		}
 	}
 	
+	/**
+	 * 对有歧义的crossPath进行裁决，并记录统计及JFR事件
+	 */
+	private LexemePath judge(LexemePath crossPath){
+		this.arbitrations++;
+		this.crossPathLexemes += crossPath.size();
+		this.maxCrossPath = Math.max(this.maxCrossPath , crossPath.size());
+		if(!EVENT_PROBE.isEnabled()){
+			return this.judge(crossPath.getHead() , crossPath.getPathLength());
+		}
+		ArbitrationEvent event = new ArbitrationEvent();
+		event.begin();
+		LexemePath judgeResult = this.judge(crossPath.getHead() , crossPath.getPathLength());
+		if(event.shouldCommit()){
+			event.pathLength = crossPath.getPathLength();
+			event.lexemes = crossPath.size();
+			event.candidatePaths = this.lastOptions;
+			event.limited = this.lastLimited;
+			event.commit();
+		}
+		return judgeResult;
+	}
+
 	/**
 	 * 歧义识别
 	 * @param lexemeCell 歧义路径链表头
@@ -103,7 +182,21 @@ class IKArbitrator {
 		
 		//存在歧义词，处理
 		QuickSortSet.Cell c = null;
+		int options = 1;
+		this.lastLimited = false;
 		while(!lexemeStack.isEmpty()){
+			if(this.budget > 0 && this.work >= this.budget){
+				//工作量耗尽，保留正向贪心选择的结果
+				budgetExhausted.increment();
+				this.lastLimited = true;
+				break;
+			}
+			if(this.beamWidth > 0 && options >= this.beamWidth){
+				beamLimited.increment();
+				this.lastLimited = true;
+				break;
+			}
+			options++;
 			c = lexemeStack.pop();
 			//回滚词元链
 			this.backPath(c.getLexeme() , option);
@@ -112,6 +205,7 @@ class IKArbitrator {
 			pathOptions.add(option.copy());
 		}
 		
+		this.lastOptions = options;
 		//返回集合中的最优方案
 		return pathOptions.first();
 
@@ -128,6 +222,7 @@ class IKArbitrator {
 		QuickSortSet.Cell c = lexemeCell;
 		//迭代遍历Lexeme链表
 		while(c != null && c.getLexeme() != null){
+			this.work++;
 			if(!option.addNotCrossLexeme(c.getLexeme())){
 				//词元交叉，添加失败则加入lexemeStack栈
 				conflictStack.push(c);
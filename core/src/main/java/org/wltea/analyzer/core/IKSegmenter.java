@@ -27,7 +27,10 @@ import org.wltea.analyzer.cfg.Configuration;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -38,6 +41,14 @@ public final class IKSegmenter {
 	
 	//字符窜reader
 	private Reader input;
+	//待分析的字符数组，不为空时直接从数组读取，不经过reader
+	private char[] inputChars;
+	//字符数组中待分析文本的起始位置
+	private int inputBegin;
+	//字符数组中待分析文本的长度
+	private int inputLength;
+	//待分析的字符序列，不为空时直接从字符序列读取，不经过reader
+	private CharSequence inputText;
 	//分词器上下文
 	private AnalyzeContext context;
 	//分词处理器列表
@@ -45,6 +56,37 @@ public final class IKSegmenter {
 	//分词歧义裁决器
 	private IKArbitrator arbitrator;
 	private Configuration configuration;
+	//记录子分词器全部解锁的位置，为空时不记录
+	private BitSet unlockedPositions;
+	//Reader输入最多输出的词元数，0表示不限制
+	private int maxTokenCount;
+	//最多从Reader读入的字符数，0表示不限制
+	private int maxChars;
+	//已输出的词元数
+	private int tokenCount;
+	//达到上限提前结束时已从Reader读入的字符数，未提前结束时为-1
+	private int truncatedLength = -1;
+	//分词统计
+	private SegmenterStats stats;
+	//当前文档尚未计入分词统计的词元数、缓冲区读入次数和耗时
+	private long statTokens;
+	private int statRefills;
+	private long statNanos;
+	//当前文档的JFR事件，未启用时为空
+	private SegmentationEvent event;
+	//慢分词日志，未设置阈值时为空
+	private SlowLog slowLog;
+	//当前文档的文本前缀，供慢分词日志使用
+	private String slowLogSource;
+	//逐个输出精简细粒度词元时的分词状态，重置分词器后重新创建
+	private LeanState leanState;
+
+	//JFR事件中的分词模式
+	static final String MODE_MAX_WORD = "max_word";
+	static final String MODE_SMART = "smart";
+	static final String MODE_LEAN = "lean";
+	static final String MODE_DUAL = "dual";
+	static final String MODE_MAX_MATCH = "max_match";
 	
 
 	/**
@@ -57,6 +99,32 @@ public final class IKSegmenter {
         this.init();
 	}
 
+	/**
+	 * IK分词器构造函数
+	 * 直接对字符数组的指定区间分词，不经过Reader
+	 * @param text 待分析的字符数组，分词过程中不会被修改
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 * @param configuration
+	 */
+	public IKSegmenter(char[] text , int begin , int length , Configuration configuration){
+		this.configuration = configuration;
+		this.init();
+		this.setInput(text , begin , length);
+	}
+
+	/**
+	 * IK分词器构造函数
+	 * 直接对字符序列分词，不经过Reader
+	 * @param text 待分析的字符序列
+	 * @param configuration
+	 */
+	public IKSegmenter(CharSequence text , Configuration configuration){
+		this.configuration = configuration;
+		this.init();
+		this.setInput(text);
+	}
+
 	
 	/**
 	 * 初始化
@@ -67,7 +135,11 @@ public final class IKSegmenter {
 		//加载子分词器
 		this.segmenters = this.loadSegmenters();
 		//加载歧义裁决器
-		this.arbitrator = new IKArbitrator();
+		this.arbitrator = new IKArbitrator(configuration);
+		this.maxTokenCount = configuration.getMaxTokenCount();
+		this.maxChars = configuration.getMaxChars();
+		this.stats = SegmenterStats.forName(configuration.getAnalyzerName());
+		this.slowLog = SlowLog.create(configuration);
 	}
 	
 	/**
@@ -77,11 +149,11 @@ public final class IKSegmenter {
 	private List<ISegmenter> loadSegmenters(){
 		List<ISegmenter> segmenters = new ArrayList<ISegmenter>(4);
 		//处理字母的子分词器
-		segmenters.add(new LetterSegmenter()); 
+		segmenters.add(new LetterSegmenter(configuration.getMaxTokenLength() , configuration.isTruncateLongToken())); 
 		//处理中文数量词的子分词器
 		segmenters.add(new CN_QuantifierSegmenter());
 		//处理中文词的子分词器
-		segmenters.add(new CJKSegmenter());
+		segmenters.add(new CJKSegmenter(configuration.getDictOverlay()));
 		return segmenters;
 	}
 	
@@ -91,37 +163,352 @@ public final class IKSegmenter {
 	 * @throws java.io.IOException
 	 */
 	public synchronized Lexeme next()throws IOException{
+		return this.nextLexeme(true);
+	}
+
+	/**
+	 * 分词，将当前输入剩余的全部词元追加到批次中，作为一篇新文档
+	 * 词元不生成文本，需要时通过LexemeBatch按需生成
+	 * @param batch 列式分词结果
+	 * @return 本次追加的词元数目
+	 * @throws java.io.IOException
+	 */
+	public synchronized int segment(LexemeBatch batch)throws IOException{
+		batch.startDocument(this.getInputText() , configuration.isEnableLowercase());
+		int count = 0;
+		Lexeme l = null;
+		while((l = this.nextLexeme(false)) != null){
+			batch.add(l.getBeginPosition() , l.getLength() , l.getLexemeType());
+			count++;
+		}
+		batch.endDocument(this.getLastUselessCharNum());
+		return count;
+	}
+
+	/**
+	 * 分词，一次切分同时生成细粒度和智能两种模式的结果，分别作为一篇新文档追加到批次中
+	 * 两种模式共用子分词器切分出的候选词元，只有歧义处理和数量词合并分别进行，
+	 * 结果与两种模式分别分词完全一致
+	 * @param maxWordBatch 细粒度切分结果
+	 * @param smartBatch 智能切分结果
+	 * @throws java.io.IOException
+	 */
+	public synchronized void segment(LexemeBatch maxWordBatch , LexemeBatch smartBatch)throws IOException{
+		CharSequence text = this.getInputText();
+		maxWordBatch.startDocument(text , configuration.isEnableLowercase());
+		smartBatch.startDocument(text , configuration.isEnableLowercase());
+		List<Lexeme> candidates = new ArrayList<Lexeme>();
+		//两种模式的末尾非CJK字符数目分别累计
+		int maxWordUseless = 0;
+		int smartUseless = 0;
+		int size = maxWordBatch.size() + smartBatch.size();
+		long start = System.nanoTime();
+		while(this.fillBuffer() > 0){
+			this.analyzeBuffer();
+			//保存候选词元，歧义处理会将其取空
+			candidates.clear();
+			for(QuickSortSet.Cell c = context.getOrgLexemes().getHead() ; c != null ; c = c.getNext()){
+				candidates.add(c.getLexeme());
+			}
+			context.setLastUselessCharNum(maxWordUseless);
+			this.outputBuffer(false , maxWordBatch);
+			maxWordUseless = context.getLastUselessCharNum();
+			//细粒度结果已经输出，词元对象可以在智能模式下继续使用
+			QuickSortSet orgLexemes = context.getOrgLexemes();
+			for(Lexeme l : candidates){
+				orgLexemes.addLexeme(l);
+			}
+			context.setLastUselessCharNum(smartUseless);
+			this.outputBuffer(true , smartBatch);
+			smartUseless = context.getLastUselessCharNum();
+			context.markBufferOffset();
+		}
+		this.statTokens += maxWordBatch.size() + smartBatch.size() - size;
+		this.statNanos += System.nanoTime() - start;
+		this.flushStats(MODE_DUAL);
+		context.reset();
+		maxWordBatch.endDocument(maxWordUseless);
+		smartBatch.endDocument(smartUseless);
+	}
+
+	/**
+	 * 精简细粒度分词，将当前输入剩余的全部词元追加到批次中，作为一篇新文档
+	 * 输出智能切分结果，以及细粒度结果中被智能切分词元完整覆盖、满足以下限制的子词：
+	 * 1.子词长度不小于Configuration.getLeanMinLength()
+	 * 2.每个覆盖词元最多输出Configuration.getLeanMaxSubwords()个子词，优先保留较长、靠前的子词
+	 * 与智能切分词元交叉的细粒度词元不输出；Configuration.isLeanSingleChar()为false时不输出未成词的单字
+	 * 词元顺序与细粒度切分一致：按起始位置排列，起始位置相同时较长的词元在前
+	 * @param batch 列式分词结果
+	 * @return 本次追加的词元数目
+	 * @throws java.io.IOException
+	 */
+	public synchronized int segmentLean(LexemeBatch batch)throws IOException{
+		batch.startDocument(this.getInputText() , configuration.isEnableLowercase());
+		int size = batch.size();
+		LeanState lean = new LeanState(configuration.getLeanMaxSubwords());
+		long start = System.nanoTime();
+		while(this.fillBuffer() > 0){
+			this.analyzeBuffer();
+			this.leanWindow(lean , false);
+			for(Lexeme l : lean.output){
+				batch.add(l.getBeginPosition() , l.getLength() , l.getLexemeType());
+			}
+		}
+		this.statTokens += batch.size() - size;
+		this.statNanos += System.nanoTime() - start;
+		this.flushStats(MODE_LEAN);
+		context.reset();
+		batch.endDocument(lean.getLastUselessCharNum());
+		return batch.size() - size;
+	}
+
+	/**
+	 * 精简细粒度分词，获取下一个词元
+	 * 逐段分析输入，只保留当前缓冲区的结果，Reader输入无需整篇读入；结果与segmentLean(LexemeBatch)一致
+	 * @return Lexeme 词元对象
+	 * @throws java.io.IOException
+	 */
+	public synchronized Lexeme nextLean()throws IOException{
+		if(this.leanState == null){
+			this.leanState = new LeanState(configuration.getLeanMaxSubwords());
+		}
+		LeanState lean = this.leanState;
+		if(this.input != null && this.maxTokenCount > 0 && this.tokenCount >= this.maxTokenCount){
+			//词元数达到上限，不再读入和分析剩余的字符
+			if(this.truncatedLength < 0){
+				this.truncatedLength = context.getSourcePosition();
+				this.flushStats(MODE_LEAN);
+				context.reset();
+			}
+			return null;
+		}
+		while(lean.index >= lean.output.size()){
+			long start = System.nanoTime();
+			if(this.fillBuffer() <= 0){
+				if(this.input != null && this.maxChars > 0 && context.getSourcePosition() >= this.maxChars){
+					this.truncatedLength = context.getSourcePosition();
+				}
+				this.statNanos += System.nanoTime() - start;
+				this.flushStats(MODE_LEAN);
+				context.reset();
+				context.setLastUselessCharNum(lean.getLastUselessCharNum());
+				return null;
+			}
+			this.analyzeBuffer();
+			this.leanWindow(lean , true);
+			this.statNanos += System.nanoTime() - start;
+		}
+		this.tokenCount++;
+		this.statTokens++;
+		return lean.output.get(lean.index++);
+	}
+
+	/**
+	 * 对当前缓冲区做精简细粒度处理，结果存入lean.output
+	 * @param lean 跨缓冲区保留的分词状态
+	 * @param materialize 是否生成词元文本
+	 */
+	private void leanWindow(LeanState lean , boolean materialize){
+		lean.candidates.clear();
+		for(QuickSortSet.Cell c = context.getOrgLexemes().getHead() ; c != null ; c = c.getNext()){
+			lean.candidates.add(c.getLexeme());
+		}
+		lean.maxWord.clear();
+		this.outputBuffer(false , lean.maxWord);
+		QuickSortSet orgLexemes = context.getOrgLexemes();
+		for(Lexeme l : lean.candidates){
+			orgLexemes.addLexeme(l);
+		}
+		context.setLastUselessCharNum(lean.smartUseless);
+		lean.smart.clear();
+		this.outputBuffer(true , lean.smart);
+		lean.smartUseless = context.getLastUselessCharNum();
+
+		lean.output.clear();
+		lean.index = 0;
+		//细粒度结果按起始位置排列，与智能切分结果同步遍历
+		int m = 0;
+		for(Lexeme s : lean.smart){
+			lean.smartEnd = s.getEndPosition();
+			if(s.getLength() == 1 && !configuration.isLeanSingleChar()
+					&& (s.getLexemeType() == Lexeme.TYPE_CNCHAR || s.getLexemeType() == Lexeme.TYPE_OTHER_CJK)){
+				continue;
+			}
+			lean.output.add(s);
+			lean.outputEnd = lean.smartEnd;
+			while(m < lean.maxWord.size() && lean.maxWord.get(m).getBeginPosition() < s.getBeginPosition()){
+				m++;
+			}
+			int count = this.selectSubwords(lean.maxWord , m , s , lean.selected);
+			//按细粒度切分的顺序输出选中的子词
+			Arrays.sort(lean.selected , 0 , count);
+			for(int i = 0 ; i < count ; i++){
+				lean.output.add(lean.maxWord.get(lean.selected[i]));
+			}
+		}
+		if(materialize){
+			//缓冲区在下次读入时被覆盖，在此之前生成词元文本
+			char[] buff = context.getSegmentBuff();
+			for(Lexeme l : lean.output){
+				l.setLexemeText(String.valueOf(buff , l.getBegin() , l.getLength()));
+			}
+		}
+		context.markBufferOffset();
+	}
+
+	/**
+	 * 精简细粒度分词跨缓冲区保留的状态
+	 */
+	private static final class LeanState {
+		private final List<Lexeme> candidates = new ArrayList<Lexeme>();
+		private final List<Lexeme> maxWord = new ArrayList<Lexeme>();
+		private final List<Lexeme> smart = new ArrayList<Lexeme>();
+		private final int[] selected;
+		//当前缓冲区的输出词元，及下一个输出的下标
+		private final List<Lexeme> output = new ArrayList<Lexeme>();
+		private int index;
+		private int smartUseless;
+		//最后一个智能切分词元（含未输出的单字）与最后一个输出词元的结束位置
+		private int smartEnd;
+		private int outputEnd;
+
+		LeanState(int maxSubwords){
+			this.selected = new int[maxSubwords];
+		}
+
+		/**
+		 * 未输出的末尾单字计入末尾字符数，保证结束位移与智能切分一致
+		 */
+		int getLastUselessCharNum(){
+			return this.smartUseless + this.smartEnd - this.outputEnd;
+		}
+	}
+
+	/**
+	 * 从细粒度结果中选出被覆盖词元包含的子词
+	 * @param maxWord 细粒度结果
+	 * @param from 起始位置不早于覆盖词元的第一个细粒度词元下标
+	 * @param cover 覆盖词元
+	 * @param selected 选中子词的下标
+	 * @return 选中的子词数目
+	 */
+	private int selectSubwords(List<Lexeme> maxWord , int from , Lexeme cover , int[] selected){
+		int minLength = configuration.getLeanMinLength();
+		int count = 0;
+		for(int i = from ; i < maxWord.size() ; i++){
+			Lexeme l = maxWord.get(i);
+			if(l.getBeginPosition() >= cover.getEndPosition()){
+				break;
+			}
+			if(l.getEndPosition() > cover.getEndPosition() || l.getLength() < minLength || l.getLength() == cover.getLength()){
+				continue;
+			}
+			if(count < selected.length){
+				selected[count++] = i;
+				continue;
+			}
+			//已选满时替换最短且最靠后的子词
+			int shortest = 0;
+			for(int j = 1 ; j < count ; j++){
+				Lexeme c = maxWord.get(selected[j]);
+				Lexeme t = maxWord.get(selected[shortest]);
+				if(c.getLength() < t.getLength() || (c.getLength() == t.getLength() && selected[j] > selected[shortest])){
+					shortest = j;
+				}
+			}
+			if(count > 0 && l.getLength() > maxWord.get(selected[shortest]).getLength()){
+				selected[shortest] = i;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 对当前缓冲区的候选词元做歧义处理，并将结果追加到批次中
+	 */
+	private void outputBuffer(boolean useSmart , LexemeBatch batch){
+		this.arbitrator.process(context, useSmart);
+		context.outputToResult();
+		Lexeme l = null;
+		while((l = context.getNextLexeme(false , useSmart)) != null){
+			batch.add(l.getBeginPosition() , l.getLength() , l.getLexemeType());
+		}
+	}
+
+	/**
+	 * 对当前缓冲区的候选词元做歧义处理，并将结果的副本追加到列表中
+	 * 智能模式的数量词合并会修改候选词元，因此不能直接保存词元对象
+	 */
+	private void outputBuffer(boolean useSmart , List<Lexeme> lexemes){
+		this.arbitrator.process(context, useSmart);
+		context.outputToResult();
+		Lexeme l = null;
+		while((l = context.getNextLexeme(false , useSmart)) != null){
+			lexemes.add(new Lexeme(l.getOffset() , l.getBegin() , l.getLength() , l.getLexemeType()));
+		}
+	}
+
+	/**
+	 * 暂停慢分词日志，由调用方对整篇文本统一计时并记录一次，参见ParallelSegmenter、ClauseCache
+	 * @return 暂停前的慢分词日志，未设置阈值时为null，供resumeSlowLog()恢复
+	 */
+	SlowLog suspendSlowLog(){
+		SlowLog slowLog = this.slowLog;
+		this.slowLog = null;
+		return slowLog;
+	}
+
+	void resumeSlowLog(SlowLog slowLog){
+		this.slowLog = slowLog;
+	}
+
+	/**
+	 * 分词过程中记录子分词器全部解锁（没有未完成的词元）的字符位置
+	 * 在这些位置之后切分文本，不会改变分词结果，供ParallelSegmenter校验切分点
+	 * 重置分词器后不再记录
+	 * @param positions 位置相对于当前输入的起始位置
+	 */
+	void trackUnlockedPositions(BitSet positions){
+		this.unlockedPositions = positions;
+	}
+
+	/**
+	 * 分词，获取下一个词元
+	 * @param materialize 是否生成词元文本
+	 * @return Lexeme 词元对象
+	 * @throws java.io.IOException
+	 */
+	private Lexeme nextLexeme(boolean materialize)throws IOException{
+		if(this.input != null && this.maxTokenCount > 0 && this.tokenCount >= this.maxTokenCount){
+			//词元数达到上限，不再读入和分析剩余的字符
+			if(this.truncatedLength < 0){
+				this.truncatedLength = context.getSourcePosition();
+				this.flushStats(this.getMode());
+				context.reset();
+			}
+			return null;
+		}
 		Lexeme l = null;
-		while((l = context.getNextLexeme()) == null ){
+		while((l = context.getNextLexeme(materialize)) == null ){
 			/*
 			 * 从reader中读取数据，填充buffer
 			 * 如果reader是分次读入buffer的，那么buffer要  进行移位处理
 			 * 移位处理上次读入的但未处理的数据
 			 */
-			int available = context.fillBuffer(this.input);
+			long start = System.nanoTime();
+			int available = this.fillBuffer();
 			if(available <= 0){
-				//reader已经读完
+				//reader已经读完，或者读入的字符数达到上限
+				if(this.input != null && this.maxChars > 0 && context.getSourcePosition() >= this.maxChars){
+					this.truncatedLength = context.getSourcePosition();
+				}
+				this.statNanos += System.nanoTime() - start;
+				this.flushStats(this.getMode());
 				context.reset();
 				return null;
 				
 			}else{
-				//初始化指针
-				context.initCursor();
-				do{
-        			//遍历子分词器
-        			for(ISegmenter segmenter : segmenters){
-        				segmenter.analyze(context);
-        			}
-        			//字符缓冲区接近读完，需要读入新的字符
-        			if(context.needRefillBuffer()){
-        				break;
-        			}
-   				//向前移动指针
-				}while(context.moveCursor());
-				//重置子分词器，为下轮循环进行初始化
-				for(ISegmenter segmenter : segmenters){
-					segmenter.reset();
-				}
+				this.analyzeBuffer();
 			}
 			//对分词进行歧义处理
 			this.arbitrator.process(context, configuration.isUseSmart());
@@ -129,22 +516,221 @@ public final class IKSegmenter {
 			context.outputToResult();
 			//记录本次分词的缓冲区位移
 			context.markBufferOffset();			
+			this.statNanos += System.nanoTime() - start;
 		}
+		this.tokenCount++;
+		this.statTokens++;
 		return l;
 	}
 
+	/**
+	 * 遍历子分词器处理当前缓冲区，直到缓冲区处理完毕或需要读入新的字符
+	 */
+	private void analyzeBuffer(){
+		//初始化指针
+		context.initCursor();
+		do{
+			//遍历子分词器
+			for(ISegmenter segmenter : segmenters){
+				segmenter.analyze(context);
+			}
+			//成批跳过超长字母、数字串的剩余部分，跳过的字符不再逐个交给子分词器
+			if(context.isSkippingLetters() && context.skipLetters() > 0){
+				for(ISegmenter segmenter : segmenters){
+					segmenter.reset();
+				}
+				context.unlockBuffer();
+			}
+			context.markUnlocked();
+			if(this.unlockedPositions != null && !context.isBufferLocked()){
+				this.unlockedPositions.set(context.getBufferOffset() + context.getCursor());
+			}
+			//字符缓冲区接近读完，需要读入新的字符
+			if(context.needRefillBuffer()){
+				break;
+			}
+		//向前移动指针
+		}while(context.moveCursor());
+		//确定下一段的起始位置，必要时退回到最后一个解锁位置
+		context.endWindow();
+		//重置子分词器，为下轮循环进行初始化
+		for(ISegmenter segmenter : segmenters){
+			segmenter.reset();
+		}
+	}
+
 	/**
      * 重置分词器到初始状态
      * @param input
      */
 	public synchronized void reset(Reader input) {
 		this.input = input;
+		this.inputChars = null;
+		this.inputText = null;
+		this.resetContext();
+	}
+
+	/**
+	 * 重置分词器到初始状态，并将输入切换为字符数组的指定区间
+	 * 同一个实例可以反复重置，以避免重复创建分词器
+	 * @param text 待分析的字符数组，分词过程中不会被修改
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 */
+	public synchronized void reset(char[] text , int begin , int length) {
+		this.setInput(text , begin , length);
+		this.resetContext();
+	}
+
+	/**
+	 * 重置分词器到初始状态，并将输入切换为字符序列
+	 * @param text 待分析的字符序列
+	 */
+	public synchronized void reset(CharSequence text) {
+		this.setInput(text);
+		this.resetContext();
+	}
+
+	private void setInput(char[] text , int begin , int length){
+		if(text == null){
+			throw new IllegalArgumentException("text must not be null");
+		}
+		if(begin < 0 || length < 0 || begin + length > text.length){
+			throw new IllegalArgumentException("invalid range [" + begin + ", " + (begin + length) + ") of char array with length " + text.length);
+		}
+		this.input = null;
+		this.inputChars = text;
+		this.inputBegin = begin;
+		this.inputLength = length;
+		this.inputText = null;
+	}
+
+	private void setInput(CharSequence text){
+		if(text == null){
+			throw new IllegalArgumentException("text must not be null");
+		}
+		this.input = null;
+		this.inputChars = null;
+		this.inputText = text;
+	}
+
+	private void resetContext(){
+		//未读完就被重置的文档，计入已分析部分的统计
+		this.flushStats(this.getMode());
+		this.unlockedPositions = null;
+		this.leanState = null;
+		this.tokenCount = 0;
+		this.truncatedLength = -1;
+		this.arbitrator.reset();
 		context.reset();
 		for(ISegmenter segmenter : segmenters){
 			segmenter.reset();
 		}
 	}
 
+	private String getMode(){
+		if(this.leanState != null){
+			return MODE_LEAN;
+		}
+		return configuration.isUseSmart() ? MODE_SMART : MODE_MAX_WORD;
+	}
+
+	/**
+	 * 将当前文档的统计值计入分词统计，并提交JFR事件，须在重置上下文之前调用
+	 * @param mode 分词模式
+	 */
+	private void flushStats(String mode){
+		int chars = context.getSourcePosition();
+		if(chars > 0 || this.statTokens > 0){
+			int stopWords = context.pollStopWordCount();
+			this.stats.addDocument(chars , this.statTokens , stopWords , this.statRefills , this.statNanos);
+			this.arbitrator.flushStats(this.stats);
+			int longestCrossPath = this.arbitrator.pollLongestCrossPath();
+			if(this.slowLog != null){
+				this.slowLog.log(mode , chars , this.statTokens , longestCrossPath , this.statNanos , this.slowLogSource);
+			}
+			if(this.event != null && this.event.shouldCommit()){
+				this.event.analyzer = configuration.getAnalyzerName();
+				this.event.mode = mode;
+				this.event.chars = chars;
+				this.event.tokens = this.statTokens;
+				this.event.stopWords = stopWords;
+				this.event.commit();
+			}
+		}
+		this.event = null;
+		this.slowLogSource = null;
+		this.statTokens = 0;
+		this.statRefills = 0;
+		this.statNanos = 0;
+	}
+
+	/**
+	 * 返回当前输入的文本，Reader输入时返回null
+	 */
+	private CharSequence getInputText(){
+		if(this.inputChars != null){
+			return CharBuffer.wrap(this.inputChars , this.inputBegin , this.inputLength);
+		}
+		return this.inputText;
+	}
+
+	/**
+	 * 从当前输入读取数据，填充buffer
+	 * @return 待分析的（有效的）字串长度
+	 * @throws java.io.IOException
+	 */
+	private int fillBuffer() throws IOException{
+		int position = context.getSourcePosition();
+		int available;
+		if(this.inputChars != null){
+			available = context.fillBuffer(this.inputChars , this.inputBegin , this.inputLength);
+		}else if(this.inputText != null){
+			available = context.fillBuffer(this.inputText);
+		}else{
+			available = context.fillBuffer(this.input , this.maxChars);
+		}
+		if(context.getSourcePosition() > position){
+			this.statRefills++;
+			if(position == 0){
+				//文档开始，JFR事件未启用时不保留事件对象
+				SegmentationEvent event = new SegmentationEvent();
+				if(event.isEnabled()){
+					event.begin();
+					this.event = event;
+				}
+				//Reader输入的文本在下次读入时被覆盖，文档开始时保留前缀
+				if(this.slowLog != null){
+					this.slowLogSource = new String(context.getSegmentBuff() , 0 , Math.min(context.getSourcePosition() , this.slowLog.getSourceChars()));
+				}
+			}
+		}
+		return available;
+	}
+
+	/**
+	 * 歧义路径的候选方案数目达到Configuration.getArbitrationBeamWidth()的次数
+	 */
+	public static long getArbitrationBeamLimited(){
+		return IKArbitrator.beamLimited.sum();
+	}
+
+	/**
+	 * 文档的裁决工作量达到Configuration.getArbitrationBudget()，其后的歧义路径只做正向贪心选择的次数
+	 */
+	public static long getArbitrationBudgetExhausted(){
+		return IKArbitrator.budgetExhausted.sum();
+	}
+
+	/**
+	 * Reader输入的词元数或字符数达到Configuration.getMaxTokenCount()、Configuration.getMaxChars()，
+	 * 提前结束分词时，返回已从Reader读入的字符数，Reader中可能还有未读入的字符；未提前结束时返回-1
+	 * 字符数组、字符序列输入的长度由调用方决定，不受这两项限制
+	 */
+	public int getTruncatedLength() {
+		return this.truncatedLength;
+	}
+
 	/**
 	 * 返回末尾非CJK字符字符数目
 	 */
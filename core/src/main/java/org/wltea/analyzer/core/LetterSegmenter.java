@@ -71,8 +71,24 @@ class LetterSegmenter implements ISegmenter {
 	 * 阿拉伯数字结束位置
 	 */
 	private int arabicEnd;
+
+	/*
+	 * 字母、数字串的最大长度，0表示不限制
+	 */
+	private final int maxTokenLength;
+
+	/*
+	 * 超长的字母、数字串截断为最大长度输出，false时不输出
+	 */
+	private final boolean truncate;
 	
-	LetterSegmenter(){
+	/**
+	 * @param maxTokenLength 字母、数字串的最大长度，0表示不限制
+	 * @param truncate 超长的字母、数字串截断为最大长度输出，false时不输出
+	 */
+	LetterSegmenter(int maxTokenLength , boolean truncate){
+		this.maxTokenLength = maxTokenLength;
+		this.truncate = truncate;
 		Arrays.sort(Letter_Connector);
 		Arrays.sort(Num_Connector);
 		this.start = -1;
@@ -88,6 +104,11 @@ class LetterSegmenter implements ISegmenter {
 	 * @see org.wltea.analyzer.core.ISegmenter#analyze(org.wltea.analyzer.core.AnalyzeContext)
 	 */
 	public void analyze(AnalyzeContext context) {
+		if(this.maxTokenLength > 0 && this.skipLongRun(context)){
+			//跳过超长串的剩余部分，不占用缓冲区
+			context.unlockBuffer(SEGMENTER_NAME);
+			return;
+		}
 		boolean bufferLockFlag = false;
 		//处理英文字母
 		bufferLockFlag = this.processEnglishLetter(context) || bufferLockFlag;
@@ -117,6 +138,72 @@ class LetterSegmenter implements ISegmenter {
 		this.arabicEnd = -1;
 	}	
 	
+	/**
+	 * 字母、数字串即将超过最大长度时，截断输出或丢弃尚未输出的词元，并开始跳过该串的剩余部分
+	 * 此前已经结束的纯字母、纯数字词元不受影响
+	 * 串的长度按输入中的位置计算，串跨越缓冲区换段时不重新计数
+	 * @param context
+	 * @return 当前字符属于被跳过的字母、数字串时返回true
+	 */
+	private boolean skipLongRun(AnalyzeContext context){
+		boolean runChar = isRunChar(context.getCurrentCharType() , context.getCurrentChar());
+		if(context.isSkippingLetters()){
+			if(runChar){
+				return true;
+			}
+			context.setSkippingLetters(false);
+			return false;
+		}
+		if(!runChar){
+			context.setLetterRunStart(-1);
+			return false;
+		}
+		//数字串可以通过数字连接符号延续，起始位置可能早于混合串
+		int runStart = this.start;
+		if(this.arabicStart != -1 && (runStart == -1 || this.arabicStart < runStart)){
+			runStart = this.arabicStart;
+		}
+		if(runStart == -1){
+			return false;
+		}
+		//本段从串的中间开始时，沿用上一段记录的起始位置
+		int position = context.getBufferOffset() + runStart;
+		int origin = context.getLetterRunStart();
+		if(runStart > 0 || origin == -1 || origin > position){
+			origin = position;
+			context.setLetterRunStart(origin);
+		}
+		if(context.getBufferOffset() + context.getCursor() - origin < this.maxTokenLength){
+			return false;
+		}
+		if(this.truncate){
+			//尚未输出的词元均不超过最大长度
+			if(this.englishStart != -1){
+				context.addLexeme(new Lexeme(context.getBufferOffset() , this.englishStart , this.englishEnd - this.englishStart + 1 , Lexeme.TYPE_ENGLISH));
+			}
+			if(this.arabicStart != -1){
+				context.addLexeme(new Lexeme(context.getBufferOffset() , this.arabicStart , this.arabicEnd - this.arabicStart + 1 , Lexeme.TYPE_ARABIC));
+			}
+			if(this.start != -1){
+				context.addLexeme(new Lexeme(context.getBufferOffset() , this.start , this.end - this.start + 1 , Lexeme.TYPE_LETTER));
+			}
+		}
+		this.reset();
+		context.setLetterRunStart(-1);
+		context.setSkippingLetters(true);
+		return true;
+	}
+
+	/**
+	 * 判断字符是否可以延续字母、数字串
+	 * @param charType 字符类型
+	 * @param input 规格化后的字符
+	 */
+	static boolean isRunChar(int charType , char input){
+		return CharacterUtil.CHAR_ENGLISH == charType || CharacterUtil.CHAR_ARABIC == charType
+				|| (CharacterUtil.CHAR_USELESS == charType && isConnector(input));
+	}
+
 	/**
 	 * 处理数字字母混合输出
 	 * 如：windos2000 | linliangyi2005@gmail.com
@@ -142,7 +229,7 @@ class LetterSegmenter implements ISegmenter {
 				this.end = context.getCursor();
 				
 			}else if(CharacterUtil.CHAR_USELESS == context.getCurrentCharType()
-						&& this.isLetterConnector(context.getCurrentChar())){
+						&& isLetterConnector(context.getCurrentChar())){
 				//记录下可能的结束位置
 				this.end = context.getCursor();
 			}else{
@@ -238,7 +325,7 @@ class LetterSegmenter implements ISegmenter {
 				//记录当前指针位置为结束位置
 				this.arabicEnd = context.getCursor();
 			}else if(CharacterUtil.CHAR_USELESS == context.getCurrentCharType()
-					&& this.isNumConnector(context.getCurrentChar())){
+					&& isNumConnector(context.getCurrentChar())){
 				//不输出数字，但不标记结束
 			}else{
 				////遇到非Arabic字符,输出词元
@@ -273,7 +360,7 @@ class LetterSegmenter implements ISegmenter {
 	 * @param input
 	 * @return
 	 */
-	private boolean isLetterConnector(char input){
+	static boolean isLetterConnector(char input){
 		int index = Arrays.binarySearch(Letter_Connector, input);
 		return index >= 0;
 	}
@@ -283,8 +370,18 @@ class LetterSegmenter implements ISegmenter {
 	 * @param input
 	 * @return
 	 */
-	private boolean isNumConnector(char input){
+	static boolean isNumConnector(char input){
 		int index = Arrays.binarySearch(Num_Connector, input);
 		return index >= 0;
 	}
+
+	/**
+	 * 判断是否是字母或数字连接符号
+	 * 连接符号可能使字母、数字词元跨越该字符
+	 * @param input
+	 * @return
+	 */
+	static boolean isConnector(char input){
+		return isLetterConnector(input) || isNumConnector(input);
+	}
 }
@@ -213,6 +213,15 @@ public class Lexeme implements Comparable<Lexeme>{
 	 * @return String
 	 */
 	public String getLexemeTypeString(){
+		return getLexemeTypeString(this.lexemeType);
+	}
+
+	/**
+	 * 获取指定词元类型的标示字符串
+	 * @param lexemeType
+	 * @return String
+	 */
+	public static String getLexemeTypeString(int lexemeType){
 		switch(lexemeType) {
 
 		case TYPE_ENGLISH :
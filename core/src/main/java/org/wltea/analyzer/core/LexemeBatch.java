@@ -0,0 +1,283 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.util.Arrays;
+
+/**
+ * 列式存储的批量分词结果
+ * 词元的起始位置、长度、类型保存在可复用的int数组中，词元文本按需生成
+ * 一个LexemeBatch可以依次累积多篇文档的分词结果
+ */
+public final class LexemeBatch {
+
+	//默认初始容量
+	private static final int INITIAL_CAPACITY = 64;
+
+	//词元相对于所属文档起始位置的位移
+	private int[] begins;
+	//词元长度
+	private int[] lengths;
+	//词元类型
+	private int[] types;
+	//词元数目
+	private int size;
+
+	//每篇文档第一个词元在批次中的下标
+	private int[] docStarts;
+	//每篇文档的原始文本，为空表示文本不可用（如Reader输入）
+	private CharSequence[] docTexts;
+	//每篇文档分词时是否启用了小写处理
+	private boolean[] docLowercase;
+	//每篇文档末尾非CJK字符数目
+	private int[] docLastUseless;
+	//文档数目
+	private int docCount;
+
+	public LexemeBatch(){
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param capacity 初始词元容量
+	 */
+	public LexemeBatch(int capacity){
+		if(capacity < 1){
+			capacity = 1;
+		}
+		this.begins = new int[capacity];
+		this.lengths = new int[capacity];
+		this.types = new int[capacity];
+		this.docStarts = new int[4];
+		this.docTexts = new CharSequence[4];
+		this.docLowercase = new boolean[4];
+		this.docLastUseless = new int[4];
+	}
+
+	/**
+	 * 清空批次，保留已分配的数组以便复用
+	 */
+	public void clear(){
+		this.size = 0;
+		Arrays.fill(this.docTexts , 0 , this.docCount , null);
+		this.docCount = 0;
+	}
+
+	/**
+	 * 返回词元数目
+	 */
+	public int size(){
+		return this.size;
+	}
+
+	/**
+	 * 返回文档数目
+	 */
+	public int getDocumentCount(){
+		return this.docCount;
+	}
+
+	/**
+	 * 返回文档第一个词元的下标
+	 */
+	public int getDocumentStart(int doc){
+		checkDocument(doc);
+		return this.docStarts[doc];
+	}
+
+	/**
+	 * 返回文档最后一个词元之后的下标
+	 */
+	public int getDocumentEnd(int doc){
+		checkDocument(doc);
+		return doc + 1 < this.docCount ? this.docStarts[doc + 1] : this.size;
+	}
+
+	/**
+	 * 返回文档末尾非CJK字符数目，用于计算文档的最终位移
+	 */
+	public int getLastUselessCharNum(int doc){
+		checkDocument(doc);
+		return this.docLastUseless[doc];
+	}
+
+	/**
+	 * 返回词元所属的文档
+	 */
+	public int getDocument(int index){
+		checkIndex(index);
+		//docStarts非递减，取最后一个docStarts[doc] <= index的文档（跳过空文档）
+		int low = 0;
+		int high = this.docCount - 1;
+		while(low < high){
+			int mid = (low + high + 1) >>> 1;
+			if(this.docStarts[mid] <= index){
+				low = mid;
+			}else{
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * 返回词元相对于所属文档的起始位置
+	 */
+	public int getBegin(int index){
+		checkIndex(index);
+		return this.begins[index];
+	}
+
+	/**
+	 * 返回词元相对于所属文档的结束位置
+	 */
+	public int getEnd(int index){
+		checkIndex(index);
+		return this.begins[index] + this.lengths[index];
+	}
+
+	/**
+	 * 返回词元长度
+	 */
+	public int getLength(int index){
+		checkIndex(index);
+		return this.lengths[index];
+	}
+
+	/**
+	 * 返回词元类型，参考Lexeme中的类型常量
+	 */
+	public int getType(int index){
+		checkIndex(index);
+		return this.types[index];
+	}
+
+	/**
+	 * 返回起始位置数组，有效数据为[0, size())
+	 */
+	public int[] getBegins(){
+		return this.begins;
+	}
+
+	/**
+	 * 返回长度数组，有效数据为[0, size())
+	 */
+	public int[] getLengths(){
+		return this.lengths;
+	}
+
+	/**
+	 * 返回类型数组，有效数据为[0, size())
+	 */
+	public int[] getTypes(){
+		return this.types;
+	}
+
+	/**
+	 * 生成词元文本
+	 * 文本经过与分词时相同的字符规格化处理（全角转半角，大写转小写）
+	 * @param index
+	 * @return String
+	 */
+	public String getLexemeText(int index){
+		char[] buff = new char[this.getLength(index)];
+		this.copyLexemeText(index , buff , 0);
+		return new String(buff);
+	}
+
+	/**
+	 * 将词元文本复制到指定数组，避免生成String对象
+	 * @param index
+	 * @param dest 目标数组
+	 * @param destBegin 目标数组中的起始位置
+	 * @return 复制的字符数
+	 */
+	public int copyLexemeText(int index , char[] dest , int destBegin){
+		int doc = this.getDocument(index);
+		CharSequence text = this.docTexts[doc];
+		if(text == null){
+			throw new IllegalStateException("text of document " + doc + " is not available");
+		}
+		boolean lowercase = this.docLowercase[doc];
+		int begin = this.begins[index];
+		int length = this.lengths[index];
+		for(int i = 0 ; i < length ; i++){
+			dest[destBegin + i] = CharacterUtil.regularize(text.charAt(begin + i) , lowercase);
+		}
+		return length;
+	}
+
+	/**
+	 * 开始记录一篇新文档
+	 * @param text 文档文本，为空表示文本不可用
+	 * @param lowercase 分词时是否启用了小写处理
+	 */
+	void startDocument(CharSequence text , boolean lowercase){
+		if(this.docCount == this.docStarts.length){
+			int capacity = this.docCount << 1;
+			this.docStarts = Arrays.copyOf(this.docStarts , capacity);
+			this.docTexts = Arrays.copyOf(this.docTexts , capacity);
+			this.docLowercase = Arrays.copyOf(this.docLowercase , capacity);
+			this.docLastUseless = Arrays.copyOf(this.docLastUseless , capacity);
+		}
+		this.docStarts[this.docCount] = this.size;
+		this.docTexts[this.docCount] = text;
+		this.docLowercase[this.docCount] = lowercase;
+		this.docLastUseless[this.docCount] = 0;
+		this.docCount++;
+	}
+
+	/**
+	 * 结束当前文档
+	 * @param lastUselessCharNum 文档末尾非CJK字符数目
+	 */
+	void endDocument(int lastUselessCharNum){
+		this.docLastUseless[this.docCount - 1] = lastUselessCharNum;
+	}
+
+	/**
+	 * 追加词元到当前文档
+	 */
+	void add(int begin , int length , int type){
+		if(this.size == this.begins.length){
+			int capacity = this.size << 1;
+			this.begins = Arrays.copyOf(this.begins , capacity);
+			this.lengths = Arrays.copyOf(this.lengths , capacity);
+			this.types = Arrays.copyOf(this.types , capacity);
+		}
+		this.begins[this.size] = begin;
+		this.lengths[this.size] = length;
+		this.types[this.size] = type;
+		this.size++;
+	}
+
+	private void checkIndex(int index){
+		if(index < 0 || index >= this.size){
+			throw new IndexOutOfBoundsException("index " + index + " out of range [0, " + this.size + ")");
+		}
+	}
+
+	private void checkDocument(int doc){
+		if(doc < 0 || doc >= this.docCount){
+			throw new IndexOutOfBoundsException("document " + doc + " out of range [0, " + this.docCount + ")");
+		}
+	}
+}
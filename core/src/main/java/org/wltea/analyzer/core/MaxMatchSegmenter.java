@@ -0,0 +1,445 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.nio.CharBuffer;
+
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.DictOverlay;
+import org.wltea.analyzer.dic.Dictionary;
+import org.wltea.analyzer.dic.Hit;
+
+/**
+ * 最大匹配分词器
+ * 遍历主词典时直接做正向最大匹配，或正向、逆向最大匹配后择优（双向最大匹配），
+ * 不收集候选词元，不构造LexemePath，不做歧义裁决，适用于吞吐量优先、对消歧要求不高的字段
+ *
+ * 1.连续的CJK字符按主词典切分，未成词的字符单字输出
+ * 2.连续的字母、数字按LetterSegmenter的连接规则合并为一个词元，以字母、数字开头的更长的词典词优先
+ * 3.中文数词、量词只按主词典切分，不做数量词合并
+ * 4.字母、数字串超过Configuration.getMaxTokenLength()时截断或跳过
+ * 双向最大匹配时取词元数较少的结果，词元数相同时取单字较少的结果，仍相同时取逆向最大匹配的结果
+ */
+public final class MaxMatchSegmenter {
+
+	//分词器配置项
+	private final Configuration configuration;
+	//是否双向最大匹配
+	private final boolean bidirectional;
+	//索引级的扩展词典，没有配置时为null
+	private final DictOverlay overlay;
+	//分词统计
+	private final SegmenterStats stats;
+	//慢分词日志，未设置阈值时为空
+	private final SlowLog slowLog;
+	//当前文档丢弃的停止词数
+	private int stopWords;
+	//分段分词时，当前文档已分析的字符数、输出的词元数和耗时
+	private int docChars;
+	private int docTokens;
+	private long docNanos;
+	//当前文档是否已开始分段分词
+	private boolean inDocument;
+	//当前文档的JFR事件，未启用时为空
+	private SegmentationEvent event;
+	//分段分词时第一段的文本前缀，供慢分词日志使用
+	private String slowLogSource;
+
+	//规格化后的文本
+	private char[] buff = new char[0];
+	//字符类型
+	private int[] charTypes = new int[0];
+	//双向匹配时，从每个位置开始的最长词典词长度，0表示没有
+	private int[] longestFrom = new int[0];
+	//双向匹配时，在每个位置结束（不含）的最长词典词长度，0表示没有
+	private int[] longestTo = new int[0];
+	//逆向匹配结果中各词元的起始位置，按从后向前的顺序
+	private int[] backwardBegins = new int[0];
+
+	/**
+	 * @param configuration 分词器配置项，Configuration.isMaxMatchBidirectional()决定匹配方向
+	 */
+	public MaxMatchSegmenter(Configuration configuration){
+		this.configuration = configuration;
+		this.bidirectional = configuration.isMaxMatchBidirectional();
+		this.overlay = configuration.getDictOverlay();
+		this.stats = SegmenterStats.forName(configuration.getAnalyzerName());
+		this.slowLog = SlowLog.create(configuration);
+		Dictionary.initial(configuration);
+	}
+
+	/**
+	 * 分词，将字符数组指定区间的全部词元追加到批次中，作为一篇新文档
+	 * @param text 待分析的字符数组，分词过程中不会被修改
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 * @param batch 列式分词结果
+	 * @return 本次追加的词元数目
+	 */
+	public int segment(char[] text , int begin , int length , LexemeBatch batch){
+		return this.segment(text , begin , length , true , batch);
+	}
+
+	/**
+	 * 分段分词，将字符数组指定区间的全部词元追加到批次中，作为一篇新文档，词元位移相对于该区间的起始位置
+	 * 一篇文档可以分为若干段依次分词，除最后一段外，各段应在boundary()返回的位置结束，
+	 * 分词统计、慢分词日志和JFR事件在最后一段之后按整篇文档记录一次
+	 * @param text 待分析的字符数组，分词过程中不会被修改
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 * @param last 是否文档的最后一段
+	 * @param batch 列式分词结果
+	 * @return 本次追加的词元数目
+	 */
+	public int segment(char[] text , int begin , int length , boolean last , LexemeBatch batch){
+		if(text == null){
+			throw new IllegalArgumentException("text must not be null");
+		}
+		if(begin < 0 || length < 0 || begin + length > text.length){
+			throw new IllegalArgumentException("invalid range [" + begin + ", " + (begin + length) + ") of char array with length " + text.length);
+		}
+		long start = System.nanoTime();
+		if(!this.inDocument){
+			this.inDocument = true;
+			this.stopWords = 0;
+			this.docChars = 0;
+			this.docTokens = 0;
+			this.docNanos = 0;
+			//JFR事件未启用时不保留事件对象
+			SegmentationEvent event = new SegmentationEvent();
+			if(event.isEnabled()){
+				event.begin();
+				this.event = event;
+			}
+			if(this.slowLog != null && !last){
+				this.slowLogSource = new String(text , begin , Math.min(length , this.slowLog.getSourceChars()));
+			}
+		}
+		boolean lowercase = this.configuration.isEnableLowercase();
+		this.ensureCapacity(length);
+		for(int i = 0 ; i < length ; i++){
+			this.buff[i] = CharacterUtil.regularize(text[begin + i] , lowercase);
+			this.charTypes[i] = CharacterUtil.identifyCharType(this.buff[i]);
+		}
+		int size = batch.size();
+		batch.startDocument(CharBuffer.wrap(text , begin , length) , lowercase);
+		int lastUselessCharNum = 0;
+		int i = 0;
+		while(i < length){
+			int type = this.charTypes[i];
+			if(type == CharacterUtil.CHAR_USELESS){
+				lastUselessCharNum++;
+				i++;
+				continue;
+			}
+			lastUselessCharNum = 0;
+			if(type == CharacterUtil.CHAR_CHINESE || type == CharacterUtil.CHAR_OTHER_CJK){
+				int end = i + 1;
+				while(end < length && this.isCJK(end)){
+					end++;
+				}
+				if(this.bidirectional){
+					this.segmentBidirectional(i , end , batch);
+				}else{
+					this.segmentForward(i , end , batch);
+				}
+				i = end;
+			}else{
+				i = this.segmentLetter(i , length , batch);
+			}
+		}
+		batch.endDocument(lastUselessCharNum);
+		this.docChars += length;
+		this.docTokens += batch.size() - size;
+		this.docNanos += System.nanoTime() - start;
+		if(last){
+			this.endDocument(this.slowLogSource != null ? this.slowLogSource : CharBuffer.wrap(text , begin , length));
+		}
+		return batch.size() - size;
+	}
+
+	/**
+	 * 按整篇文档记录分词统计、慢分词日志和JFR事件
+	 * @param source 文档的文本前缀
+	 */
+	private void endDocument(CharSequence source){
+		//不经过缓冲区，读入次数不计
+		this.stats.addDocument(this.docChars , this.docTokens , this.stopWords , 0 , this.docNanos);
+		if(this.slowLog != null){
+			//最大匹配不做歧义裁决，最长歧义路径记为0
+			this.slowLog.log(IKSegmenter.MODE_MAX_MATCH , this.docChars , this.docTokens , 0 , this.docNanos , source);
+		}
+		if(this.event != null && this.event.shouldCommit()){
+			this.event.analyzer = this.configuration.getAnalyzerName();
+			this.event.mode = IKSegmenter.MODE_MAX_MATCH;
+			this.event.chars = this.docChars;
+			this.event.tokens = this.docTokens;
+			this.event.stopWords = this.stopWords;
+			this.event.commit();
+		}
+		this.event = null;
+		this.slowLogSource = null;
+		this.inDocument = false;
+	}
+
+	/**
+	 * 返回区间内最后一个可切分位置（相对于begin），没有时返回0
+	 * 可切分位置在空白或标点之后，这些字符不是字母、数字的连接符号，也不出现在以字母、数字开头的词典词中，
+	 * 因此在其后分段分词与整篇分词的结果一致
+	 * @param text 待分析的字符数组
+	 * @param begin 区间在数组中的起始位置
+	 * @param length 区间长度
+	 */
+	public int boundary(char[] text , int begin , int length){
+		for(int i = length ; i > 0 ; i--){
+			char c = CharacterUtil.regularize(text[begin + i - 1] , false);
+			if(CharacterUtil.identifyCharType(c) == CharacterUtil.CHAR_USELESS
+					&& !LetterSegmenter.isLetterConnector(c) && !LetterSegmenter.isNumConnector(c)){
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 正向最大匹配连续的CJK字符
+	 */
+	private void segmentForward(int begin , int end , LexemeBatch batch){
+		int i = begin;
+		while(i < end){
+			int length = this.matchLongest(i , end);
+			this.output(i , Math.max(length , 1) , length > 0 , batch);
+			i += Math.max(length , 1);
+		}
+	}
+
+	/**
+	 * 双向最大匹配连续的CJK字符
+	 */
+	private void segmentBidirectional(int begin , int end , LexemeBatch batch){
+		//一次遍历得到每个位置开始、结束的最长词典词
+		for(int i = begin ; i <= end ; i++){
+			this.longestFrom[i] = 0;
+			this.longestTo[i] = 0;
+		}
+		for(int i = begin ; i < end ; i++){
+			this.recordMatches(Dictionary.getSingleton().matchInMainDict(this.buff , i , 1) , i , end);
+			if(this.overlay != null && this.overlay.hasWords()){
+				this.recordMatches(this.overlay.matchInWords(this.buff , i , 1) , i , end);
+			}
+		}
+		//正向结果的词元数、单字数
+		int forwardCount = 0;
+		int forwardSingles = 0;
+		for(int i = begin ; i < end ; ){
+			int length = Math.max(this.longestFrom[i] , 1);
+			forwardCount++;
+			if(length == 1){
+				forwardSingles++;
+			}
+			i += length;
+		}
+		//逆向结果，词元起始位置从后向前记录
+		int backwardCount = 0;
+		int backwardSingles = 0;
+		for(int i = end ; i > begin ; ){
+			int length = Math.max(this.longestTo[i] , 1);
+			this.backwardBegins[backwardCount++] = i - length;
+			if(length == 1){
+				backwardSingles++;
+			}
+			i -= length;
+		}
+		if(forwardCount < backwardCount || (forwardCount == backwardCount && forwardSingles < backwardSingles)){
+			for(int i = begin ; i < end ; ){
+				int length = Math.max(this.longestFrom[i] , 1);
+				this.output(i , length , this.longestFrom[i] > 0 , batch);
+				i += length;
+			}
+		}else{
+			for(int k = backwardCount - 1 ; k >= 0 ; k--){
+				int b = this.backwardBegins[k];
+				int length = (k > 0 ? this.backwardBegins[k - 1] : end) - b;
+				this.output(b , length , this.longestTo[b + length] >= length , batch);
+			}
+		}
+	}
+
+	/**
+	 * 沿单字匹配的hit继续匹配，记录从i开始、到各位置结束的最长词典词
+	 */
+	private void recordMatches(Hit hit , int i , int end){
+		int j = i;
+		while(true){
+			if(hit.isMatch()){
+				int length = j - i + 1;
+				if(this.longestFrom[i] < length){
+					this.longestFrom[i] = length;
+				}
+				if(this.longestTo[j + 1] < length){
+					this.longestTo[j + 1] = length;
+				}
+			}
+			if(!hit.isPrefix() || ++j >= end){
+				break;
+			}
+			hit = Dictionary.getSingleton().matchWithHit(this.buff , j , hit);
+		}
+	}
+
+	/**
+	 * 从指定位置开始遍历主词典及扩展词典，返回[begin, end)内最长的词典词长度，没有时返回0
+	 */
+	private int matchLongest(int begin , int end){
+		int longest = this.matchLongest(Dictionary.getSingleton().matchInMainDict(this.buff , begin , 1) , begin , end);
+		if(this.overlay != null && this.overlay.hasWords()){
+			longest = Math.max(longest , this.matchLongest(this.overlay.matchInWords(this.buff , begin , 1) , begin , end));
+		}
+		return longest;
+	}
+
+	private int matchLongest(Hit hit , int begin , int end){
+		int longest = 0;
+		int j = begin;
+		while(true){
+			if(hit.isMatch()){
+				longest = j - begin + 1;
+			}
+			if(!hit.isPrefix() || ++j >= end){
+				return longest;
+			}
+			hit = Dictionary.getSingleton().matchWithHit(this.buff , j , hit);
+		}
+	}
+
+	/**
+	 * 合并连续的字母、数字，与更长的词典词比较后输出
+	 * @return 下一个待处理的位置
+	 */
+	private int segmentLetter(int begin , int length , LexemeBatch batch){
+		boolean english = false;
+		boolean arabic = false;
+		boolean connected = false;
+		int end = begin;
+		int i = begin;
+		while(i < length){
+			int type = this.charTypes[i];
+			if(type == CharacterUtil.CHAR_ENGLISH){
+				english = true;
+				end = ++i;
+			}else if(type == CharacterUtil.CHAR_ARABIC){
+				arabic = true;
+				end = ++i;
+			}else if(i + 1 < length && this.isLetterOrDigit(i + 1)
+					&& (LetterSegmenter.isLetterConnector(this.buff[i])
+						|| (LetterSegmenter.isNumConnector(this.buff[i]) && this.charTypes[i - 1] == CharacterUtil.CHAR_ARABIC
+							&& this.charTypes[i + 1] == CharacterUtil.CHAR_ARABIC))){
+				//连接符号只在字母、数字之间有效
+				connected = true;
+				i++;
+			}else{
+				break;
+			}
+		}
+		int wordLength = this.matchLongest(begin , length);
+		if(wordLength > end - begin){
+			this.output(begin , wordLength , true , batch);
+			return begin + wordLength;
+		}
+		int lexemeType;
+		if(english && !arabic && !connected){
+			lexemeType = Lexeme.TYPE_ENGLISH;
+		}else if(arabic && !english && this.isNumeric(begin , end)){
+			lexemeType = Lexeme.TYPE_ARABIC;
+		}else{
+			lexemeType = Lexeme.TYPE_LETTER;
+		}
+		int maxTokenLength = this.configuration.getMaxTokenLength();
+		if(maxTokenLength > 0 && end - begin > maxTokenLength){
+			//超长串截断或跳过
+			if(this.configuration.isTruncateLongToken()){
+				this.add(begin , maxTokenLength , lexemeType , batch);
+			}
+			return end;
+		}
+		this.add(begin , end - begin , lexemeType , batch);
+		return end;
+	}
+
+	/**
+	 * 输出CJK词元，未成词的单字按字符类型输出
+	 */
+	private void output(int begin , int length , boolean word , LexemeBatch batch){
+		int lexemeType;
+		if(word){
+			lexemeType = Lexeme.TYPE_CNWORD;
+		}else if(this.charTypes[begin] == CharacterUtil.CHAR_CHINESE){
+			lexemeType = Lexeme.TYPE_CNCHAR;
+		}else if(this.charTypes[begin] == CharacterUtil.CHAR_OTHER_CJK){
+			lexemeType = Lexeme.TYPE_OTHER_CJK;
+		}else{
+			return;
+		}
+		this.add(begin , length , lexemeType , batch);
+	}
+
+	private void add(int begin , int length , int lexemeType , LexemeBatch batch){
+		if(!Dictionary.getSingleton().isStopWord(this.buff , begin , length)
+				&& (this.overlay == null || !this.overlay.isStopWord(this.buff , begin , length))){
+			batch.add(begin , length , lexemeType);
+		}else{
+			this.stopWords++;
+		}
+	}
+
+	private boolean isCJK(int index){
+		return this.charTypes[index] == CharacterUtil.CHAR_CHINESE || this.charTypes[index] == CharacterUtil.CHAR_OTHER_CJK;
+	}
+
+	private boolean isLetterOrDigit(int index){
+		return this.charTypes[index] == CharacterUtil.CHAR_ENGLISH || this.charTypes[index] == CharacterUtil.CHAR_ARABIC;
+	}
+
+	/**
+	 * 区间内只有数字和数字连接符号
+	 */
+	private boolean isNumeric(int begin , int end){
+		for(int i = begin ; i < end ; i++){
+			if(this.charTypes[i] != CharacterUtil.CHAR_ARABIC && !LetterSegmenter.isNumConnector(this.buff[i])){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void ensureCapacity(int length){
+		if(this.buff.length < length){
+			int capacity = Math.max(length , this.buff.length << 1);
+			this.buff = new char[capacity];
+			this.charTypes = new int[capacity];
+			if(this.bidirectional){
+				this.longestFrom = new int[capacity + 1];
+				this.longestTo = new int[capacity + 1];
+				this.backwardBegins = new int[capacity];
+			}
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.Dictionary;
+
+/**
+ * 单篇长文档并行分词器
+ * 在标点、空白等非CJK字符处将文档切分为若干段，各段并行分词后按位移拼接
+ * 拼接前校验分段结果（参见ChunkResult），校验不通过时退回串行分词，因此结果与IKSegmenter串行分词完全一致
+ * IKSegmenter取自实例内的池并在分段分词后归还，不在线程池的线程上留下线程变量
+ */
+public final class ParallelSegmenter {
+
+	//默认的最小分段长度
+	public static final int DEFAULT_MIN_CHUNK = 16384;
+
+	//分词器配置项
+	private final Configuration configuration;
+	//执行分段任务的线程池
+	private final Executor executor;
+	//最大分段数
+	private final int parallelism;
+	//最小分段长度
+	private final int minChunk;
+	//慢分词日志，未设置阈值时为空；各段不单独记录，整篇文档记录一次
+	private final SlowLog slowLog;
+	//可复用的分段分词器，数量不超过最大分段数
+	private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<Worker>();
+
+	/**
+	 * 使用配置的线程池（参见Configuration.getParallelExecutor()）并行分词，调用线程同时处理第一段
+	 * 未配置时使用ForkJoinPool.commonPool()，只适用于独立使用分词器
+	 * @param configuration
+	 */
+	public ParallelSegmenter(Configuration configuration){
+		this(configuration ,
+				configuration.getParallelExecutor() != null ? configuration.getParallelExecutor() : ForkJoinPool.commonPool() ,
+				configuration.getParallelExecutor() != null ? configuration.getParallelism() : ForkJoinPool.getCommonPoolParallelism() + 1 ,
+				DEFAULT_MIN_CHUNK);
+	}
+
+	/**
+	 * @param configuration
+	 * @param executor 执行分段任务的线程池，任务未被及时执行时由调用线程执行
+	 * @param parallelism 最大分段数
+	 * @param minChunk 最小分段长度，短于2倍该长度的文档直接串行分词
+	 */
+	public ParallelSegmenter(Configuration configuration , Executor executor , int parallelism , int minChunk){
+		if(executor == null){
+			throw new IllegalArgumentException("executor must not be null");
+		}
+		if(parallelism < 1){
+			throw new IllegalArgumentException("parallelism must be positive");
+		}
+		if(minChunk < AnalyzeContext.BUFF_SIZE){
+			throw new IllegalArgumentException("minChunk must not be less than " + AnalyzeContext.BUFF_SIZE);
+		}
+		this.configuration = configuration;
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.minChunk = minChunk;
+		this.slowLog = SlowLog.create(configuration);
+		Dictionary.initial(configuration);
+	}
+
+	/**
+	 * 分词，将字符数组指定区间的全部词元追加到批次中，作为一篇新文档
+	 * @param text 待分析的字符数组，分词过程中不会被修改
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 * @param batch 列式分词结果
+	 * @return 本次追加的词元数目
+	 * @throws java.io.IOException
+	 */
+	public int segment(char[] text , int begin , int length , LexemeBatch batch) throws IOException{
+		if(text == null){
+			throw new IllegalArgumentException("text must not be null");
+		}
+		if(begin < 0 || length < 0 || begin + length > text.length){
+			throw new IllegalArgumentException("invalid range [" + begin + ", " + (begin + length) + ") of char array with length " + text.length);
+		}
+		long start = System.nanoTime();
+		int count = this.segmentDocument(text , begin , length , batch);
+		if(this.slowLog != null){
+			String mode = this.configuration.isUseSmart() ? IKSegmenter.MODE_SMART : IKSegmenter.MODE_MAX_WORD;
+			this.slowLog.log(mode , length , count , 0 , System.nanoTime() - start , CharBuffer.wrap(text , begin , length));
+		}
+		return count;
+	}
+
+	private int segmentDocument(char[] text , int begin , int length , LexemeBatch batch) throws IOException{
+		int[] starts = this.split(text , begin , length);
+		if(starts.length > 1){
+			ChunkResult[] chunks = this.segmentChunks(text , begin , length , starts);
+			if(ChunkResult.isConsistent(chunks , starts , chunks.length , length)){
+				return ChunkResult.stitch(chunks , starts , chunks.length , CharBuffer.wrap(text , begin , length) ,
+						this.configuration.isEnableLowercase() , batch);
+			}
+		}
+		Worker worker = this.acquire();
+		try{
+			worker.segmenter.reset(text , begin , length);
+			return worker.segmenter.segment(batch);
+		}finally{
+			this.release(worker);
+		}
+	}
+
+	/**
+	 * 在目标位置之后寻找切分点
+	 * @return 各段的起始位置，第一段起始于0
+	 */
+	private int[] split(char[] text , int begin , int length){
+		int count = Math.min(this.parallelism , length / this.minChunk);
+		if(count < 2){
+			return new int[]{0};
+		}
+		int[] starts = new int[count];
+		int n = 1;
+		int chunkLength = length / count;
+		for(int j = 1 ; j < count ; j++){
+			int target = chunkLength * j;
+			int limit = Math.min(target + chunkLength / 2 , length - 1);
+			for(int i = Math.max(target , starts[n - 1] + this.minChunk / 2) ; i < limit ; i++){
+				if(this.isSeparator(text[begin + i])){
+					starts[n++] = i + 1;
+					break;
+				}
+			}
+		}
+		return n == count ? starts : Arrays.copyOf(starts , n);
+	}
+
+	private boolean isSeparator(char input){
+		return ChunkResult.isSeparator(CharacterUtil.regularize(input , this.configuration.isEnableLowercase()));
+	}
+
+	/**
+	 * 各段并行分词，调用线程处理第一段，并接手尚未开始执行的分段
+	 */
+	private ChunkResult[] segmentChunks(final char[] text , final int begin , int length , int[] starts) throws IOException{
+		ChunkResult[] chunks = new ChunkResult[starts.length];
+		List<FutureTask<ChunkResult>> tasks = new ArrayList<FutureTask<ChunkResult>>(starts.length);
+		//第一段由调用线程直接处理
+		tasks.add(null);
+		for(int j = 1 ; j < starts.length ; j++){
+			final int start = starts[j];
+			final int end = j + 1 < starts.length ? starts[j + 1] : length;
+			FutureTask<ChunkResult> task = new FutureTask<ChunkResult>(() -> this.segmentChunk(text , begin + start , end - start));
+			tasks.add(task);
+			try{
+				this.executor.execute(task);
+			}catch(RejectedExecutionException e){
+				//由调用线程执行
+			}
+		}
+		chunks[0] = this.segmentChunk(text , begin , starts[1]);
+		for(int j = 1 ; j < starts.length ; j++){
+			//任务已开始执行时run()直接返回
+			FutureTask<ChunkResult> task = tasks.get(j);
+			task.run();
+			try{
+				chunks[j] = task.get();
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted while waiting for chunk " + j);
+			}catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				if(cause instanceof IOException){
+					throw (IOException)cause;
+				}else if(cause instanceof RuntimeException){
+					throw (RuntimeException)cause;
+				}else if(cause instanceof Error){
+					throw (Error)cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+		return chunks;
+	}
+
+	private ChunkResult segmentChunk(char[] text , int begin , int length) throws IOException{
+		Worker worker = this.acquire();
+		try{
+			return ChunkResult.segment(worker.segmenter , text , begin , length , worker.scratch);
+		}finally{
+			this.release(worker);
+		}
+	}
+
+	private Worker acquire(){
+		Worker worker = this.workers.poll();
+		return worker != null ? worker : new Worker(this.configuration);
+	}
+
+	private void release(Worker worker){
+		//归还前清空对文档的引用
+		worker.segmenter.reset("");
+		worker.scratch.clear();
+		this.workers.offer(worker);
+	}
+
+	/**
+	 * 分段分词器及其分词结果缓冲
+	 */
+	private static final class Worker {
+		private final IKSegmenter segmenter;
+		private final LexemeBatch scratch = new LexemeBatch();
+
+		Worker(Configuration configuration){
+			this.segmenter = new IKSegmenter("" , configuration);
+			this.segmenter.suspendSlowLog();
+		}
+	}
+}
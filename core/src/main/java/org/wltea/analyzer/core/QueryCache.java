@@ -0,0 +1,342 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.Dictionary;
+
+/**
+ * 短文本分词结果缓存，节点内所有分词器共享
+ * 以规格化后的文本、分词模式为键，缓存完整的词元序列，适用于重复率高的查询串
+ * 每个条目记录生成时的词典版本号，词典变更后旧条目自动失效
+ * 在IKAnalyzer.cfg.xml中配置：
+ * query_cache_size 缓存条目数上限，0表示不启用（默认）
+ * query_cache_max_length 可缓存的文本长度上限，默认32
+ */
+public final class QueryCache {
+
+	//缓存条目数上限
+	public static final String QUERY_CACHE_SIZE = "query_cache_size";
+	//可缓存的文本长度上限
+	public static final String QUERY_CACHE_MAX_LENGTH = "query_cache_max_length";
+	//默认可缓存的文本长度上限
+	public static final int DEFAULT_MAX_LENGTH = 32;
+
+	//分段数，降低锁竞争
+	private static final int SEGMENTS = 16;
+
+	//节点共享实例
+	private static volatile QueryCache shared;
+	//未启用时的占位实例
+	private static final QueryCache DISABLED = new QueryCache(0 , 0);
+
+	private final Segment[] segments;
+	private final int maxEntries;
+	private final int maxLength;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxEntries 缓存条目数上限，0表示不启用
+	 * @param maxLength 可缓存的文本长度上限
+	 */
+	public QueryCache(int maxEntries , int maxLength){
+		if(maxEntries < 0){
+			throw new IllegalArgumentException("maxEntries must not be negative");
+		}
+		if(maxLength < 0){
+			throw new IllegalArgumentException("maxLength must not be negative");
+		}
+		this.maxEntries = maxEntries;
+		this.maxLength = maxEntries > 0 ? maxLength : 0;
+		int segmentCount = maxEntries >= SEGMENTS * 4 ? SEGMENTS : 1;
+		this.segments = new Segment[segmentCount];
+		for(int i = 0 ; i < segmentCount ; i++){
+			this.segments[i] = new Segment((maxEntries + segmentCount - 1) / segmentCount);
+		}
+	}
+
+	/**
+	 * 返回节点共享的缓存实例，首次调用时读取IKAnalyzer.cfg.xml中的配置
+	 * 词典须已初始化
+	 */
+	public static QueryCache getShared(){
+		QueryCache cache = shared;
+		if(cache == null){
+			synchronized(QueryCache.class){
+				cache = shared;
+				if(cache == null){
+					Dictionary dictionary = Dictionary.getSingleton();
+					int maxEntries = dictionary.getIntProperty(QUERY_CACHE_SIZE , 0);
+					int maxLength = dictionary.getIntProperty(QUERY_CACHE_MAX_LENGTH , DEFAULT_MAX_LENGTH);
+					cache = maxEntries > 0 ? new QueryCache(maxEntries , maxLength) : DISABLED;
+					shared = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * 返回节点共享的缓存实例，尚未创建时返回null，不读取配置
+	 */
+	static QueryCache peekShared(){
+		return shared;
+	}
+
+	/**
+	 * 替换节点共享的缓存实例，之后创建的分词器取用该实例；null时下次调用getShared()重新读取配置，供测试使用
+	 */
+	static void setShared(QueryCache cache){
+		shared = cache;
+	}
+
+	/**
+	 * 是否启用
+	 */
+	public boolean isEnabled(){
+		return this.maxEntries > 0;
+	}
+
+	/**
+	 * 可缓存的文本长度上限
+	 */
+	public int getMaxLength(){
+		return this.maxLength;
+	}
+
+	/**
+	 * 构造缓存键，文本经过与分词时相同的字符规格化处理
+	 * @param text 待分析的字符数组
+	 * @param begin 待分析文本在数组中的起始位置
+	 * @param length 待分析文本的长度
+	 * @param configuration 分词器配置项
+	 */
+	public Key key(char[] text , int begin , int length , Configuration configuration){
+		boolean lowercase = configuration.isEnableLowercase();
+		char[] normalized = new char[length];
+		for(int i = 0 ; i < length ; i++){
+			normalized[i] = CharacterUtil.regularize(text[begin + i] , lowercase);
+		}
+		//不同的索引级扩展词典分词结果不同，以其编号区分
+		int flags = (configuration.isUseSmart() ? 1 : 0) | (lowercase ? 2 : 0) | (configuration.getDictOverlayId() << 2);
+		return new Key(new String(normalized) , flags);
+	}
+
+	/**
+	 * 查找缓存的分词结果
+	 * @param key 缓存键
+	 * @param version 当前词典版本号
+	 * @return 未命中或条目已失效时返回null
+	 */
+	public Entry get(Key key , long version){
+		Segment segment = this.segmentFor(key);
+		Entry entry;
+		synchronized(segment){
+			entry = segment.get(key);
+			if(entry != null && entry.version != version){
+				segment.remove(key);
+				entry = null;
+			}
+		}
+		if(entry == null){
+			this.misses.increment();
+		}else{
+			this.hits.increment();
+		}
+		return entry;
+	}
+
+	/**
+	 * 缓存一篇文档的分词结果
+	 * @param key 缓存键
+	 * @param version 分词开始前读取的词典版本号
+	 * @param batch 列式分词结果
+	 * @param doc 文档在批次中的序号
+	 * @return 新缓存的条目
+	 */
+	public Entry put(Key key , long version , LexemeBatch batch , int doc){
+		Entry entry = new Entry(key.text , version , batch , doc);
+		Segment segment = this.segmentFor(key);
+		synchronized(segment){
+			segment.put(key , entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clear(){
+		for(Segment segment : this.segments){
+			synchronized(segment){
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * 当前缓存条目数
+	 */
+	public int size(){
+		int size = 0;
+		for(Segment segment : this.segments){
+			synchronized(segment){
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public long getHits(){
+		return this.hits.sum();
+	}
+
+	public long getMisses(){
+		return this.misses.sum();
+	}
+
+	public long getEvictions(){
+		return this.evictions.sum();
+	}
+
+	/**
+	 * 命中率，没有查找记录时返回0
+	 */
+	public double getHitRate(){
+		long hits = this.hits.sum();
+		long total = hits + this.misses.sum();
+		return total > 0 ? (double)hits / total : 0;
+	}
+
+	public String toString(){
+		return String.format("size: %d/%d, hits: %d, misses: %d, evictions: %d, hit rate: %.2f%%",
+				this.size() , this.maxEntries , this.getHits() , this.getMisses() , this.getEvictions() , this.getHitRate() * 100);
+	}
+
+	private Segment segmentFor(Key key){
+		int h = key.hashCode();
+		return this.segments[((h ^ (h >>> 16)) & 0x7fffffff) % this.segments.length];
+	}
+
+	/**
+	 * 按访问顺序淘汰的分段
+	 */
+	private final class Segment extends LinkedHashMap<Key , Entry> {
+		private static final long serialVersionUID = 1L;
+		private final int capacity;
+
+		Segment(int capacity){
+			super(16 , 0.75f , true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key , Entry> eldest){
+			if(this.size() > this.capacity){
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * 缓存键
+	 */
+	public static final class Key {
+		private final String text;
+		private final int flags;
+		private final int hash;
+
+		Key(String text , int flags){
+			this.text = text;
+			this.flags = flags;
+			this.hash = text.hashCode() * 31 + flags;
+		}
+
+		@Override
+		public int hashCode(){
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object o){
+			if(this == o){
+				return true;
+			}
+			if(!(o instanceof Key)){
+				return false;
+			}
+			Key other = (Key)o;
+			return this.hash == other.hash && this.flags == other.flags && this.text.equals(other.text);
+		}
+	}
+
+	/**
+	 * 缓存的词元序列，不可变
+	 */
+	public static final class Entry {
+		//规格化后的文本
+		private final String text;
+		//生成条目时的词典版本号
+		private final long version;
+		private final int[] begins;
+		private final int[] lengths;
+		private final int[] types;
+		//末尾非CJK字符数目
+		private final int lastUselessCharNum;
+
+		Entry(String text , long version , LexemeBatch batch , int doc){
+			int start = batch.getDocumentStart(doc);
+			int end = batch.getDocumentEnd(doc);
+			this.text = text;
+			this.version = version;
+			this.begins = Arrays.copyOfRange(batch.getBegins() , start , end);
+			this.lengths = Arrays.copyOfRange(batch.getLengths() , start , end);
+			this.types = Arrays.copyOfRange(batch.getTypes() , start , end);
+			this.lastUselessCharNum = batch.getLastUselessCharNum(doc);
+		}
+
+		/**
+		 * 将缓存的词元序列追加到批次中，作为一篇新文档
+		 * 文档文本为规格化后的文本，词元文本与分词时一致
+		 */
+		public void copyTo(LexemeBatch batch){
+			batch.startDocument(this.text , false);
+			for(int i = 0 ; i < this.begins.length ; i++){
+				batch.add(this.begins[i] , this.lengths[i] , this.types[i]);
+			}
+			batch.endDocument(this.lastUselessCharNum);
+		}
+
+		public int size(){
+			return this.begins.length;
+		}
+	}
+}
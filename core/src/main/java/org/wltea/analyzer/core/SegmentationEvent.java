@@ -0,0 +1,57 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：一篇文档的分词，持续时间为文档从开始读入到分词结束
+ * 默认不启用，未启用时每篇文档只多一次isEnabled()判断
+ */
+@Name("org.wltea.analyzer.Segmentation")
+@Label("IK Segmentation")
+@Category("IK Analyzer")
+@Description("Segmentation of one document")
+@Enabled(false)
+@StackTrace(false)
+final class SegmentationEvent extends jdk.jfr.Event {
+
+	@Label("Analyzer")
+	String analyzer;
+
+	@Label("Mode")
+	@Description("max_word, smart, lean, dual or max_match")
+	String mode;
+
+	@Label("Chars")
+	long chars;
+
+	@Label("Tokens")
+	long tokens;
+
+	@Label("Stopwords Dropped")
+	long stopWords;
+}
@@ -0,0 +1,227 @@
+/**
+ * IK 中文分词  版本 5.0
+ * IK Analyzer release 5.0
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.wltea.analyzer.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分词统计，按分词器名称（Configuration.getAnalyzerName()）分别累计，节点内汇总
+ * 分词器先在本地变量中累计一篇文档的统计值，文档结束或分词器重置时一次性计入，不逐个词元更新共享计数器
+ * 只统计实际分词的工作量，QueryCache、ClauseCache命中以及取用双模式交接结果的文档不计入，
+ * 这部分另见各缓存自身的命中统计
+ */
+public final class SegmenterStats {
+
+	//各分词器的统计，以名称为键
+	private static final ConcurrentMap<String , SegmenterStats> REGISTRY = new ConcurrentHashMap<String , SegmenterStats>();
+
+	//分析的文档数，并行分词的每个分段各计一次
+	private final LongAdder documents = new LongAdder();
+	//读入的字符数
+	private final LongAdder chars = new LongAdder();
+	//输出的词元数
+	private final LongAdder tokens = new LongAdder();
+	//丢弃的停止词数
+	private final LongAdder stopWords = new LongAdder();
+	//缓冲区读入次数
+	private final LongAdder refills = new LongAdder();
+	//歧义裁决的次数（有歧义的路径数）
+	private final LongAdder arbitrations = new LongAdder();
+	//裁决的歧义路径包含的词元总数
+	private final LongAdder crossPathLexemes = new LongAdder();
+	//裁决的歧义路径包含的最大词元数
+	private final LongAccumulator maxCrossPath = new LongAccumulator(Math::max , 0);
+	//分词耗时，纳秒
+	private final LongAdder nanos = new LongAdder();
+
+	private SegmenterStats(){
+	}
+
+	/**
+	 * 返回指定名称的统计，不存在时创建
+	 */
+	static SegmenterStats forName(String name){
+		SegmenterStats stats = REGISTRY.get(name);
+		if(stats == null){
+			stats = REGISTRY.computeIfAbsent(name , k -> new SegmenterStats());
+		}
+		return stats;
+	}
+
+	/**
+	 * 计入一篇文档（或一篇文档的已分析部分）的统计值
+	 */
+	void addDocument(long chars , long tokens , long stopWords , long refills , long nanos){
+		this.documents.increment();
+		this.chars.add(chars);
+		this.tokens.add(tokens);
+		this.stopWords.add(stopWords);
+		this.refills.add(refills);
+		this.nanos.add(nanos);
+	}
+
+	/**
+	 * 计入歧义裁决的统计值
+	 * @param arbitrations 裁决的歧义路径数
+	 * @param crossPathLexemes 这些歧义路径包含的词元总数
+	 * @param maxCrossPath 其中最长的歧义路径包含的词元数
+	 */
+	void addArbitrations(long arbitrations , long crossPathLexemes , int maxCrossPath){
+		if(arbitrations > 0){
+			this.arbitrations.add(arbitrations);
+			this.crossPathLexemes.add(crossPathLexemes);
+			this.maxCrossPath.accumulate(maxCrossPath);
+		}
+	}
+
+	public long getDocuments(){
+		return this.documents.sum();
+	}
+
+	public long getChars(){
+		return this.chars.sum();
+	}
+
+	public long getTokens(){
+		return this.tokens.sum();
+	}
+
+	public long getStopWords(){
+		return this.stopWords.sum();
+	}
+
+	public long getRefills(){
+		return this.refills.sum();
+	}
+
+	public long getArbitrations(){
+		return this.arbitrations.sum();
+	}
+
+	public long getCrossPathLexemes(){
+		return this.crossPathLexemes.sum();
+	}
+
+	public long getMaxCrossPath(){
+		return this.maxCrossPath.get();
+	}
+
+	public long getNanos(){
+		return this.nanos.sum();
+	}
+
+	/**
+	 * 以名称排序的各分词器统计
+	 */
+	public static Map<String , SegmenterStats> getAll(){
+		return new TreeMap<String , SegmenterStats>(REGISTRY);
+	}
+
+	/**
+	 * 节点内所有分词器的汇总统计
+	 */
+	public static SegmenterStats getTotal(){
+		SegmenterStats total = new SegmenterStats();
+		for(SegmenterStats stats : REGISTRY.values()){
+			total.documents.add(stats.getDocuments());
+			total.chars.add(stats.getChars());
+			total.tokens.add(stats.getTokens());
+			total.stopWords.add(stats.getStopWords());
+			total.refills.add(stats.getRefills());
+			total.arbitrations.add(stats.getArbitrations());
+			total.crossPathLexemes.add(stats.getCrossPathLexemes());
+			total.maxCrossPath.accumulate(stats.getMaxCrossPath());
+			total.nanos.add(stats.getNanos());
+		}
+		return total;
+	}
+
+	/**
+	 * 转换为键值对，供REST接口输出
+	 */
+	public Map<String , Object> toMap(){
+		Map<String , Object> map = new LinkedHashMap<String , Object>();
+		map.put("documents" , this.getDocuments());
+		map.put("chars" , this.getChars());
+		map.put("tokens" , this.getTokens());
+		map.put("stopwords_dropped" , this.getStopWords());
+		map.put("buffer_refills" , this.getRefills());
+		map.put("arbitrations" , this.getArbitrations());
+		map.put("cross_path_lexemes" , this.getCrossPathLexemes());
+		map.put("max_cross_path" , this.getMaxCrossPath());
+		map.put("time_in_nanos" , this.getNanos());
+		return map;
+	}
+
+	/**
+	 * 节点的全部分词统计：汇总、各分词器统计，以及歧义裁决限制、缓存和双模式交接的计数
+	 */
+	public static Map<String , Object> nodeStats(){
+		Map<String , Object> map = new LinkedHashMap<String , Object>();
+		map.put("total" , getTotal().toMap());
+		Map<String , Object> analyzers = new LinkedHashMap<String , Object>();
+		for(Map.Entry<String , SegmenterStats> e : getAll().entrySet()){
+			analyzers.put(e.getKey() , e.getValue().toMap());
+		}
+		map.put("analyzers" , analyzers);
+
+		Map<String , Object> guards = new LinkedHashMap<String , Object>();
+		guards.put("beam_limited" , IKSegmenter.getArbitrationBeamLimited());
+		guards.put("budget_exhausted" , IKSegmenter.getArbitrationBudgetExhausted());
+		map.put("arbitration_guards" , guards);
+
+		Map<String , Object> queryCache = new LinkedHashMap<String , Object>();
+		QueryCache qc = QueryCache.peekShared();
+		queryCache.put("enabled" , qc != null && qc.isEnabled());
+		if(qc != null && qc.isEnabled()){
+			queryCache.put("size" , qc.size());
+			queryCache.put("hits" , qc.getHits());
+			queryCache.put("misses" , qc.getMisses());
+			queryCache.put("evictions" , qc.getEvictions());
+		}
+		map.put("query_cache" , queryCache);
+
+		Map<String , Object> clauseCache = new LinkedHashMap<String , Object>();
+		ClauseCache cc = ClauseCache.peekShared();
+		clauseCache.put("enabled" , cc != null && cc.isEnabled());
+		if(cc != null && cc.isEnabled()){
+			clauseCache.put("size" , cc.size());
+			clauseCache.put("memory_used_in_bytes" , cc.getMemoryUsed());
+			clauseCache.put("hits" , cc.getHits());
+			clauseCache.put("misses" , cc.getMisses());
+			clauseCache.put("evictions" , cc.getEvictions());
+			clauseCache.put("fallbacks" , cc.getFallbacks());
+		}
+		map.put("clause_cache" , clauseCache);
+
+		Map<String , Object> dualMode = new LinkedHashMap<String , Object>();
+		dualMode.put("hits" , DualModeSegmenter.getHits());
+		dualMode.put("misses" , DualModeSegmenter.getMisses());
+		map.put("dual_mode" , dualMode);
+		return map;
+	}
+}
@@ -0,0 +1,95 @@
+package org.wltea.analyzer.core;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.help.ESPluginLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢分词日志，参照Elasticsearch的索引慢日志
+ * 单个字段值的分词耗时超过某一级别的阈值时，以该级别记录分析器名称、分词模式、字符数、词元数、最长歧义路径及文本前缀
+ * 同时超过多个阈值时只按最高的级别记录；日志级别由logger index.ik.slowlog控制
+ */
+final class SlowLog {
+
+	private static final Logger logger = ESPluginLoggerFactory.getLogger("index.ik.slowlog");
+
+	private final String analyzerName;
+	//各级别的耗时阈值（纳秒），-1表示不记录该级别
+	private final long warnNanos;
+	private final long infoNanos;
+	private final long debugNanos;
+	private final long traceNanos;
+	//记录的文本前缀长度
+	private final int sourceChars;
+
+	/**
+	 * 按配置创建慢分词日志，未设置任何级别的阈值时返回null，分词器不保留文本前缀
+	 */
+	static SlowLog create(Configuration configuration){
+		if(configuration.getSlowLogWarnNanos() < 0 && configuration.getSlowLogInfoNanos() < 0
+				&& configuration.getSlowLogDebugNanos() < 0 && configuration.getSlowLogTraceNanos() < 0){
+			return null;
+		}
+		return new SlowLog(configuration);
+	}
+
+	private SlowLog(Configuration configuration){
+		this.analyzerName = configuration.getAnalyzerName();
+		this.warnNanos = configuration.getSlowLogWarnNanos();
+		this.infoNanos = configuration.getSlowLogInfoNanos();
+		this.debugNanos = configuration.getSlowLogDebugNanos();
+		this.traceNanos = configuration.getSlowLogTraceNanos();
+		this.sourceChars = configuration.getSlowLogSourceChars();
+	}
+
+	/**
+	 * 记录的文本前缀长度
+	 */
+	int getSourceChars(){
+		return this.sourceChars;
+	}
+
+	/**
+	 * 耗时达到的最高日志级别，未达到任何阈值时返回null
+	 */
+	Level levelOf(long nanos){
+		if(this.warnNanos >= 0 && nanos >= this.warnNanos){
+			return Level.WARN;
+		}
+		if(this.infoNanos >= 0 && nanos >= this.infoNanos){
+			return Level.INFO;
+		}
+		if(this.debugNanos >= 0 && nanos >= this.debugNanos){
+			return Level.DEBUG;
+		}
+		if(this.traceNanos >= 0 && nanos >= this.traceNanos){
+			return Level.TRACE;
+		}
+		return null;
+	}
+
+	/**
+	 * 耗时超过阈值时记录一条慢分词日志
+	 * @param mode 分词模式
+	 * @param chars 已分析的字符数
+	 * @param tokens 输出的词元数
+	 * @param longestCrossPath 最长歧义路径的词元数
+	 * @param nanos 分词耗时
+	 * @param source 文本前缀，超过getSourceChars()的部分不记录
+	 */
+	void log(String mode , int chars , long tokens , int longestCrossPath , long nanos , CharSequence source){
+		Level level = this.levelOf(nanos);
+		if(level == null || !logger.isEnabled(level)){
+			return;
+		}
+		String prefix = "";
+		if(source != null && this.sourceChars > 0){
+			prefix = source.subSequence(0 , Math.min(source.length() , this.sourceChars)).toString();
+		}
+		logger.log(level , "[{}] mode[{}], took_millis[{}], chars[{}], tokens[{}], longest_cross_path[{}], source[{}]" ,
+				this.analyzerName , mode , TimeUnit.NANOSECONDS.toMillis(nanos) , chars , tokens , longestCrossPath , prefix);
+	}
+}
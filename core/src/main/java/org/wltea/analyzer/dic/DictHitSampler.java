@@ -0,0 +1,109 @@
+package org.wltea.analyzer.dic;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 主词典命中频率采样，每rate次完全匹配随机记录一次命中的词
+ * 计数使用LongAdder，多个分词线程同时命中同一个词时不争用同一个计数器
+ * 不同的词最多与主词典的词数相同，采样结果用于裁剪词典：长期没有命中的词可以移出词典
+ * 在IKAnalyzer.cfg.xml中配置：
+ * dict_hit_sample_rate 采样间隔，0表示不启用（默认），1表示记录每一次命中
+ */
+final class DictHitSampler {
+
+	static final String DICT_HIT_SAMPLE_RATE = "dict_hit_sample_rate";
+
+	private final int rate;
+	private final ConcurrentMap<String, LongAdder> hits = new ConcurrentHashMap<String, LongAdder>();
+	private final LongAdder sampledHits = new LongAdder();
+	//开始采样的时间，毫秒时间戳
+	private volatile long startTimestamp = System.currentTimeMillis();
+
+	DictHitSampler(int rate) {
+		if (rate <= 0) {
+			throw new IllegalArgumentException("rate must be positive");
+		}
+		this.rate = rate;
+	}
+
+	/**
+	 * 一次完全匹配，按采样间隔决定是否记录
+	 * @param charArray 匹配的文本，已经规格化
+	 * @param begin 词的起始位置
+	 * @param length 词的长度
+	 */
+	void sample(char[] charArray, int begin, int length) {
+		if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0) {
+			return;
+		}
+		sampledHits.increment();
+		String word = new String(charArray, begin, length);
+		LongAdder counter = hits.get(word);
+		if (counter == null) {
+			counter = hits.computeIfAbsent(word, k -> new LongAdder());
+		}
+		counter.increment();
+	}
+
+	/**
+	 * 采样到命中的词
+	 */
+	boolean isHit(String word) {
+		return hits.containsKey(word);
+	}
+
+	/**
+	 * 返回各词采样到的命中次数
+	 */
+	Map<String, Long> snapshot() {
+		Map<String, Long> map = new HashMap<String, Long>(hits.size() * 2);
+		for (Map.Entry<String, LongAdder> entry : hits.entrySet()) {
+			map.put(entry.getKey(), entry.getValue().sum());
+		}
+		return map;
+	}
+
+	/**
+	 * 清空采样结果，重新开始采样
+	 */
+	void reset() {
+		hits.clear();
+		sampledHits.reset();
+		startTimestamp = System.currentTimeMillis();
+	}
+
+	/**
+	 * 返回采样概况及命中次数最多的size个词
+	 */
+	Map<String, Object> toMap(int size) {
+		List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(hits.size());
+		for (Map.Entry<String, LongAdder> entry : hits.entrySet()) {
+			entries.add(new AbstractMap.SimpleImmutableEntry<String, Long>(entry.getKey(), entry.getValue().sum()));
+		}
+		Collections.sort(entries, (a, b) -> {
+			int c = Long.compare(b.getValue(), a.getValue());
+			return c != 0 ? c : a.getKey().compareTo(b.getKey());
+		});
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("sample_rate", rate);
+		map.put("start_timestamp", startTimestamp);
+		map.put("sampled_hits", sampledHits.sum());
+		map.put("distinct_words", entries.size());
+		Map<String, Object> words = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < Math.min(size, entries.size()); i++) {
+			words.put(entries.get(i).getKey(), entries.get(i).getValue());
+		}
+		map.put("words", words);
+		return map;
+	}
+}
@@ -0,0 +1,33 @@
+package org.wltea.analyzer.dic;
+
+/**
+ * 词典内存计量，由宿主（如Elasticsearch的断路器）实现，参见Dictionary.setMemoryBreaker()
+ * 字节数为DictSegment估算的堆内存
+ */
+public interface DictMemoryBreaker {
+
+	/**
+	 * 不做计量的默认实现
+	 */
+	DictMemoryBreaker NOOP = new DictMemoryBreaker() {
+		@Override
+		public boolean tryAdd(long bytes, String label) {
+			return true;
+		}
+
+		@Override
+		public void add(long bytes) {
+		}
+	};
+
+	/**
+	 * 申请bytes字节，超过上限时不计入并返回false
+	 * @param label 申请内存的用途，用于日志及异常信息
+	 */
+	boolean tryAdd(long bytes, String label);
+
+	/**
+	 * 不检查上限直接计入bytes字节，bytes为负数时释放
+	 */
+	void add(long bytes);
+}
@@ -0,0 +1,213 @@
+package org.wltea.analyzer.dic;
+
+import org.apache.logging.log4j.Logger;
+import org.wltea.analyzer.help.ESPluginLoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 索引级的扩展词典，叠加在节点共享的主词典、停止词词典之上，由分词器配置的ext_dict_paths、ext_stopwords_paths加载
+ * 配置了相同文件的分词器共享同一个实例，按分词器配置记录使用者，最后一个使用者释放时卸载，参见Dictionary.acquireOverlay()
+ * 使用者在其索引删除时释放，或在其不再可达（临时的索引服务、不指定索引的_analyze请求等）后由expungeStale()释放
+ * 加载后内容不再变化，文件变更后需要重新打开索引
+ */
+public final class DictOverlay {
+
+	private static final Logger logger = ESPluginLoggerFactory.getLogger(DictOverlay.class.getName());
+
+	//以文件列表为键，由DictOverlay.class保护
+	private static final Map<String, DictOverlay> OVERLAYS = new LinkedHashMap<String, DictOverlay>();
+
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+	//不再可达的使用者的引用，由expungeStale()移除
+	private static final ReferenceQueue<Object> STALE = new ReferenceQueue<Object>();
+
+	/**
+	 * 使用者的弱引用，不阻止分词器配置被回收
+	 */
+	private static final class User extends WeakReference<Object> {
+		private final DictOverlay overlay;
+		//使用者所属索引的UUID
+		private final String index;
+
+		User(Object user, String index, DictOverlay overlay) {
+			super(user, STALE);
+			this.index = index;
+			this.overlay = overlay;
+		}
+	}
+
+	//实例编号，从1开始，用于区分不同扩展词典的分词结果缓存
+	private final int id;
+	private final List<String> dictFiles;
+	private final List<String> stopWordFiles;
+	//没有配置对应文件时为null
+	private final DictSegment words;
+	private final DictSegment stopWords;
+	private final long wordCount;
+	private final long stopWordCount;
+	private final long bytes;
+	private final String key;
+	//使用者，由DictOverlay.class保护
+	private final Set<User> users = new HashSet<User>();
+
+	private DictOverlay(String key, List<String> dictFiles, List<String> stopWordFiles) {
+		this.id = NEXT_ID.incrementAndGet();
+		this.key = key;
+		this.dictFiles = dictFiles;
+		this.stopWordFiles = stopWordFiles;
+		this.words = load(dictFiles, "Overlay Dict");
+		this.stopWords = load(stopWordFiles, "Overlay Stopwords");
+		long[] stats = new long[3];
+		if (words != null) {
+			words.collectStats(stats);
+		}
+		this.wordCount = stats[1];
+		long[] stopStats = new long[3];
+		if (stopWords != null) {
+			stopWords.collectStats(stopStats);
+		}
+		this.stopWordCount = stopStats[1];
+		this.bytes = stats[2] + stopStats[2];
+	}
+
+	private static DictSegment load(List<String> files, String name) {
+		if (files.isEmpty()) {
+			return null;
+		}
+		DictSegment dict = new DictSegment((char) 0);
+		for (String file : files) {
+			logger.info("[Dict Loading] {}", file);
+			Dictionary.loadDictFile(dict, Paths.get(file), false, name);
+		}
+		return dict;
+	}
+
+	/**
+	 * 取得由指定文件组成的扩展词典，尚未加载时加载，并记录使用者
+	 * 同一使用者重复取得时只记录一次
+	 * @param user 使用者，通常为分词器配置，只保留弱引用
+	 * @param index 使用者所属索引的UUID，参见release()
+	 * @param dictFiles 扩展词典文件，已排序
+	 * @param stopWordFiles 扩展停止词词典文件，已排序
+	 */
+	static synchronized DictOverlay acquire(Object user, String index, List<String> dictFiles, List<String> stopWordFiles) {
+		expungeStale();
+		String key = String.join(";", dictFiles) + "|" + String.join(";", stopWordFiles);
+		DictOverlay overlay = OVERLAYS.get(key);
+		if (overlay == null) {
+			overlay = new DictOverlay(key, dictFiles, stopWordFiles);
+			if (!Dictionary.getMemoryBreaker().tryAdd(overlay.bytes, "ik dictionary overlay")) {
+				throw new IllegalStateException("not enough memory for about " + overlay.bytes + " bytes to load dictionary overlay "
+						+ dictFiles + " " + stopWordFiles);
+			}
+			OVERLAYS.put(key, overlay);
+			logger.info("dictionary overlay {} loaded: {} words, {} stopwords, about {} bytes", overlay.id, overlay.wordCount,
+					overlay.stopWordCount, overlay.bytes);
+		}
+		for (User u : overlay.users) {
+			if (u.get() == user) {
+				return overlay;
+			}
+		}
+		overlay.users.add(new User(user, index, overlay));
+		return overlay;
+	}
+
+	/**
+	 * 移除索引的全部使用者，卸载不再有使用者的扩展词典
+	 */
+	static synchronized void release(String index) {
+		expungeStale();
+		for (DictOverlay overlay : new ArrayList<DictOverlay>(OVERLAYS.values())) {
+			Iterator<User> it = overlay.users.iterator();
+			while (it.hasNext()) {
+				User user = it.next();
+				if (user.index.equals(index)) {
+					it.remove();
+					// 已移除的引用不再进入队列
+					user.clear();
+				}
+			}
+			overlay.unloadIfUnused();
+		}
+	}
+
+	/**
+	 * 移除已被回收的使用者，卸载不再有使用者的扩展词典，由词典的后台线程定期调用
+	 */
+	static synchronized void expungeStale() {
+		Reference<?> ref;
+		while ((ref = STALE.poll()) != null) {
+			User user = (User) ref;
+			if (user.overlay.users.remove(user)) {
+				user.overlay.unloadIfUnused();
+			}
+		}
+	}
+
+	private void unloadIfUnused() {
+		if (users.isEmpty() && OVERLAYS.get(key) == this) {
+			OVERLAYS.remove(key);
+			Dictionary.getMemoryBreaker().add(-bytes);
+			logger.info("dictionary overlay {} unloaded", id);
+		}
+	}
+
+	/**
+	 * 已加载的扩展词典的状态，供REST接口输出
+	 */
+	static synchronized List<Object> getStatus() {
+		expungeStale();
+		List<Object> list = new ArrayList<Object>(OVERLAYS.size());
+		for (DictOverlay overlay : OVERLAYS.values()) {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			map.put("id", overlay.id);
+			map.put("ext_dict_files", overlay.dictFiles);
+			map.put("ext_stopwords_files", overlay.stopWordFiles);
+			map.put("owners", overlay.users.size());
+			map.put("words", overlay.wordCount);
+			map.put("stopwords", overlay.stopWordCount);
+			map.put("estimated_heap_bytes", overlay.bytes);
+			list.add(map);
+		}
+		return list;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * 是否含有扩展词，没有时无需匹配
+	 */
+	public boolean hasWords() {
+		return words != null;
+	}
+
+	/**
+	 * 检索匹配扩展词，前缀匹配的Hit由Dictionary.matchWithHit()继续向下匹配
+	 */
+	public Hit matchInWords(char[] charArray, int begin, int length) {
+		return words.match(charArray, begin, length);
+	}
+
+	/**
+	 * 判断是否是扩展停止词
+	 */
+	public boolean isStopWord(char[] charArray, int begin, int length) {
+		return stopWords != null && stopWords.match(charArray, begin, length).isMatch();
+	}
+}
@@ -25,9 +25,14 @@
  */
 package org.wltea.analyzer.dic;
 
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * 词典树分段，表示词典树的一个分枝
@@ -42,7 +47,7 @@ class DictSegment implements Comparable<DictSegment>{
 	
 	//Map存储结构
 	private Map<Character , DictSegment> childrenMap;
-	//数组方式存储结构
+	//数组方式存储结构，按加入顺序排列，按词频重新排列后高频的字符在前，顺序查找
 	private DictSegment[] childrenArray;
 	
 	
@@ -115,26 +120,8 @@ class DictSegment implements Comparable<DictSegment>{
 		//设置hit的当前处理位置
 		searchHit.setEnd(begin);
 
-        Character keyChar = Character.valueOf(charArray[begin]);
-		DictSegment ds = null;
-		
-		//引用实例变量为本地变量，避免查询时遇到更新的同步问题
-		DictSegment[] segmentArray = this.childrenArray;
-		Map<Character , DictSegment> segmentMap = this.childrenMap;		
-		
 		//STEP1 在节点中查找keyChar对应的DictSegment
-		if(segmentArray != null){
-			//在数组中查找
-			DictSegment keySegment = new DictSegment(keyChar);
-			int position = Arrays.binarySearch(segmentArray, 0 , this.storeSize , keySegment);
-			if(position >= 0){
-				ds = segmentArray[position];
-			}
-
-		}else if(segmentMap != null){
-			//在map中查找
-			ds = (DictSegment)segmentMap.get(keyChar);
-		}
+		DictSegment ds = this.findChild(charArray[begin]);
 		
 		//STEP2 找到DictSegment，判断词的匹配状态，是否继续递归，还是返回结果
 		if(ds != null){			
@@ -162,6 +149,38 @@ class DictSegment implements Comparable<DictSegment>{
 		return searchHit;		
 	}
 
+	/**
+	 * 查找当前节点下keyChar对应的segment，没有时返回null
+	 * @param keyChar
+	 * @return
+	 */
+	private DictSegment findChild(char keyChar){
+		//引用实例变量为本地变量，避免查询时遇到更新的同步问题
+		DictSegment[] segmentArray = this.childrenArray;
+		if(segmentArray == null){
+			Map<Character , DictSegment> segmentMap = this.childrenMap;
+			if(segmentMap != null){
+				//在map中查找
+				return segmentMap.get(Character.valueOf(keyChar));
+			}
+			//Map切换回数组存储时（参见removeSegment()），两次读取之间可能恰好完成切换，重新读取数组
+			segmentArray = this.childrenArray;
+			if(segmentArray == null){
+				return null;
+			}
+		}
+		//在数组中顺序查找，数组元素依次加入，遇到空位即结束
+		for(DictSegment ds : segmentArray){
+			if(ds == null){
+				break;
+			}
+			if(ds.nodeChar.charValue() == keyChar){
+				return ds;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * 加载填充词典片段
 	 * @param charArray
@@ -195,8 +214,8 @@ class DictSegment implements Comparable<DictSegment>{
 			keyChar = beginChar;
 		}
 		
-		//搜索当前节点的存储，查询对应keyChar的keyChar，如果没有则创建
-		DictSegment ds = lookforSegment(keyChar , enabled);
+		//搜索当前节点的存储，查询对应keyChar的keyChar，如果没有则创建；屏蔽词时只查找，不创建
+		DictSegment ds = enabled == 1 ? lookforSegment(keyChar , 1) : this.findChild(keyChar.charValue());
 		if(ds != null){
 			//处理keyChar对应的segment
 			if(length > 1){
@@ -207,6 +226,11 @@ class DictSegment implements Comparable<DictSegment>{
 				//enabled=1表明一个完整的词，enabled=0表示从词典中屏蔽当前词
 				ds.nodeState = enabled;
 			}
+			//屏蔽词后，没有下级节点的节点不再表示任何词，从词典树中移除
+			//由此每个叶子节点都是一个词，hasNextNode()只对仍有词的前缀成立
+			if(enabled == 0 && ds.nodeState == 0 && !ds.hasNextNode()){
+				this.removeSegment(ds);
+			}
 		}
 
 	}
@@ -225,21 +249,21 @@ class DictSegment implements Comparable<DictSegment>{
 			//获取数组容器，如果数组未创建则创建数组
 			DictSegment[] segmentArray = getChildrenArray();			
 			//搜寻数组
-			DictSegment keySegment = new DictSegment(keyChar);
-			int position = Arrays.binarySearch(segmentArray, 0 , this.storeSize, keySegment);
-			if(position >= 0){
-				ds = segmentArray[position];
+			for(int i = 0 ; i < this.storeSize ; i++){
+				if(segmentArray[i].nodeChar.charValue() == keyChar.charValue()){
+					ds = segmentArray[i];
+					break;
+				}
 			}
 		
 			//遍历数组后没有找到对应的segment
 			if(ds == null && create == 1){
-				ds = keySegment;
+				ds = new DictSegment(keyChar);
 				if(this.storeSize < ARRAY_LENGTH_LIMIT){
-					//数组容量未满，使用数组存储
+					//数组容量未满，使用数组存储，追加在末尾，不改变已有元素的顺序
 					segmentArray[this.storeSize] = ds;
 					//segment数目+1
 					this.storeSize++;
-					Arrays.sort(segmentArray , 0 , this.storeSize);
 					
 				}else{
 					//数组容量已满，切换Map存储
@@ -275,6 +299,45 @@ class DictSegment implements Comparable<DictSegment>{
 	}
 	
 	
+	/**
+	 * 移除当前节点下的segment，须在持有当前节点的锁时调用
+	 * 数组复制后替换，正在查询的线程仍可使用原数组；Map中的segment减少到ARRAY_LENGTH_LIMIT个时切换回数组存储
+	 * @param ds
+	 */
+	private void removeSegment(DictSegment ds){
+		DictSegment[] segmentArray = this.childrenArray;
+		if(segmentArray != null){
+			if(this.storeSize == 1){
+				this.storeSize = 0;
+				this.childrenArray = null;
+				return;
+			}
+			DictSegment[] newArray = new DictSegment[ARRAY_LENGTH_LIMIT];
+			int size = 0;
+			for(int i = 0 ; i < this.storeSize ; i++){
+				if(segmentArray[i] != ds){
+					newArray[size++] = segmentArray[i];
+				}
+			}
+			this.childrenArray = newArray;
+			this.storeSize = size;
+		}else if(this.childrenMap != null && this.childrenMap.remove(ds.nodeChar) != null){
+			if(this.storeSize - 1 <= ARRAY_LENGTH_LIMIT){
+				//先设置数组再释放Map，确保查询时总能取到其中之一
+				DictSegment[] newArray = new DictSegment[ARRAY_LENGTH_LIMIT];
+				int size = 0;
+				for(DictSegment segment : this.childrenMap.values()){
+					newArray[size++] = segment;
+				}
+				this.childrenArray = newArray;
+				this.storeSize = size;
+				this.childrenMap = null;
+			}else{
+				this.storeSize--;
+			}
+		}
+	}
+
 	/**
 	 * 获取数组容器
 	 * 线程同步方法
@@ -313,6 +376,196 @@ class DictSegment implements Comparable<DictSegment>{
 		}
 	}
 
+	/**
+	 * 统计以当前节点为根的分枝，累加到stats中
+	 * stats[0] 节点数，stats[1] 词数（被屏蔽的词不计），stats[2] 估算的堆内存字节数
+	 * 内存按64位JVM开启指针压缩估算，不含各词典共用的字典表（参见getSharedCharBytes()）
+	 * 词典加载期间统计得到的是近似值
+	 * @param stats 长度为3的数组
+	 */
+	void collectStats(long[] stats){
+		stats[0]++;
+		if(this.nodeState == 1){
+			stats[1]++;
+		}
+		//节点对象：对象头及5个字段
+		stats[2] += 32;
+		DictSegment[] segmentArray = this.childrenArray;
+		Map<Character , DictSegment> segmentMap = this.childrenMap;
+		if(segmentArray != null){
+			//数组头及ARRAY_LENGTH_LIMIT个引用
+			stats[2] += 16 + 4 * ARRAY_LENGTH_LIMIT;
+			for(DictSegment ds : segmentArray){
+				if(ds != null){
+					ds.collectStats(stats);
+				}
+			}
+		}else if(segmentMap != null){
+			stats[2] += mapBytes(segmentMap.size());
+			for(DictSegment ds : segmentMap.values()){
+				ds.collectStats(stats);
+			}
+		}
+	}
+
+	/**
+	 * 按词频重新排列以当前节点为根的分枝，返回新的分枝，当前分枝不变
+	 * 节点的权重为经过该节点的词频之和，词典中没有的词也计入其前缀经过的节点
+	 * 子节点按权重从高到低排列，权重相同时保持原有顺序，数组存储的子节点在顺序查找时高频的字符先被比较；
+	 * 先复制全部有权重的节点，再复制只有无权重节点的分枝，使常用的节点集中分配，提高匹配时的缓存命中率
+	 * 复制期间不应修改当前分枝
+	 * @param frequencies 词及其词频
+	 */
+	DictSegment layout(Map<String , Long> frequencies){
+		Map<DictSegment , Long> weights = new HashMap<DictSegment , Long>();
+		for(Map.Entry<String , Long> entry : frequencies.entrySet()){
+			String word = entry.getKey();
+			DictSegment ds = this;
+			for(int i = 0 ; i < word.length() && ds != null ; i++){
+				ds = ds.findChild(word.charAt(i));
+				if(ds != null){
+					weights.merge(ds , entry.getValue() , Long::sum);
+				}
+			}
+		}
+		DictSegment copy = new DictSegment(this.nodeChar);
+		copy.nodeState = this.nodeState;
+		Deque<DictSegment[]> cold = new ArrayDeque<DictSegment[]>();
+		this.copyChildren(copy , weights , cold);
+		while(!cold.isEmpty()){
+			DictSegment[] pair = cold.poll();
+			pair[0].copyChildren(pair[1] , weights , null);
+		}
+		return copy;
+	}
+
+	/**
+	 * 将子节点按权重复制到copy下，有权重的子节点递归复制，其余的加入cold稍后复制
+	 * @param cold 为null时全部递归复制
+	 */
+	private void copyChildren(DictSegment copy , Map<DictSegment , Long> weights , Deque<DictSegment[]> cold){
+		List<DictSegment> children = new ArrayList<DictSegment>();
+		DictSegment[] segmentArray = this.childrenArray;
+		Map<Character , DictSegment> segmentMap = this.childrenMap;
+		if(segmentArray != null){
+			for(DictSegment ds : segmentArray){
+				if(ds != null){
+					children.add(ds);
+				}
+			}
+		}else if(segmentMap != null){
+			children.addAll(segmentMap.values());
+		}
+		if(children.isEmpty()){
+			return;
+		}
+		//List.sort是稳定排序
+		children.sort((a , b) -> Long.compare(weights.getOrDefault(b , 0L) , weights.getOrDefault(a , 0L)));
+		DictSegment[] copies = new DictSegment[children.size()];
+		for(int i = 0 ; i < copies.length ; i++){
+			copies[i] = new DictSegment(children.get(i).nodeChar);
+			copies[i].nodeState = children.get(i).nodeState;
+		}
+		if(copies.length <= ARRAY_LENGTH_LIMIT){
+			copy.childrenArray = new DictSegment[ARRAY_LENGTH_LIMIT];
+			System.arraycopy(copies , 0 , copy.childrenArray , 0 , copies.length);
+		}else{
+			copy.childrenMap = new ConcurrentHashMap<Character , DictSegment>(copies.length * 2 , 0.8f);
+			for(DictSegment ds : copies){
+				copy.childrenMap.put(ds.nodeChar , ds);
+			}
+		}
+		copy.storeSize = copies.length;
+		for(int i = 0 ; i < copies.length ; i++){
+			DictSegment child = children.get(i);
+			if(cold == null || weights.getOrDefault(child , 0L) > 0){
+				child.copyChildren(copies[i] , weights , cold);
+			}else{
+				cold.add(new DictSegment[]{child , copies[i]});
+			}
+		}
+	}
+
+	/**
+	 * 标记各子节点的字符：words中标记单字成词的字符，prefixes中标记还有下级节点的字符，与match()单字匹配的结果一致
+	 * @param words 长度为1024的位图
+	 * @param prefixes 长度为1024的位图
+	 */
+	void collectFirstChars(long[] words , long[] prefixes){
+		DictSegment[] segmentArray = this.childrenArray;
+		Map<Character , DictSegment> segmentMap = this.childrenMap;
+		if(segmentArray != null){
+			for(DictSegment ds : segmentArray){
+				if(ds != null){
+					ds.markFirstChar(words , prefixes);
+				}
+			}
+		}else if(segmentMap != null){
+			for(DictSegment ds : segmentMap.values()){
+				ds.markFirstChar(words , prefixes);
+			}
+		}
+	}
+
+	private void markFirstChar(long[] words , long[] prefixes){
+		char c = this.nodeChar.charValue();
+		if(this.nodeState == 1){
+			words[c >>> 6] |= 1L << c;
+		}
+		if(this.hasNextNode()){
+			prefixes[c >>> 6] |= 1L << c;
+		}
+	}
+
+	/**
+	 * 遍历以当前节点为根的分枝中的词（被屏蔽的词除外），当前节点的字符不计入词
+	 * @param consumer 接收每个词
+	 */
+	void forEachWord(Consumer<String> consumer){
+		this.forEachWord(new StringBuilder() , consumer);
+	}
+
+	private void forEachWord(StringBuilder prefix , Consumer<String> consumer){
+		DictSegment[] segmentArray = this.childrenArray;
+		Map<Character , DictSegment> segmentMap = this.childrenMap;
+		if(segmentArray != null){
+			for(DictSegment ds : segmentArray){
+				if(ds != null){
+					ds.visitWord(prefix , consumer);
+				}
+			}
+		}else if(segmentMap != null){
+			for(DictSegment ds : segmentMap.values()){
+				ds.visitWord(prefix , consumer);
+			}
+		}
+	}
+
+	private void visitWord(StringBuilder prefix , Consumer<String> consumer){
+		prefix.append(this.nodeChar.charValue());
+		if(this.nodeState == 1){
+			consumer.accept(prefix.toString());
+		}
+		this.forEachWord(prefix , consumer);
+		prefix.setLength(prefix.length() - 1);
+	}
+
+	/**
+	 * 各词典共用的字典表估算的堆内存字节数
+	 */
+	static long getSharedCharBytes(){
+		//每个字符对象16字节
+		return mapBytes(charMap.size()) + 16L * charMap.size();
+	}
+
+	/**
+	 * 估算ConcurrentHashMap占用的堆内存字节数：对象本身、桶数组及每个条目32字节
+	 */
+	private static long mapBytes(int size){
+		int capacity = Integer.highestOneBit(Math.max(size * 4 / 3 , 1)) << 1;
+		return 64 + 16 + 4L * capacity + 32L * size;
+	}
+
 	/**
 	 * 实现Comparable接口
 	 * @param o
@@ -31,17 +31,26 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.Files;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -63,7 +72,7 @@ public class Dictionary {
 	/*
 	 * 词典单子实例
 	 */
-	private static Dictionary singleton;
+	private static volatile Dictionary singleton;
 
 	private DictSegment _MainDict;
 
@@ -71,6 +80,101 @@ public class Dictionary {
 
 	private DictSegment _StopWords;
 
+	/**
+	 * dict_backend为fst时，主词典、量词词典、停止词词典编译成的FST，此时对应的词典树为空
+	 */
+	private boolean useFst;
+	private FSTDict _MainFst;
+	private FSTDict _QuantifierFst;
+	private FSTDict _StopWordsFst;
+
+	/**
+	 * 词典版本号，主词典或停止词词典每次变更后递增
+	 */
+	private final AtomicLong version = new AtomicLong();
+
+	/**
+	 * 首次加载的完成时间及耗时，毫秒
+	 */
+	private long loadTimestamp;
+	private long loadTime;
+
+	/**
+	 * 重新加载的次数，最近一次重新加载的完成时间及耗时，毫秒
+	 */
+	private volatile int reloadCount;
+	private volatile long lastReloadTimestamp;
+	private volatile long lastReloadTime;
+
+	/**
+	 * 内存不足被拒绝的重新加载次数
+	 */
+	private volatile int reloadRefusedCount;
+
+	/**
+	 * 词典内存计量
+	 */
+	private static volatile DictMemoryBreaker memoryBreaker = DictMemoryBreaker.NOOP;
+
+	/**
+	 * 已计入memoryBreaker的主词典、量词词典、停止词词典的估算内存，在同步方法中修改，getStatus()不加锁读取
+	 */
+	private volatile long mainDictBytes;
+	private volatile long quantifierDictBytes;
+	private volatile long stopWordsBytes;
+
+	/**
+	 * 词条变更时词典树的每个字符按最多新增一个节点及一个子节点数组预估内存，参见DictSegment.collectStats()
+	 */
+	private static final long LIVE_CHAR_BYTES = 32 + 16 + 4 * 3;
+
+	/**
+	 * getDeadWords()一次最多返回的词数
+	 */
+	public static final int MAX_DEAD_WORDS_SIZE = 10000;
+
+	/**
+	 * 主词典命中频率采样，未启用时为空
+	 */
+	private DictHitSampler hitSampler;
+
+	/**
+	 * 通过updateWords()加入（true）或屏蔽（false）的主词典、停止词词典词条，按最后一次变更的顺序排列
+	 * 重新加载词典后重新应用
+	 */
+	private final Map<String, Boolean> liveWords = new LinkedHashMap<String, Boolean>();
+	private final Map<String, Boolean> liveStopWords = new LinkedHashMap<String, Boolean>();
+
+	/**
+	 * 通过applyStoreChange()加入或屏蔽的词条，与liveWords分开记录，重新加载词典后在其后重新应用，resetStore()时撤销
+	 */
+	private final Map<String, Boolean> storeWords = new LinkedHashMap<String, Boolean>();
+	private final Map<String, Boolean> storeStopWords = new LinkedHashMap<String, Boolean>();
+
+	/**
+	 * 串行化重新加载，加载过程中的文件读取及远程下载不持有词典的锁，参见reLoadMainDict()
+	 */
+	private final Object reloadLock = new Object();
+
+	/**
+	 * 串行化词条变更、主词典排列及替换词典，FST重新编译期间一直持有；
+	 * 词典的锁只保护liveWords、liveStopWords、storeWords、storeStopWords，不阻塞状态查询
+	 */
+	private final Object updateLock = new Object();
+
+	/**
+	 * 已应用的集群词典库变更序号及变更链摘要，参见applyStoreChange()
+	 * 在updateLock内先写摘要再写序号，集群状态应用线程不加锁读取
+	 */
+	private volatile long storeVersion;
+	private volatile String storeDigest = "";
+
+	/**
+	 * 主词典、量词词典的首字索引，词典变更后重新生成
+	 */
+	private volatile FirstCharIndex mainFirstChars;
+	private volatile FirstCharIndex quantifierFirstChars;
+
 	/**
 	 * 配置对象
 	 */
@@ -78,7 +182,17 @@ public class Dictionary {
 
 	private static final Logger logger = ESPluginLoggerFactory.getLogger(Dictionary.class.getName());
 
-	private static ScheduledExecutorService pool = Executors.newScheduledThreadPool(1);
+	// 后台线程不阻止独立使用分词器的JVM退出
+	private static ScheduledExecutorService pool = Executors.newScheduledThreadPool(1, r -> {
+		Thread thread = new Thread(r, "ik-dict-monitor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * 是否已开始定期卸载使用者已被回收的索引级扩展词典，首次取得扩展词典时开始
+	 */
+	private static final AtomicBoolean overlaySweep = new AtomicBoolean();
 
 	private static final String PATH_DIC_MAIN = "main.dic";
 	private static final String PATH_DIC_SURNAME = "surname.dic";
@@ -92,6 +206,11 @@ public class Dictionary {
 	private final static  String REMOTE_EXT_DICT = "remote_ext_dict";
 	private final static  String EXT_STOP = "ext_stopwords";
 	private final static  String REMOTE_EXT_STOP = "remote_ext_stopwords";
+	private final static  String MAIN_DICT_FREQ = "main_dict_freq";
+	private final static  String DICT_BACKEND = "dict_backend";
+	private final static  String LIVE_DICT_FILE = "live_dict.txt";
+	public final static  String LIVE_DICT_MAIN = "main";
+	public final static  String LIVE_DICT_STOPWORDS = "stopwords";
 
 	private Path conf_dir;
 	private Properties props;
@@ -132,6 +251,23 @@ public class Dictionary {
 		}
 		return null;
 	}
+
+	/**
+	 * 读取IKAnalyzer.cfg.xml中的整数配置项
+	 * @param key 配置项名称
+	 * @param defaultValue 未配置时的默认值
+	 */
+	public int getIntProperty(String key, int defaultValue) {
+		String value = getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid value [" + value + "] for " + key, e);
+		}
+	}
 	/**
 	 * 词典初始化 由于IK Analyzer的词典采用Dictionary类的静态方法进行词典初始化
 	 * 只有当Dictionary类被实际调用时，才会开始载入词典， 这将延长首次分词操作的时间 该方法提供了一个在应用加载阶段就初始化字典的手段
@@ -143,14 +279,53 @@ public class Dictionary {
 			synchronized (Dictionary.class) {
 				if (singleton == null) {
 
+					DictionaryLoadEvent event = new DictionaryLoadEvent();
+					event.begin();
+					long start = System.nanoTime();
 					singleton = new Dictionary(cfg);
+					singleton.useFst = singleton.isFstBackend();
 					singleton.loadMainDict();
+					if (!singleton.useFst) {
+						singleton._MainDict = singleton.layout(singleton._MainDict, singleton.getLayoutFrequencies());
+					}
+					long mark = System.nanoTime();
+					event.mainDictTime = mark - start;
 					singleton.loadSurnameDict();
 					singleton.loadQuantifierDict();
 					singleton.loadSuffixDict();
 					singleton.loadPrepDict();
+					event.otherDictsTime = System.nanoTime() - mark;
+					mark = System.nanoTime();
 					singleton.loadStopWordDict();
-
+					singleton.loadLiveChanges();
+					singleton.applyLiveChanges(singleton);
+					event.stopWordsTime = System.nanoTime() - mark;
+					if (singleton.useFst) {
+						mark = System.nanoTime();
+						singleton.compileFst();
+						event.fstCompileTime = System.nanoTime() - mark;
+					}
+					singleton.mainFirstChars = firstChars(singleton._MainDict, singleton._MainFst);
+					singleton.quantifierFirstChars = firstChars(singleton._QuantifierDict, singleton._QuantifierFst);
+					mark = System.nanoTime();
+					// 首次加载不受上限限制，但计入已用内存，使之后的重新加载和其他计量者看到真实的占用
+					long[] mainStats = collectStats(singleton._MainDict, singleton._MainFst);
+					singleton.mainDictBytes = mainStats[2];
+					singleton.quantifierDictBytes = collectStats(singleton._QuantifierDict, singleton._QuantifierFst)[2];
+					singleton.stopWordsBytes = collectStats(singleton._StopWords, singleton._StopWordsFst)[2];
+					memoryBreaker.add(singleton.mainDictBytes + singleton.quantifierDictBytes + singleton.stopWordsBytes);
+					event.accountingTime = System.nanoTime() - mark;
+					event.mainDictWords = mainStats[1];
+					event.commit();
+					singleton.loadTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					int sampleRate = singleton.getIntProperty(DictHitSampler.DICT_HIT_SAMPLE_RATE, 0);
+					if (sampleRate < 0) {
+						throw new IllegalArgumentException(DictHitSampler.DICT_HIT_SAMPLE_RATE + " must not be negative");
+					}
+					if (sampleRate > 0) {
+						singleton.hitSampler = new DictHitSampler(sampleRate);
+					}
+					singleton.loadTimestamp = System.currentTimeMillis();
 					if(cfg.isEnableRemoteDict()){
 						// 建立监控线程
 						for (String location : singleton.getRemoteExtDictionarys()) {
@@ -167,7 +342,7 @@ public class Dictionary {
 		}
 	}
 
-	private void walkFileTree(List<String> files, Path path) {
+	private static void walkFileTree(List<String> files, Path path) {
 		if (Files.isRegularFile(path)) {
 			files.add(path.toString());
 		} else if (Files.isDirectory(path)) try {
@@ -190,7 +365,7 @@ public class Dictionary {
 		}
 	}
 
-	private void loadDictFile(DictSegment dict, Path file, boolean critical, String name) {
+	static void loadDictFile(DictSegment dict, Path file, boolean critical, String name) {
 		try (InputStream is = new FileInputStream(file.toFile())) {
 			BufferedReader br = new BufferedReader(
 					new InputStreamReader(is, "UTF-8"), 512);
@@ -296,6 +471,437 @@ public class Dictionary {
 	}
 
 
+	/**
+	 * 设置词典内存计量，须在词典初始化之前调用
+	 * 重新加载期间新旧词典同时存在，加载前按当前词典的大小申请内存，超过上限时放弃本次加载，由Monitor在下次轮询时重试
+	 */
+	public static void setMemoryBreaker(DictMemoryBreaker breaker) {
+		memoryBreaker = breaker == null ? DictMemoryBreaker.NOOP : breaker;
+	}
+
+	static DictMemoryBreaker getMemoryBreaker() {
+		return memoryBreaker;
+	}
+
+	/**
+	 * 取得索引级的扩展词典，叠加在主词典、停止词词典之上，参见DictOverlay
+	 * 路径与ext_dict相同，相对于IK配置目录，可以是目录，但不能超出配置目录（含经由符号链接）
+	 * @param user 使用者，通常为分词器配置；只保留弱引用，不再可达后由后台线程释放
+	 * @param index 使用者所属索引的UUID，索引关闭或删除时调用releaseOverlays()及时释放
+	 * @param dictPaths 扩展词典路径
+	 * @param stopWordPaths 扩展停止词词典路径
+	 */
+	public DictOverlay acquireOverlay(Object user, String index, List<String> dictPaths, List<String> stopWordPaths) {
+		DictOverlay overlay = DictOverlay.acquire(user, index, resolveOverlayFiles(dictPaths), resolveOverlayFiles(stopWordPaths));
+		if (overlaySweep.compareAndSet(false, true)) {
+			pool.scheduleAtFixedRate(DictOverlay::expungeStale, 60, 60, TimeUnit.SECONDS);
+		}
+		return overlay;
+	}
+
+	/**
+	 * 释放索引的使用者取得的全部扩展词典，不再有使用者的随即卸载
+	 */
+	public static void releaseOverlays(String index) {
+		DictOverlay.release(index);
+	}
+
+	private List<String> resolveOverlayFiles(List<String> paths) {
+		Path root = toRealPath(conf_dir);
+		List<String> files = new ArrayList<String>();
+		for (String filePath : paths) {
+			if (filePath == null || filePath.trim().isEmpty()) {
+				continue;
+			}
+			Path path = configuration.getPath(getDictRoot(), filePath.trim()).normalize();
+			if (!path.startsWith(conf_dir.toAbsolutePath().normalize())) {
+				throw new IllegalArgumentException("dictionary path [" + filePath + "] must be inside " + root);
+			}
+			List<String> found = new ArrayList<String>();
+			walkFileTree(found, path);
+			// 按解析符号链接后的真实路径检查，不能经由符号链接读取配置目录之外的文件
+			for (String file : found) {
+				Path real = toRealPath(configuration.getPath(file));
+				if (!real.startsWith(root)) {
+					throw new IllegalArgumentException("dictionary path [" + filePath + "] must be inside " + root + ", but [" + file
+							+ "] resolves to " + real);
+				}
+				if (!files.contains(real.toString())) {
+					files.add(real.toString());
+				}
+			}
+		}
+		// 文件相同、顺序不同的配置共享同一个扩展词典
+		Collections.sort(files);
+		return files;
+	}
+
+	private static Path toRealPath(Path path) {
+		try {
+			return path.toRealPath();
+		} catch (IOException e) {
+			throw new IllegalArgumentException("failed to resolve dictionary path " + path, e);
+		}
+	}
+
+	/**
+	 * 统计词典的节点数、词数及估算的堆内存，参见DictSegment.collectStats()
+	 * @param fst 词典编译成的FST，为null时统计词典树
+	 */
+	private static long[] collectStats(DictSegment dict, FSTDict fst) {
+		long[] stats = new long[3];
+		if (fst != null) {
+			fst.collectStats(stats);
+		} else {
+			dict.collectStats(stats);
+		}
+		return stats;
+	}
+
+	private static FirstCharIndex firstChars(DictSegment dict, FSTDict fst) {
+		return fst != null ? new FirstCharIndex(fst) : new FirstCharIndex(dict);
+	}
+
+	/**
+	 * 读取dict_backend：trie（默认）为词典树，fst为编译成的Lucene FST
+	 * FST的内存占用远小于词典树，但加载时需要先建词典树再编译，且每次增删词条都要重新编译整个主词典
+	 */
+	private boolean isFstBackend() {
+		String backend = getProperty(DICT_BACKEND);
+		if (backend == null || backend.trim().isEmpty() || "trie".equals(backend.trim())) {
+			return false;
+		}
+		if ("fst".equals(backend.trim())) {
+			return true;
+		}
+		throw new IllegalArgumentException("invalid value [" + backend + "] for " + DICT_BACKEND + ", must be trie or fst");
+	}
+
+	/**
+	 * 将已加载的词典树编译为FST，并释放词典树
+	 */
+	private void compileFst() {
+		if (_MainDict != null) {
+			_MainFst = FSTDict.compile(_MainDict);
+			_MainDict = null;
+		}
+		if (_QuantifierDict != null) {
+			_QuantifierFst = FSTDict.compile(_QuantifierDict);
+			_QuantifierDict = null;
+		}
+		if (_StopWords != null) {
+			_StopWordsFst = FSTDict.compile(_StopWords);
+			_StopWords = null;
+		}
+	}
+
+	/**
+	 * 在词典树与FST之间切换主词典、量词词典及停止词词典的存储方式，供测试比较两种dict_backend的分词结果
+	 * FST还原的词典树不保留原有的排列
+	 */
+	void switchBackend() {
+		synchronized (updateLock) {
+			switchBackendLocked();
+		}
+	}
+
+	private void switchBackendLocked() {
+		if (useFst) {
+			_MainDict = toTrie(_MainFst);
+			_MainFst = null;
+			_QuantifierDict = toTrie(_QuantifierFst);
+			_QuantifierFst = null;
+			_StopWords = toTrie(_StopWordsFst);
+			_StopWordsFst = null;
+		} else {
+			compileFst();
+		}
+		useFst = !useFst;
+		mainFirstChars = firstChars(_MainDict, _MainFst);
+		quantifierFirstChars = firstChars(_QuantifierDict, _QuantifierFst);
+		long mainBytes = collectStats(_MainDict, _MainFst)[2];
+		long quantifierBytes = collectStats(_QuantifierDict, _QuantifierFst)[2];
+		long stopBytes = collectStats(_StopWords, _StopWordsFst)[2];
+		memoryBreaker.add(mainBytes + quantifierBytes + stopBytes - mainDictBytes - quantifierDictBytes - stopWordsBytes);
+		mainDictBytes = mainBytes;
+		quantifierDictBytes = quantifierBytes;
+		stopWordsBytes = stopBytes;
+		version.incrementAndGet();
+	}
+
+	private static DictSegment toTrie(FSTDict fst) {
+		DictSegment dict = new DictSegment((char) 0);
+		fst.forEachWord(word -> dict.fillSegment(word.toCharArray()));
+		return dict;
+	}
+
+	/**
+	 * 词典是否已初始化
+	 */
+	public static boolean isInitialized() {
+		return singleton != null;
+	}
+
+	/**
+	 * 返回词典状态：版本号、加载及重新加载的时间和耗时、主词典、量词词典和停止词词典的节点数、词数及估算的堆内存，
+	 * 实时变更的词数、已应用的集群词典库序号及摘要，以及各远程扩展词典的轮询、下载状态和已加载的索引级扩展词典，供REST接口输出
+	 * 统计词典需要遍历词典树，耗时与词典大小成正比
+	 */
+	public Map<String, Object> getStatus() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("version", getVersion());
+		map.put("dict_backend", useFst ? "fst" : "trie");
+		map.put("load_timestamp", loadTimestamp);
+		map.put("load_time_in_millis", loadTime);
+		map.put("reload_count", reloadCount);
+		map.put("last_reload_timestamp", lastReloadTimestamp);
+		map.put("last_reload_time_in_millis", lastReloadTime);
+		map.put("reload_refused_count", reloadRefusedCount);
+		synchronized (this) {
+			map.put("live_words", liveWords.size());
+			map.put("live_stopwords", liveStopWords.size());
+			map.put("store_words", storeWords.size());
+			map.put("store_stopwords", storeStopWords.size());
+		}
+		map.put("store_version", storeVersion);
+		map.put("store_digest", storeDigest);
+		map.put("accounted_heap_bytes", mainDictBytes + quantifierDictBytes + stopWordsBytes);
+
+		long[] stats = new long[3];
+		Map<String, Object> dictionaries = new LinkedHashMap<String, Object>();
+		dictionaries.put("main", getDictStatus(_MainDict, _MainFst, stats));
+		dictionaries.put("quantifier", getDictStatus(_QuantifierDict, _QuantifierFst, stats));
+		dictionaries.put("stopwords", getDictStatus(_StopWords, _StopWordsFst, stats));
+		map.put("dictionaries", dictionaries);
+		long sharedBytes = DictSegment.getSharedCharBytes();
+		map.put("shared_chars_estimated_heap_bytes", sharedBytes);
+		map.put("total_estimated_heap_bytes", stats[2] + sharedBytes);
+
+		map.put("remote_ext_dict", getRemoteStatus(getRemoteExtDictionarys()));
+		map.put("remote_ext_stopwords", getRemoteStatus(getRemoteExtStopWordDictionarys()));
+		map.put("overlays", DictOverlay.getStatus());
+		return map;
+	}
+
+	/**
+	 * 统计一个词典，并将统计值累加到total中
+	 */
+	private Map<String, Object> getDictStatus(DictSegment dict, FSTDict fst, long[] total) {
+		long[] stats = collectStats(dict, fst);
+		for (int i = 0; i < stats.length; i++) {
+			total[i] += stats[i];
+		}
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("words", stats[1]);
+		map.put("nodes", stats[0]);
+		map.put("estimated_heap_bytes", stats[2]);
+		return map;
+	}
+
+	private List<Object> getRemoteStatus(List<String> locations) {
+		List<Object> list = new ArrayList<Object>(locations.size());
+		for (String location : locations) {
+			list.add(RemoteDictStatus.forLocation(location).toMap());
+		}
+		return list;
+	}
+
+	/**
+	 * 是否启用了主词典命中频率采样（IKAnalyzer.cfg.xml中的dict_hit_sample_rate）
+	 */
+	public boolean isHitSamplingEnabled() {
+		return hitSampler != null;
+	}
+
+	/**
+	 * 返回主词典命中频率的采样结果：采样间隔、开始时间、采样到的命中次数、不同的词数，以及命中次数最多的size个词
+	 * 查询缓存、子句缓存直接返回的结果不经过词典，不计入采样
+	 */
+	public Map<String, Object> getHitStats(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("size must not be negative");
+		}
+		return requireHitSampler().toMap(size);
+	}
+
+	/**
+	 * 返回主词典（含扩展词典）中从开始采样起没有采样到命中的词：总数count，以及按词典顺序从第from个起的至多size个词
+	 * 需要遍历整个词典树，调用方不应在网络线程上执行；采样间隔较大或采样时间较短时，低频词也会出现在结果中
+	 */
+	public Map<String, Object> getDeadWords(int from, int size) {
+		if (from < 0 || size < 0) {
+			throw new IllegalArgumentException("from and size must not be negative");
+		}
+		if (size > MAX_DEAD_WORDS_SIZE) {
+			throw new IllegalArgumentException("size must not exceed " + MAX_DEAD_WORDS_SIZE);
+		}
+		DictHitSampler sampler = requireHitSampler();
+		List<String> words = new ArrayList<String>(Math.min(size, 1024));
+		long[] count = new long[1];
+		Consumer<String> consumer = word -> {
+			if (!sampler.isHit(word)) {
+				if (count[0] >= from && words.size() < size) {
+					words.add(word);
+				}
+				count[0]++;
+			}
+		};
+		if (_MainFst != null) {
+			_MainFst.forEachWord(consumer);
+		} else {
+			_MainDict.forEachWord(consumer);
+		}
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("count", count[0]);
+		map.put("from", from);
+		map.put("words", words);
+		return map;
+	}
+
+	/**
+	 * 清空主词典命中频率的采样结果，重新开始采样
+	 */
+	public void resetHitStats() {
+		requireHitSampler().reset();
+	}
+
+	private DictHitSampler requireHitSampler() {
+		if (hitSampler == null) {
+			throw new IllegalArgumentException("dictionary hit sampling is not enabled, set " + DictHitSampler.DICT_HIT_SAMPLE_RATE + " in " + FILE_NAME);
+		}
+		return hitSampler;
+	}
+
+	/**
+	 * 按当前的词频重新排列主词典，参见getLayoutFrequencies()
+	 * 排列期间新旧两份主词典同时存在，按主词典的大小申请内存
+	 * @return 内存不足放弃排列时返回false
+	 */
+	public boolean relayoutMainDict() {
+		synchronized (updateLock) {
+			return relayoutMainDictLocked();
+		}
+	}
+
+	private boolean relayoutMainDictLocked() {
+		if (useFst) {
+			throw new IllegalArgumentException("main dict layout is not supported with " + DICT_BACKEND + " fst");
+		}
+		Map<String, Long> frequencies = getLayoutFrequencies();
+		if (frequencies.isEmpty()) {
+			throw new IllegalArgumentException("no word frequencies for the main dict layout, set " + DictHitSampler.DICT_HIT_SAMPLE_RATE
+					+ " or " + MAIN_DICT_FREQ + " in " + FILE_NAME);
+		}
+		long oldBytes = mainDictBytes;
+		if (!memoryBreaker.tryAdd(oldBytes, "ik dictionary layout")) {
+			logger.warn("main dict layout refused: not enough memory for about {} bytes.", oldBytes);
+			return false;
+		}
+		long reserved = oldBytes;
+		try {
+			DictSegment dict = layout(_MainDict, frequencies);
+			long newBytes = collectStats(dict, null)[2];
+			if (!resizeReservation(reserved, newBytes, "ik dictionary layout")) {
+				logger.warn("main dict layout refused: not enough memory for about {} bytes.", newBytes);
+				return false;
+			}
+			reserved = newBytes;
+			_MainDict = dict;
+			mainDictBytes = newBytes;
+		} catch (RuntimeException e) {
+			memoryBreaker.add(-reserved);
+			throw e;
+		}
+		// 释放旧词典的内存
+		memoryBreaker.add(-oldBytes);
+		return true;
+	}
+
+	/**
+	 * 将已申请的reserved字节修正为实际所需的bytes字节，增加的部分同样须在上限之内
+	 * @return 超过上限时释放已申请的全部内存并返回false
+	 */
+	private static boolean resizeReservation(long reserved, long bytes, String label) {
+		long growth = bytes - reserved;
+		if (growth <= 0) {
+			memoryBreaker.add(growth);
+			return true;
+		}
+		if (memoryBreaker.tryAdd(growth, label)) {
+			return true;
+		}
+		memoryBreaker.add(-reserved);
+		return false;
+	}
+
+	/**
+	 * 主词典排列所用的词频：启用了命中频率采样且已有采样结果时使用采样结果，
+	 * 否则读取main_dict_freq配置的词频文件，都没有时返回空表
+	 */
+	private Map<String, Long> getLayoutFrequencies() {
+		if (hitSampler != null) {
+			Map<String, Long> frequencies = hitSampler.snapshot();
+			if (!frequencies.isEmpty()) {
+				return frequencies;
+			}
+		}
+		return loadFrequencyFiles();
+	}
+
+	/**
+	 * 按词频重新排列词典，没有词频时返回dict本身，参见DictSegment.layout()
+	 */
+	private DictSegment layout(DictSegment dict, Map<String, Long> frequencies) {
+		if (frequencies.isEmpty()) {
+			return dict;
+		}
+		long start = System.nanoTime();
+		DictSegment laidOut = dict.layout(frequencies);
+		logger.info("[Dict Loading] main dict laid out by {} word frequencies in {} ms", frequencies.size(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return laidOut;
+	}
+
+	/**
+	 * 读取main_dict_freq配置的词频文件，多个文件以;分隔，每行一个词及其词频，以空白分隔，没有词频时记为1
+	 */
+	private Map<String, Long> loadFrequencyFiles() {
+		Map<String, Long> frequencies = new HashMap<String, Long>();
+		String freqCfg = getProperty(MAIN_DICT_FREQ);
+		if (freqCfg == null) {
+			return frequencies;
+		}
+		for (String filePath : freqCfg.split(";")) {
+			if (filePath.trim().isEmpty()) {
+				continue;
+			}
+			Path file = configuration.getPath(getDictRoot(), filePath.trim());
+			try (InputStream is = new FileInputStream(file.toFile())) {
+				BufferedReader br = new BufferedReader(new InputStreamReader(is, "UTF-8"), 512);
+				for (String line = br.readLine(); line != null; line = br.readLine()) {
+					if (line.startsWith("\uFEFF"))
+						line = line.substring(1);
+					line = line.trim();
+					if (line.isEmpty()) continue;
+					String[] parts = line.split("\\s+");
+					long count = 1;
+					if (parts.length > 1) {
+						try {
+							count = Long.parseLong(parts[1]);
+						} catch (NumberFormatException e) {
+							logger.warn("[Dict Loading] invalid frequency in {}: {}", file, line);
+							continue;
+						}
+					}
+					frequencies.merge(parts[0], count, Long::sum);
+				}
+			} catch (IOException e) {
+				logger.error("ik-analyzer: main dict frequency file " + file + " loading failed", e);
+			}
+		}
+		return frequencies;
+	}
+
 	/**
 	 * 批量加载新词条
 	 * 
@@ -304,27 +910,353 @@ public class Dictionary {
 	 */
 	public void addWords(Collection<String> words) {
 		if (words != null) {
-			for (String word : words) {
-				if (word != null) {
-					// 批量加载词条到主内存词典中
-					singleton._MainDict.fillSegment(word.trim().toCharArray());
-				}
+			List<String> trimmed = trimWords(words);
+			synchronized (singleton.updateLock) {
+				singleton.changeWords(false, trimmed, true, singleton.reserveChange(false, trimmed, true));
 			}
 		}
 	}
 
 	/**
 	 * 批量移除（屏蔽）词条
+	 * 不再有词的分枝随即从词典树中移除
 	 */
 	public void disableWords(Collection<String> words) {
 		if (words != null) {
-			for (String word : words) {
-				if (word != null) {
-					// 批量屏蔽词条
-					singleton._MainDict.disableSegment(word.trim().toCharArray());
+			List<String> trimmed = trimWords(words);
+			synchronized (singleton.updateLock) {
+				singleton.changeWords(false, trimmed, false, singleton.reserveChange(false, trimmed, false));
+			}
+		}
+	}
+
+	/**
+	 * 加入或屏蔽主词典、停止词词典的词条，立即生效，重新加载词典后仍然有效
+	 * @param dict 词典：main或stopwords
+	 * @param add true时加入，false时屏蔽
+	 * @param persist 是否同时追加到配置目录中的live_dict.txt，节点重启后重新应用
+	 * @throws IOException 写入live_dict.txt失败，此时词典不变
+	 * @throws IllegalStateException 内存不足，此时词典及live_dict.txt都不变
+	 * @throws IllegalArgumentException persist为true但IK配置取自插件目录，插件只能写入宿主配置目录中的live_dict.txt
+	 */
+	public void updateWords(String dict, Collection<String> words, boolean add, boolean persist) throws IOException {
+		List<String> trimmed = checkWords(dict, words);
+		if (trimmed.isEmpty()) {
+			return;
+		}
+		if (persist) {
+			checkPersist();
+		}
+		boolean stopWords = isLiveStopWords(dict);
+		synchronized (updateLock) {
+			long reserved = reserveChange(stopWords, trimmed, add);
+			if (persist) {
+				try {
+					appendLiveChanges(dict, trimmed, add);
+				} catch (IOException e) {
+					memoryBreaker.add(-reserved);
+					throw e;
+				}
+			}
+			applyWords(stopWords, trimmed, add, reserved, false);
+		}
+	}
+
+	/**
+	 * 插件安全策略只允许写入宿主配置目录中的analysis-ik/live_dict.txt
+	 * @throws IllegalArgumentException IK配置取自插件目录
+	 */
+	private void checkPersist() {
+		Path confDir = configuration.getConfDir();
+		if (!conf_dir.equals(confDir)) {
+			throw new IllegalArgumentException("persisting live dictionary changes requires the ik config in [" + confDir
+					+ "], but it is loaded from the plugin directory [" + conf_dir + "]");
+		}
+	}
+
+	/**
+	 * 按序号应用集群词典库（宿主维护的系统索引）中的一条变更，与updateWords()的变更一样在重新加载词典后仍然有效，但不写入live_dict.txt
+	 * 节点重启后由宿主从序号1开始重新应用
+	 * @param seq 变更序号，须为已应用序号加1
+	 * @param digest 应用此变更后的变更链摘要，由宿主以storeDigest()计算并与词典库中记录的摘要核对
+	 * @return 序号不连续时不应用并返回false
+	 */
+	public boolean applyStoreChange(long seq, String digest, String dict, Collection<String> words, boolean add) {
+		List<String> trimmed = checkWords(dict, words);
+		synchronized (updateLock) {
+			if (seq != storeVersion + 1) {
+				return false;
+			}
+			if (!trimmed.isEmpty()) {
+				boolean stopWords = isLiveStopWords(dict);
+				applyWords(stopWords, trimmed, add, reserveChange(stopWords, trimmed, add), true);
+			}
+			storeDigest = digest;
+			storeVersion = seq;
+		}
+		return true;
+	}
+
+	/**
+	 * 撤销已应用的集群词典库变更，已应用序号归零、摘要置为空串，之后由宿主从序号1开始重新应用
+	 * 用于本地变更链与词典库不一致时的全量重新同步；通过重新加载主词典及停止词词典撤销，updateWords()的变更保留
+	 * @return 内存不足放弃重新加载时返回false，此时已撤销记录的变更仍在词典中，直到下次重新加载
+	 */
+	public boolean resetStore() {
+		synchronized (reloadLock) {
+			synchronized (updateLock) {
+				synchronized (this) {
+					storeWords.clear();
+					storeStopWords.clear();
+				}
+				storeDigest = "";
+				storeVersion = 0;
+			}
+			return reloadMainDictLocked();
+		}
+	}
+
+	/**
+	 * 计算集群词典库的变更链摘要：上一条变更的摘要与本条变更内容的SHA-256，写入及应用变更时由宿主调用
+	 * @param previous 上一条变更的摘要，第一条变更为空串
+	 * @param words 去除首尾空白后的词条，参见checkWords()
+	 */
+	public static String storeDigest(String previous, String dict, boolean add, List<String> words) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		md.update(previous.getBytes(StandardCharsets.UTF_8));
+		md.update((byte) '\n');
+		md.update(dict.getBytes(StandardCharsets.UTF_8));
+		md.update((byte) '\t');
+		md.update((add ? "add" : "disable").getBytes(StandardCharsets.UTF_8));
+		for (String word : words) {
+			md.update((byte) '\t');
+			md.update(word.getBytes(StandardCharsets.UTF_8));
+		}
+		StringBuilder sb = new StringBuilder();
+		for (byte b : md.digest()) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 已应用的集群词典库变更序号，没有应用过变更时为0
+	 */
+	public long getStoreVersion() {
+		return storeVersion;
+	}
+
+	/**
+	 * 已应用的集群词典库变更链摘要，没有应用过变更时为空串
+	 */
+	public String getStoreDigest() {
+		return storeDigest;
+	}
+
+	/**
+	 * 检查词典名称及词条，返回去除首尾空白及空词条后的词条
+	 * @throws IllegalArgumentException 词典不是main或stopwords，或词条包含制表符、换行符
+	 */
+	public static List<String> checkWords(String dict, Collection<String> words) {
+		isLiveStopWords(dict);
+		List<String> trimmed = trimWords(words);
+		for (String word : trimmed) {
+			if (word.indexOf('\t') >= 0 || word.indexOf('\n') >= 0 || word.indexOf('\r') >= 0) {
+				throw new IllegalArgumentException("word [" + word + "] must not contain tabs or line breaks");
+			}
+		}
+		return trimmed;
+	}
+
+	/**
+	 * @param store 是否为集群词典库的变更，分开记录以便resetStore()撤销
+	 */
+	private void applyWords(boolean stopWords, List<String> trimmed, boolean add, long reserved, boolean store) {
+		changeWords(stopWords, trimmed, add, reserved);
+		synchronized (this) {
+			if (store) {
+				recordLiveChanges(stopWords ? storeStopWords : storeWords, trimmed, add);
+			} else {
+				recordLiveChanges(stopWords ? liveStopWords : liveWords, trimmed, add);
+			}
+		}
+	}
+
+	/**
+	 * 词条变更前申请所需的内存：词典树按新加入词条的字符数预估，
+	 * FST不可修改，重新编译期间新旧两份同时存在，另按当前FST的大小申请
+	 * @return 申请的字节数，由changeWords()按变更后的实际大小修正
+	 * @throws IllegalStateException 内存不足，此时词典不变
+	 */
+	private long reserveChange(boolean stopWords, Collection<String> trimmed, boolean add) {
+		FSTDict fst = stopWords ? _StopWordsFst : _MainFst;
+		long bytes = 0;
+		if (add) {
+			for (String word : trimmed) {
+				bytes += word.length() * LIVE_CHAR_BYTES;
+			}
+		}
+		if (fst != null) {
+			bytes += collectStats(null, fst)[2];
+		}
+		if (bytes > 0 && !memoryBreaker.tryAdd(bytes, "ik dictionary update")) {
+			throw new IllegalStateException("not enough memory for about " + bytes + " bytes to update the ik dictionary");
+		}
+		return bytes;
+	}
+
+	/**
+	 * 加入或屏蔽主词典、停止词词典的词条，并按变更后的实际大小修正计入的内存，释放预先申请的reserved字节
+	 */
+	private void changeWords(boolean stopWords, List<String> trimmed, boolean add, long reserved) {
+		List<String> none = Collections.<String>emptyList();
+		try {
+			if (stopWords) {
+				if (_StopWordsFst != null) {
+					_StopWordsFst = _StopWordsFst.withChanges(add ? trimmed : none, add ? none : trimmed);
+				} else {
+					changeWords(_StopWords, trimmed, add);
+				}
+			} else {
+				if (_MainFst != null) {
+					// FST不可修改，变更后整体重新编译
+					_MainFst = _MainFst.withChanges(add ? trimmed : none, add ? none : trimmed);
+				} else {
+					changeWords(_MainDict, trimmed, add);
 				}
+				mainFirstChars = firstChars(_MainDict, _MainFst);
+			}
+		} finally {
+			if (stopWords) {
+				long bytes = collectStats(_StopWords, _StopWordsFst)[2];
+				memoryBreaker.add(bytes - stopWordsBytes - reserved);
+				stopWordsBytes = bytes;
+			} else {
+				long bytes = collectStats(_MainDict, _MainFst)[2];
+				memoryBreaker.add(bytes - mainDictBytes - reserved);
+				mainDictBytes = bytes;
 			}
 		}
+		version.incrementAndGet();
+	}
+
+	private static void changeWords(DictSegment dict, List<String> trimmed, boolean add) {
+		for (String word : trimmed) {
+			if (add) {
+				dict.fillSegment(word.toCharArray());
+			} else {
+				dict.disableSegment(word.toCharArray());
+			}
+		}
+	}
+
+	private static boolean isLiveStopWords(String dict) {
+		if (LIVE_DICT_MAIN.equals(dict)) {
+			return false;
+		}
+		if (LIVE_DICT_STOPWORDS.equals(dict)) {
+			return true;
+		}
+		throw new IllegalArgumentException("unknown dictionary [" + dict + "], must be " + LIVE_DICT_MAIN + " or " + LIVE_DICT_STOPWORDS);
+	}
+
+	private static void recordLiveChanges(Map<String, Boolean> changes, Collection<String> words, boolean add) {
+		for (String word : words) {
+			// 保持最后一次变更的顺序
+			changes.remove(word);
+			changes.put(word, add);
+		}
+	}
+
+	/**
+	 * 将updateWords()及集群词典库的变更应用到新加载的词典树上，须在编译FST之前调用
+	 */
+	private void applyLiveChanges(Dictionary target) {
+		applyLiveChanges(liveWords, target._MainDict);
+		applyLiveChanges(liveStopWords, target._StopWords);
+		applyLiveChanges(storeWords, target._MainDict);
+		applyLiveChanges(storeStopWords, target._StopWords);
+	}
+
+	private static void applyLiveChanges(Map<String, Boolean> changes, DictSegment dict) {
+		for (Map.Entry<String, Boolean> entry : changes.entrySet()) {
+			if (entry.getValue()) {
+				dict.fillSegment(entry.getKey().toCharArray());
+			} else {
+				dict.disableSegment(entry.getKey().toCharArray());
+			}
+		}
+	}
+
+	private Path getLiveDictFile() {
+		return configuration.getPath(getDictRoot(), LIVE_DICT_FILE);
+	}
+
+	/**
+	 * 读取live_dict.txt，每行为以tab分隔的词典、操作（add或disable）及词条，按顺序应用
+	 */
+	private void loadLiveChanges() {
+		Path file = getLiveDictFile();
+		if (!Files.isRegularFile(file)) {
+			return;
+		}
+		try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			for (String line = br.readLine(); line != null; line = br.readLine()) {
+				if (line.isEmpty()) continue;
+				String[] parts = line.split("\t", 3);
+				if (parts.length != 3 || (!"add".equals(parts[1]) && !"disable".equals(parts[1]))
+						|| (!LIVE_DICT_MAIN.equals(parts[0]) && !LIVE_DICT_STOPWORDS.equals(parts[0]))) {
+					logger.warn("[Dict Loading] invalid line in {}: {}", file, line);
+					continue;
+				}
+				recordLiveChanges(isLiveStopWords(parts[0]) ? liveStopWords : liveWords,
+						Collections.singletonList(parts[2]), "add".equals(parts[1]));
+			}
+			logger.info("[Dict Loading] {}: {} words, {} stopwords", file, liveWords.size(), liveStopWords.size());
+		} catch (IOException e) {
+			logger.error("ik-analyzer: live dict " + file + " loading failed", e);
+		}
+	}
+
+	private void appendLiveChanges(String dict, List<String> words, boolean add) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (String word : words) {
+			sb.append(dict).append('\t').append(add ? "add" : "disable").append('\t').append(word).append('\n');
+		}
+		byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+		Path file = getLiveDictFile();
+		configuration.check();
+		try {
+			AccessController.doPrivileged((PrivilegedExceptionAction<Void>) () -> {
+				Files.write(file, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+				return null;
+			});
+		} catch (PrivilegedActionException e) {
+			throw (IOException) e.getException();
+		}
+	}
+
+	private static List<String> trimWords(Collection<String> words) {
+		List<String> trimmed = new ArrayList<String>(words.size());
+		for (String word : words) {
+			if (word != null && !word.trim().isEmpty()) {
+				trimmed.add(word.trim());
+			}
+		}
+		return trimmed;
+	}
+
+	/**
+	 * 返回词典版本号
+	 * 版本号相同时，同一段文本的分词结果相同，可用于分词结果缓存的失效判断
+	 */
+	public long getVersion() {
+		return version.get();
 	}
 
 	/**
@@ -333,7 +1265,8 @@ public class Dictionary {
 	 * @return Hit 匹配结果描述
 	 */
 	public Hit matchInMainDict(char[] charArray) {
-		return singleton._MainDict.match(charArray);
+		FSTDict fst = singleton._MainFst;
+		return fst != null ? fst.match(charArray, 0, charArray.length) : singleton._MainDict.match(charArray);
 	}
 
 	/**
@@ -342,7 +1275,19 @@ public class Dictionary {
 	 * @return Hit 匹配结果描述
 	 */
 	public Hit matchInMainDict(char[] charArray, int begin, int length) {
-		return singleton._MainDict.match(charArray, begin, length);
+		Hit hit = length == 1 ? matchFirstChar(singleton.mainFirstChars, charArray, begin) : null;
+		if (hit == null) {
+			FSTDict fst = singleton._MainFst;
+			hit = fst != null ? fst.match(charArray, begin, length) : singleton._MainDict.match(charArray, begin, length);
+		}
+		if (hitSampler != null) {
+			// 同一个Hit继续向下匹配时，由matchWithHit记录
+			hit.setSampler(hitSampler);
+			if (hit.isMatch()) {
+				hitSampler.sample(charArray, hit.getBegin(), hit.getEnd() - hit.getBegin() + 1);
+			}
+		}
+		return hit;
 	}
 
 	/**
@@ -351,17 +1296,49 @@ public class Dictionary {
 	 * @return Hit 匹配结果描述
 	 */
 	public Hit matchInQuantifierDict(char[] charArray, int begin, int length) {
-		return singleton._QuantifierDict.match(charArray, begin, length);
+		Hit hit = length == 1 ? matchFirstChar(singleton.quantifierFirstChars, charArray, begin) : null;
+		if (hit == null) {
+			FSTDict fst = singleton._QuantifierFst;
+			hit = fst != null ? fst.match(charArray, begin, length) : singleton._QuantifierDict.match(charArray, begin, length);
+		}
+		return hit;
+	}
+
+	/**
+	 * 按首字索引匹配单字，不是词前缀的字符无需查找词典树
+	 * @return 字符是词前缀、需要查找词典树取得后续匹配的位置时返回null
+	 */
+	private static Hit matchFirstChar(FirstCharIndex index, char[] charArray, int begin) {
+		char c = charArray[begin];
+		if (index.isPrefix(c)) {
+			return null;
+		}
+		Hit hit = new Hit();
+		hit.setBegin(begin);
+		hit.setEnd(begin);
+		if (index.isWord(c)) {
+			hit.setMatch();
+		}
+		return hit;
 	}
 
 	/**
-	 * 从已匹配的Hit中直接取出DictSegment，继续向下匹配
+	 * 从已匹配的Hit中直接取出DictSegment（FST词典为所在的弧），继续向下匹配
 	 * 
 	 * @return Hit
 	 */
 	public Hit matchWithHit(char[] charArray, int currentIndex, Hit matchedHit) {
-		DictSegment ds = matchedHit.getMatchedDictSegment();
-		return ds.match(charArray, currentIndex, 1, matchedHit);
+		Hit hit;
+		if (matchedHit.getMatchedFst() != null) {
+			hit = matchedHit.getMatchedFst().match(charArray, currentIndex, matchedHit);
+		} else {
+			DictSegment ds = matchedHit.getMatchedDictSegment();
+			hit = ds.match(charArray, currentIndex, 1, matchedHit);
+		}
+		if (hit.getSampler() != null && hit.isMatch()) {
+			hit.getSampler().sample(charArray, hit.getBegin(), currentIndex - hit.getBegin() + 1);
+		}
+		return hit;
 	}
 
 	/**
@@ -370,7 +1347,8 @@ public class Dictionary {
 	 * @return boolean
 	 */
 	public boolean isStopWord(char[] charArray, int begin, int length) {
-		return singleton._StopWords.match(charArray, begin, length).isMatch();
+		FSTDict fst = singleton._StopWordsFst;
+		return fst != null ? fst.match(charArray, begin, length).isMatch() : singleton._StopWords.match(charArray, begin, length).isMatch();
 	}
 
 	/**
@@ -442,15 +1420,17 @@ public class Dictionary {
 	private static List<String> getRemoteWordsUnprivileged(String location) {
 
 		List<String> buffer = new ArrayList<String>();
+		RemoteDictStatus status = RemoteDictStatus.forLocation(location);
 		RequestConfig rc = RequestConfig.custom().setConnectionRequestTimeout(10 * 1000).setConnectTimeout(10 * 1000)
 				.setSocketTimeout(60 * 1000).build();
-		CloseableHttpClient httpclient = HttpClients.createDefault();
-		CloseableHttpResponse response;
-		BufferedReader in;
 		HttpGet get = new HttpGet(location);
 		get.setConfig(rc);
-		try {
-			response = httpclient.execute(get);
+		DictionaryFetchEvent event = new DictionaryFetchEvent();
+		event.begin();
+		event.location = location;
+		try (CloseableHttpClient httpclient = HttpClients.createDefault();
+			 CloseableHttpResponse response = httpclient.execute(get)) {
+			event.statusCode = response.getStatusLine().getStatusCode();
 			if (response.getStatusLine().getStatusCode() == 200) {
 
 				String charset = "UTF-8";
@@ -466,20 +1446,31 @@ public class Dictionary {
 					}
 
 					if (entity.getContentLength() > 0 || entity.isChunked()) {
-						in = new BufferedReader(new InputStreamReader(entity.getContent(), charset));
-						String line;
-						while ((line = in.readLine()) != null) {
-							buffer.add(line);
+						try (BufferedReader in = new BufferedReader(new InputStreamReader(entity.getContent(), charset))) {
+							String line;
+							while ((line = in.readLine()) != null) {
+								buffer.add(line);
+							}
+						}
+						status.recordFetch(buffer);
+						if (event.shouldCommit()) {
+							event.lines = buffer.size();
+							for (String l : buffer) {
+								event.chars += l.length() + 1;
+							}
 						}
-						in.close();
-						response.close();
 						return buffer;
 					}
+				}
+			}else{
+				status.recordError("bad status code " + response.getStatusLine().getStatusCode());
 			}
-			}
-			response.close();
 		} catch (IllegalStateException | IOException e) {
 			logger.error("getRemoteWords {} error", e, location);
+			status.recordError(e.toString());
+		} finally {
+			// 请求失败时状态码为0
+			event.commit();
 		}
 		return buffer;
 	}
@@ -557,16 +1548,96 @@ public class Dictionary {
 		loadDictFile(_PrepDict, file, true, "Preposition");
 	}
 
-	void reLoadMainDict() {
+	/**
+	 * 重新加载主词典及停止词词典，同一时间只进行一次
+	 * 读取词典文件、下载远程扩展词典及排列主词典时不持有词条变更的锁，不阻塞词条变更及状态查询；
+	 * 应用实时变更、编译FST及替换词典时持有
+	 * @return 内存不足放弃加载时返回false
+	 */
+	boolean reLoadMainDict() {
+		synchronized (reloadLock) {
+			return reloadMainDictLocked();
+		}
+	}
+
+	private boolean reloadMainDictLocked() {
 		logger.info("start to reload ik dict.");
-		// 新开一个实例加载词典，减少加载过程对当前词典使用的影响
-		Dictionary tmpDict = new Dictionary(configuration);
-		tmpDict.configuration = getSingleton().configuration;
-		tmpDict.loadMainDict();
-		tmpDict.loadStopWordDict();
-		_MainDict = tmpDict._MainDict;
-		_StopWords = tmpDict._StopWords;
-		logger.info("reload ik dict finished.");
+		DictionaryLoadEvent event = new DictionaryLoadEvent();
+		event.begin();
+		event.reload = true;
+		long start = System.nanoTime();
+		// 按当前词典的大小预先申请新词典的内存
+		long oldBytes = mainDictBytes + stopWordsBytes;
+		if (!memoryBreaker.tryAdd(oldBytes, "ik dictionary reload")) {
+			reloadRefusedCount++;
+			logger.warn("reload ik dict refused: not enough memory for about {} bytes, will retry later.", oldBytes);
+			event.refused = true;
+			event.commit();
+			return false;
+		}
+		long reserved = oldBytes;
+		try {
+			// 新开一个实例加载词典，减少加载过程对当前词典使用的影响
+			Dictionary tmpDict = new Dictionary(configuration);
+			tmpDict.configuration = getSingleton().configuration;
+			long mark = System.nanoTime();
+			tmpDict.loadMainDict();
+			if (!useFst) {
+				tmpDict._MainDict = layout(tmpDict._MainDict, getLayoutFrequencies());
+			}
+			event.mainDictTime = System.nanoTime() - mark;
+			mark = System.nanoTime();
+			tmpDict.loadStopWordDict();
+			event.stopWordsTime = System.nanoTime() - mark;
+			synchronized (updateLock) {
+				// 持有锁应用实时变更直到替换词典，期间的updateWords()等待替换后再应用到新词典
+				applyLiveChanges(tmpDict);
+				// 沿用首次加载时的dict_backend
+				if (useFst) {
+					mark = System.nanoTime();
+					tmpDict.compileFst();
+					event.fstCompileTime = System.nanoTime() - mark;
+				}
+				mark = System.nanoTime();
+				long[] mainStats = collectStats(tmpDict._MainDict, tmpDict._MainFst);
+				long newMainDictBytes = mainStats[2];
+				long newStopWordsBytes = collectStats(tmpDict._StopWords, tmpDict._StopWordsFst)[2];
+				FirstCharIndex newFirstChars = firstChars(tmpDict._MainDict, tmpDict._MainFst);
+				event.accountingTime = System.nanoTime() - mark;
+				event.mainDictWords = mainStats[1];
+				// 按新词典的实际大小修正申请的内存，超过当前词典的部分同样受上限限制
+				if (!resizeReservation(reserved, newMainDictBytes + newStopWordsBytes, "ik dictionary reload")) {
+					reloadRefusedCount++;
+					logger.warn("reload ik dict refused: not enough memory for about {} bytes, will retry later.",
+							newMainDictBytes + newStopWordsBytes);
+					event.refused = true;
+					event.commit();
+					return false;
+				}
+				reserved = newMainDictBytes + newStopWordsBytes;
+				// 加载期间实时变更可能改变了旧词典的大小，按替换时的大小释放
+				long replacedBytes = mainDictBytes + stopWordsBytes;
+				_MainDict = tmpDict._MainDict;
+				_MainFst = tmpDict._MainFst;
+				mainFirstChars = newFirstChars;
+				_StopWords = tmpDict._StopWords;
+				_StopWordsFst = tmpDict._StopWordsFst;
+				mainDictBytes = newMainDictBytes;
+				stopWordsBytes = newStopWordsBytes;
+				// 释放旧词典的内存
+				memoryBreaker.add(-replacedBytes);
+			}
+		} catch (RuntimeException e) {
+			memoryBreaker.add(-reserved);
+			throw e;
+		}
+		version.incrementAndGet();
+		lastReloadTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		lastReloadTimestamp = System.currentTimeMillis();
+		reloadCount++;
+		event.commit();
+		logger.info("reload ik dict finished in {} ms.", lastReloadTime);
+		return true;
 	}
 
 }
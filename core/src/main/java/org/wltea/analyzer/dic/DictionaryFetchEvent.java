@@ -0,0 +1,34 @@
+package org.wltea.analyzer.dic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：下载一个远程扩展词典
+ * 默认不启用
+ */
+@Name("org.wltea.analyzer.DictionaryFetch")
+@Label("IK Dictionary Fetch")
+@Category("IK Analyzer")
+@Description("Download of a remote dictionary")
+@Enabled(false)
+@StackTrace(false)
+final class DictionaryFetchEvent extends jdk.jfr.Event {
+
+	@Label("Location")
+	String location;
+
+	@Label("Status Code")
+	int statusCode;
+
+	@Label("Lines")
+	int lines;
+
+	@Label("Size")
+	@Description("Decoded size of the content in chars")
+	long chars;
+}
@@ -0,0 +1,56 @@
+package org.wltea.analyzer.dic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR事件：词典的首次加载或重新加载，记录各阶段耗时
+ * 默认不启用
+ */
+@Name("org.wltea.analyzer.DictionaryLoad")
+@Label("IK Dictionary Load")
+@Category("IK Analyzer")
+@Description("Initial load or reload of the dictionaries")
+@Enabled(false)
+@StackTrace(false)
+final class DictionaryLoadEvent extends jdk.jfr.Event {
+
+	@Label("Reload")
+	boolean reload;
+
+	@Label("Refused")
+	@Description("Reload refused by the memory breaker")
+	boolean refused;
+
+	@Label("Main Dictionary Time")
+	@Description("Main, extension and remote dictionaries")
+	@Timespan
+	long mainDictTime;
+
+	@Label("Stopwords Time")
+	@Timespan
+	long stopWordsTime;
+
+	@Label("Other Dictionaries Time")
+	@Description("Quantifier, surname, suffix and preposition dictionaries")
+	@Timespan
+	long otherDictsTime;
+
+	@Label("FST Compile Time")
+	@Description("Compiling the dictionaries into FSTs when dict_backend is fst")
+	@Timespan
+	long fstCompileTime;
+
+	@Label("Accounting Time")
+	@Description("Estimating the memory of the new dictionaries")
+	@Timespan
+	long accountingTime;
+
+	@Label("Main Dictionary Words")
+	long mainDictWords;
+}
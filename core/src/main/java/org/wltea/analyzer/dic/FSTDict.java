@@ -0,0 +1,273 @@
+package org.wltea.analyzer.dic;
+
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.IntsRefFSTEnum;
+import org.apache.lucene.util.fst.NoOutputs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * 编译为Lucene FST的词典，以UTF-16字符为弧的标签，共享前缀和后缀，内存占用远小于词典树
+ * 与DictSegment一样逐字匹配：前缀匹配的Hit保存当前所在的弧，由match(char[], int, Hit)继续向下匹配
+ * FST不可修改，词条变更时重新编译，参见withChanges()
+ */
+final class FSTDict {
+
+	private static final NoOutputs OUTPUTS = NoOutputs.getSingleton();
+	private static final long ARC_BYTES = RamUsageEstimator.shallowSizeOfInstance(FST.Arc.class);
+
+	//不含任何词时为null
+	private final FST<Object> fst;
+	//以字符为下标缓存根节点的弧，按高8位分页，没有弧的页为null
+	//Lucene只缓存ASCII字符的根弧，汉字在根节点的查找占匹配耗时的大部分
+	private final FST.Arc<Object>[][] rootArcs;
+	private final long words;
+	private final long nodes;
+	private final long ramBytesUsed;
+
+	private FSTDict(FST<Object> fst, long words, long nodes) {
+		this.fst = fst;
+		this.rootArcs = fst != null ? readRootArcs(fst) : null;
+		this.words = words;
+		this.nodes = nodes;
+		long bytes = 0;
+		if (fst != null) {
+			bytes = fst.ramBytesUsed() + RamUsageEstimator.shallowSizeOf(rootArcs);
+			for (FST.Arc<Object>[] page : rootArcs) {
+				if (page == null) {
+					continue;
+				}
+				bytes += RamUsageEstimator.shallowSizeOf(page);
+				for (FST.Arc<Object> arc : page) {
+					if (arc != null) {
+						bytes += ARC_BYTES;
+					}
+				}
+			}
+		}
+		this.ramBytesUsed = bytes;
+	}
+
+	// 不能创建泛型数组，以原始类型创建
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static FST.Arc<Object>[][] readRootArcs(FST<Object> fst) {
+		FST.Arc<Object>[][] arcs = new FST.Arc[256][];
+		FST.Arc<Object> root = fst.getFirstArc(new FST.Arc<Object>());
+		if (!FST.targetHasArcs(root)) {
+			return arcs;
+		}
+		try {
+			FST.BytesReader reader = fst.getBytesReader();
+			FST.Arc<Object> arc = fst.readFirstTargetArc(root, new FST.Arc<Object>(), reader);
+			while (true) {
+				int label = arc.label();
+				if (label >= 0) {
+					if (arcs[label >>> 8] == null) {
+						arcs[label >>> 8] = new FST.Arc[256];
+					}
+					arcs[label >>> 8][label & 0xff] = new FST.Arc<Object>().copyFrom(arc);
+				}
+				if (arc.isLast()) {
+					break;
+				}
+				fst.readNextArc(arc, reader);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return arcs;
+	}
+
+	/**
+	 * 将词典树中的词（被屏蔽的词除外）编译为FST
+	 */
+	static FSTDict compile(DictSegment dict) {
+		List<String> words = new ArrayList<String>();
+		dict.forEachWord(words::add);
+		Collections.sort(words);
+		return compile(words);
+	}
+
+	/**
+	 * 编译FST
+	 * @param words 按字符升序排列且不重复的词
+	 */
+	private static FSTDict compile(List<String> words) {
+		try {
+			FSTCompiler<Object> compiler = new FSTCompiler<Object>(FST.INPUT_TYPE.BYTE2, OUTPUTS);
+			IntsRef input = new IntsRef();
+			for (String word : words) {
+				if (input.ints.length < word.length()) {
+					input.ints = new int[word.length()];
+				}
+				for (int i = 0; i < word.length(); i++) {
+					input.ints[i] = word.charAt(i);
+				}
+				input.length = word.length();
+				compiler.add(input, OUTPUTS.getNoOutput());
+			}
+			return new FSTDict(compiler.compile(), words.size(), compiler.getNodeCount());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 返回加入added、屏蔽removed后重新编译的词典，当前词典不变
+	 */
+	FSTDict withChanges(Collection<String> added, Collection<String> removed) {
+		Set<String> removedSet = new HashSet<String>(removed);
+		TreeSet<String> addedSet = new TreeSet<String>(added);
+		List<String> words = new ArrayList<String>();
+		this.forEachWord(word -> {
+			//按顺序归并新加入的词
+			while (!addedSet.isEmpty() && addedSet.first().compareTo(word) <= 0) {
+				String first = addedSet.pollFirst();
+				if (!first.equals(word) && !removedSet.contains(first)) {
+					words.add(first);
+				}
+			}
+			if (!removedSet.contains(word)) {
+				words.add(word);
+			}
+		});
+		for (String word : addedSet) {
+			if (!removedSet.contains(word)) {
+				words.add(word);
+			}
+		}
+		return compile(words);
+	}
+
+	/**
+	 * 匹配词段，语义同DictSegment.match(char[], int, int)
+	 */
+	Hit match(char[] charArray, int begin, int length) {
+		Hit searchHit = new Hit();
+		searchHit.setBegin(begin);
+		searchHit.setEnd(begin);
+		if (fst == null || length <= 0) {
+			return searchHit;
+		}
+		FST.Arc<Object>[] page = rootArcs[charArray[begin] >>> 8];
+		FST.Arc<Object> rootArc = page != null ? page[charArray[begin] & 0xff] : null;
+		if (rootArc == null) {
+			return searchHit;
+		}
+		FST.Arc<Object> arc = new FST.Arc<Object>().copyFrom(rootArc);
+		FST.BytesReader reader = length > 1 ? fst.getBytesReader() : null;
+		for (int i = begin + 1; i < begin + length; i++) {
+			searchHit.setEnd(i);
+			if (!step(charArray[i], arc, reader)) {
+				return searchHit;
+			}
+		}
+		this.setHitState(searchHit, arc);
+		return searchHit;
+	}
+
+	/**
+	 * 从前缀匹配的Hit所在的弧继续匹配下一个字符，语义同DictSegment.match(char[], int, int, Hit)
+	 */
+	Hit match(char[] charArray, int currentIndex, Hit matchedHit) {
+		matchedHit.setUnmatch();
+		matchedHit.setEnd(currentIndex);
+		FST.Arc<Object> arc = matchedHit.getMatchedArc();
+		if (step(charArray[currentIndex], arc, fst.getBytesReader())) {
+			this.setHitState(matchedHit, arc);
+		}
+		return matchedHit;
+	}
+
+	/**
+	 * 沿标签为c的弧前进一步，arc就地更新，没有这样的弧时返回false
+	 */
+	private boolean step(char c, FST.Arc<Object> arc, FST.BytesReader reader) {
+		try {
+			return fst.findTargetArc(c, arc, arc, reader) != null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void setHitState(Hit hit, FST.Arc<Object> arc) {
+		if (arc.isFinal()) {
+			hit.setMatch();
+		}
+		if (FST.targetHasArcs(arc)) {
+			hit.setPrefix();
+			hit.setMatchedArc(this, arc);
+		}
+	}
+
+	/**
+	 * 按字符升序遍历全部的词
+	 */
+	void forEachWord(Consumer<String> consumer) {
+		if (fst == null) {
+			return;
+		}
+		try {
+			IntsRefFSTEnum<Object> fstEnum = new IntsRefFSTEnum<Object>(fst);
+			IntsRefFSTEnum.InputOutput<Object> next;
+			StringBuilder word = new StringBuilder();
+			while ((next = fstEnum.next()) != null) {
+				IntsRef input = next.input;
+				word.setLength(0);
+				for (int i = input.offset; i < input.offset + input.length; i++) {
+					word.append((char) input.ints[i]);
+				}
+				consumer.accept(word.toString());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 标记首字，语义同DictSegment.collectFirstChars()
+	 */
+	void collectFirstChars(long[] words, long[] prefixes) {
+		if (fst == null) {
+			return;
+		}
+		for (FST.Arc<Object>[] page : rootArcs) {
+			if (page == null) {
+				continue;
+			}
+			for (FST.Arc<Object> arc : page) {
+				if (arc == null) {
+					continue;
+				}
+				int c = arc.label();
+				if (arc.isFinal()) {
+					words[c >>> 6] |= 1L << c;
+				}
+				if (FST.targetHasArcs(arc)) {
+					prefixes[c >>> 6] |= 1L << c;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 统计值，与DictSegment.collectStats()的格式一致：stats[0] 节点数，stats[1] 词数，stats[2] 堆内存字节数
+	 */
+	void collectStats(long[] stats) {
+		stats[0] += nodes;
+		stats[1] += words;
+		stats[2] += ramBytesUsed;
+	}
+}
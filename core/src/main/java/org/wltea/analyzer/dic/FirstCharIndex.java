@@ -0,0 +1,34 @@
+package org.wltea.analyzer.dic;
+
+/**
+ * 词典首字索引，每个字符两个比特：是否单字成词、是否为更长的词的前缀
+ * 与在词典树中匹配单字的结果一致，两者都不是的字符无需查找词典树；不是前缀的单字词无需后续匹配，也不必查找
+ * 共占用16KB，由词典树的根节点或FST生成，词典变更后需要重新生成
+ */
+final class FirstCharIndex {
+
+	private final long[] words = new long[1024];
+	private final long[] prefixes = new long[1024];
+
+	FirstCharIndex(DictSegment root) {
+		root.collectFirstChars(words, prefixes);
+	}
+
+	FirstCharIndex(FSTDict fst) {
+		fst.collectFirstChars(words, prefixes);
+	}
+
+	/**
+	 * 字符c单字成词
+	 */
+	boolean isWord(char c) {
+		return (words[c >>> 6] & (1L << c)) != 0;
+	}
+
+	/**
+	 * 字符c是更长的词的前缀（可能是已屏蔽的词）
+	 */
+	boolean isPrefix(char c) {
+		return (prefixes[c >>> 6] & (1L << c)) != 0;
+	}
+}
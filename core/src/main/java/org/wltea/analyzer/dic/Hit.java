@@ -25,6 +25,8 @@
  */
 package org.wltea.analyzer.dic;
 
+import org.apache.lucene.util.fst.FST;
+
 /**
  * 表示一次词典匹配的命中
  */
@@ -42,6 +44,11 @@ public class Hit {
 	
 	//记录词典匹配过程中，当前匹配到的词典分支节点
 	private DictSegment matchedDictSegment; 
+	//FST词典匹配过程中，当前匹配到的FST及所在的弧
+	private FSTDict matchedFst;
+	private FST.Arc<Object> matchedArc;
+	//主词典命中频率采样，匹配其他词典或未启用采样时为空
+	private DictHitSampler sampler;
 	/*
 	 * 词段开始位置
 	 */
@@ -98,6 +105,27 @@ public class Hit {
 		this.matchedDictSegment = matchedDictSegment;
 	}
 	
+	FSTDict getMatchedFst() {
+		return matchedFst;
+	}
+
+	FST.Arc<Object> getMatchedArc() {
+		return matchedArc;
+	}
+
+	void setMatchedArc(FSTDict fst, FST.Arc<Object> arc) {
+		this.matchedFst = fst;
+		this.matchedArc = arc;
+	}
+
+	DictHitSampler getSampler() {
+		return sampler;
+	}
+
+	void setSampler(DictHitSampler sampler) {
+		this.sampler = sampler;
+	}
+
 	public int getBegin() {
 		return begin;
 	}
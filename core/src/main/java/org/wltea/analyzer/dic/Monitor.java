@@ -33,6 +33,11 @@ public class Monitor implements Runnable {
 	private String location;
 	
 	private Configuration configuration;
+
+	/*
+	 * 轮询状态
+	 */
+	private final RemoteDictStatus status;
 	
 	
 
@@ -41,6 +46,7 @@ public class Monitor implements Runnable {
 		this.last_modified = null;
 		this.eTags = null;
 		this.configuration = cfg;
+		this.status = RemoteDictStatus.forLocation(location);
 	}
 
 	public void run() {
@@ -89,9 +95,13 @@ public class Monitor implements Runnable {
 						||((response.getLastHeader("ETag")!=null) && !response.getLastHeader("ETag").getValue().equalsIgnoreCase(eTags))) {
 
 					// 远程词库有更新,需要重新加载词典，并修改last_modified,eTags
-					Dictionary.getSingleton().reLoadMainDict();
-					last_modified = response.getLastHeader("Last-Modified")==null?null:response.getLastHeader("Last-Modified").getValue();
-					eTags = response.getLastHeader("ETag")==null?null:response.getLastHeader("ETag").getValue();
+					// 内存不足放弃加载时不修改，下次轮询时重试
+					if (Dictionary.getSingleton().reLoadMainDict()) {
+						last_modified = response.getLastHeader("Last-Modified")==null?null:response.getLastHeader("Last-Modified").getValue();
+						eTags = response.getLastHeader("ETag")==null?null:response.getLastHeader("ETag").getValue();
+					} else {
+						status.recordError("reload refused by memory breaker");
+					}
 				}
 			}else if (response.getStatusLine().getStatusCode()==304) {
 				//没有修改，不做操作
@@ -99,9 +109,11 @@ public class Monitor implements Runnable {
 			}else{
 				logger.info("remote_ext_dict {} return bad code {}" , location , response.getStatusLine().getStatusCode() );
 			}
+			status.recordPoll(response.getStatusLine().getStatusCode(), last_modified, eTags);
 
 		} catch (Exception e) {
 			logger.error("remote_ext_dict {} error!",e , location);
+			status.recordError(e.toString());
 		}finally{
 			try {
 				if (response != null) {
@@ -0,0 +1,91 @@
+package org.wltea.analyzer.dic;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 远程扩展词典的状态，以词典地址为键，由Monitor的轮询和词典的下载更新
+ * 时间均为毫秒时间戳，0表示尚未发生
+ */
+final class RemoteDictStatus {
+
+	private static final ConcurrentMap<String, RemoteDictStatus> STATUS = new ConcurrentHashMap<String, RemoteDictStatus>();
+
+	private final String location;
+	//最近一次轮询的时间及响应状态码
+	private volatile long lastPoll;
+	private volatile int lastPollStatus;
+	//最近一次更新词典时记录的Last-Modified、ETag
+	private volatile String lastModified;
+	private volatile String eTag;
+	//最近一次下载的时间、词条数及内容摘要
+	private volatile long lastFetch;
+	private volatile int words;
+	private volatile String digest;
+	//最近一次出错的时间及原因
+	private volatile long lastErrorTime;
+	private volatile String lastError;
+
+	private RemoteDictStatus(String location) {
+		this.location = location;
+	}
+
+	static RemoteDictStatus forLocation(String location) {
+		return STATUS.computeIfAbsent(location, RemoteDictStatus::new);
+	}
+
+	void recordPoll(int status, String lastModified, String eTag) {
+		this.lastPoll = System.currentTimeMillis();
+		this.lastPollStatus = status;
+		this.lastModified = lastModified;
+		this.eTag = eTag;
+	}
+
+	/**
+	 * 记录一次成功的下载，摘要为各行以\n连接后的SHA-256
+	 */
+	void recordFetch(List<String> lines) {
+		this.lastFetch = System.currentTimeMillis();
+		this.words = lines.size();
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			for (String line : lines) {
+				md.update(line.getBytes(StandardCharsets.UTF_8));
+				md.update((byte) '\n');
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : md.digest()) {
+				sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			this.digest = sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			this.digest = null;
+		}
+	}
+
+	void recordError(String error) {
+		this.lastErrorTime = System.currentTimeMillis();
+		this.lastError = error;
+	}
+
+	Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("location", location);
+		map.put("last_poll_timestamp", lastPoll);
+		map.put("last_poll_status", lastPollStatus);
+		map.put("last_modified", lastModified);
+		map.put("etag", eTag);
+		map.put("last_fetch_timestamp", lastFetch);
+		map.put("words", words);
+		map.put("content_sha256", digest);
+		map.put("last_error_timestamp", lastErrorTime);
+		map.put("last_error", lastError);
+		return map;
+	}
+}
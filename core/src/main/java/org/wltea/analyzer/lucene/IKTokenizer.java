@@ -31,10 +31,19 @@ import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
 import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.core.ClauseCache;
+import org.wltea.analyzer.core.DualModeSegmenter;
 import org.wltea.analyzer.core.IKSegmenter;
 import org.wltea.analyzer.core.Lexeme;
+import org.wltea.analyzer.core.LexemeBatch;
+import org.wltea.analyzer.core.MaxMatchSegmenter;
+import org.wltea.analyzer.core.ParallelSegmenter;
+import org.wltea.analyzer.core.QueryCache;
+import org.wltea.analyzer.dic.Dictionary;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
 
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 
@@ -46,6 +55,8 @@ public final class IKTokenizer extends Tokenizer {
 	
 	//IK分词器实现
 	private IKSegmenter _IKImplement;
+	//分词器配置项
+	private final Configuration configuration;
 	
 	//词元文本属性
 	private final CharTermAttribute termAtt;
@@ -60,6 +71,51 @@ public final class IKTokenizer extends Tokenizer {
 
    	private PositionIncrementAttribute posIncrAtt;
 
+	//并行分词的文本长度阈值，0表示不启用
+	private final int parallelThreshold;
+	//并行分词器，启用并行分词时创建
+	private ParallelSegmenter parallelSegmenter;
+	//短文本分词结果缓存
+	private final QueryCache queryCache;
+	//子句级分词结果缓存
+	private final ClauseCache clauseCache;
+	//是否取用或生成双模式结果
+	private final boolean dualMode;
+	//最大匹配分词器，启用最大匹配模式时创建
+	private MaxMatchSegmenter maxMatchSegmenter;
+	//是否逐段输出精简细粒度结果
+	private final boolean lean;
+	//启用并行分词、结果缓存时整篇读入的文本，最大匹配模式下为分段读入的文本
+	private char[] text;
+	//整篇读入的文本长度上限，只启用短文本缓存或双模式交接时为两者可处理的长度上限，更长的文本流式分词
+	private final int bufferLimit;
+	//并行分词或缓存的分词结果
+	private LexemeBatch batch;
+	//下一个输出的词元在分词结果中的下标，-1表示未使用分词结果
+	private int batchIndex = -1;
+	//每个字段值最多输出的词元数，0表示不限制
+	private final int maxTokenCount;
+	//每个字段值最多分析的字符数，0表示不限制
+	private final int maxChars;
+	//整篇读入时输入的总长度，包括超过字符数上限、未分析的部分
+	private int inputLength;
+	//已从分词结果输出的词元数
+	private int batchCount;
+	//分词结果是否因词元数达到上限而未输出完
+	private boolean truncated;
+	//分词结果中的词元位移相对于输入中的该位置，最大匹配模式分段分词时不为0
+	private int batchBase;
+	//最大匹配模式分段读入文本的长度
+	private static final int MAX_MATCH_WINDOW = 16384;
+	//最大匹配模式下文本缓冲区中已读入的字符数、已分词的字符数，以及是否文档的最后一段
+	private int windowLength;
+	private int windowCut;
+	private boolean windowLast;
+	//最大匹配模式下已分词部分末尾的非CJK字符数目
+	private int windowUseless;
+	//字段值结束后保留的文本缓冲区和分词结果的最大容量，超过时释放
+	private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
 
     /**
 	 * Lucene 4.0 Tokenizer适配器类构造函数
@@ -72,6 +128,41 @@ public final class IKTokenizer extends Tokenizer {
         posIncrAtt = addAttribute(PositionIncrementAttribute.class);
 
         _IKImplement = new IKSegmenter(input,configuration);
+        this.configuration = configuration;
+        maxTokenCount = configuration.getMaxTokenCount();
+        maxChars = configuration.getMaxChars();
+        Dictionary.initial(configuration);
+        //限制歧义裁决或词元长度时结果依赖于限制参数，不与其他分词器共享
+        boolean shared = !configuration.isArbitrationBounded() && configuration.getMaxTokenLength() == 0;
+        queryCache = shared ? QueryCache.getShared() : new QueryCache(0 , 0);
+        //限制词元数时，整篇分词的并行、子句缓存和双模式结果大部分不会输出，改为流式分词，达到上限即停止分析
+        boolean whole = maxTokenCount == 0;
+        clauseCache = shared && whole ? ClauseCache.getShared() : new ClauseCache(0 , 0);
+        dualMode = shared && whole && configuration.isEnableDualMode();
+        parallelThreshold = whole ? configuration.getParallelThreshold() : 0;
+        if(parallelThreshold > 0){
+        	parallelSegmenter = new ParallelSegmenter(configuration);
+        }
+        if(configuration.isUseMaxMatch()){
+        	maxMatchSegmenter = new MaxMatchSegmenter(configuration);
+        }
+        //最大匹配模式优先于精简细粒度模式
+        lean = configuration.isUseLean() && !configuration.isUseMaxMatch();
+        if(lean || maxMatchSegmenter != null){
+        	bufferLimit = 0;
+        }else if(parallelThreshold > 0 || clauseCache.isEnabled()){
+        	bufferLimit = Integer.MAX_VALUE;
+        }else{
+        	bufferLimit = Math.max(queryCache.isEnabled() ? queryCache.getMaxLength() : 0 ,
+        			dualMode ? DualModeSegmenter.MAX_HANDOFF_LENGTH : 0);
+        }
+        if(maxMatchSegmenter != null){
+        	text = new char[MAX_MATCH_WINDOW];
+        	batch = new LexemeBatch();
+        }else if(bufferLimit > 0){
+        	text = new char[1024];
+        	batch = new LexemeBatch();
+        }
 	}
 
 	/* (non-Javadoc)
@@ -83,7 +174,10 @@ public final class IKTokenizer extends Tokenizer {
 		clearAttributes();
         skippedPositions = 0;
 
-        Lexeme nextLexeme = _IKImplement.next();
+        if(batchIndex >= 0){
+        	return incrementBatchToken();
+        }
+        Lexeme nextLexeme = lean ? _IKImplement.nextLean() : _IKImplement.next();
 		if(nextLexeme != null){
             posIncrAtt.setPositionIncrement(skippedPositions +1 );
 
@@ -105,6 +199,133 @@ public final class IKTokenizer extends Tokenizer {
 		//返会false告知词元输出完毕
 		return false;
 	}
+
+	/**
+	 * 从并行分词、缓存或最大匹配的分词结果中输出下一个词元，最大匹配模式下当前一段输出完毕时分词下一段
+	 */
+	private boolean incrementBatchToken() throws IOException{
+		while(batchIndex >= batch.size()){
+			if(maxMatchSegmenter == null || windowLast){
+				return false;
+			}
+			nextWindow();
+		}
+		if(maxTokenCount > 0 && batchCount >= maxTokenCount){
+			//还有未输出的词元，按达到上限提前结束
+			if(maxMatchSegmenter != null && !windowLast){
+				inputLength = batchBase + windowLength + skipRemaining();
+				windowLast = true;
+			}
+			truncated = true;
+			return false;
+		}
+        posIncrAtt.setPositionIncrement(skippedPositions +1 );
+		int length = batch.getLength(batchIndex);
+		batch.copyLexemeText(batchIndex , termAtt.resizeBuffer(length) , 0);
+		termAtt.setLength(length);
+        offsetAtt.setOffset(correctOffset(batchBase + batch.getBegin(batchIndex)), correctOffset(batchBase + batch.getEnd(batchIndex)));
+		endPosition = batchBase + batch.getEnd(batchIndex);
+		typeAtt.setType(Lexeme.getLexemeTypeString(batch.getType(batchIndex)));
+		batchIndex++;
+		batchCount++;
+		return true;
+	}
+
+	/**
+	 * 最大匹配模式分段读入并分词，每段在可切分位置结束，未分词的部分留到下一段
+	 * 一段之内没有可切分位置时整段分词
+	 */
+	private void resetMaxMatch() throws IOException{
+		batchBase = 0;
+		windowLength = 0;
+		windowUseless = 0;
+		inputLength = 0;
+		fillWindow();
+	}
+
+	private void nextWindow() throws IOException{
+		//已分词的部分移出缓冲区
+		System.arraycopy(text , windowCut , text , 0 , windowLength - windowCut);
+		batchBase += windowCut;
+		windowLength -= windowCut;
+		fillWindow();
+	}
+
+	private void fillWindow() throws IOException{
+		int limit = maxChars > 0 ? maxChars - batchBase : Integer.MAX_VALUE;
+		int capacity = Math.min(text.length , limit);
+		int readCount = 0;
+		while(windowLength < capacity && (readCount = input.read(text , windowLength , capacity - windowLength)) != -1){
+			windowLength += readCount;
+		}
+		windowLast = readCount == -1 || windowLength == limit;
+		if(windowLast){
+			//超过字符数上限的部分只计数，不分析
+			inputLength = batchBase + windowLength + (readCount == -1 ? 0 : skipRemaining());
+		}
+		windowCut = windowLast ? windowLength : maxMatchSegmenter.boundary(text , 0 , windowLength);
+		if(windowCut == 0){
+			windowCut = windowLength;
+		}
+		batch.clear();
+		batchIndex = 0;
+		maxMatchSegmenter.segment(text , 0 , windowCut , windowLast , batch);
+		int useless = batch.getLastUselessCharNum(0);
+		windowUseless = useless == windowCut ? windowUseless + useless : useless;
+	}
+
+	/**
+	 * 整篇读入文本，短文本查找缓存，超过阈值时并行分词，
+	 * 其余取用或生成双模式结果、按子句查找缓存，或者直接对读入的字符数组分词
+	 * 只启用短文本缓存或双模式交接时最多读入长度上限加1个字符，超过上限的文本连同已读入的字符流式分词
+	 */
+	private void resetBuffered() throws IOException{
+		int limit = maxChars > 0 ? maxChars : Integer.MAX_VALUE;
+		int readLimit = (int)Math.min(limit , bufferLimit + 1L);
+		int length = 0;
+		int readCount;
+		while(length < readLimit && (readCount = input.read(text , length , Math.min(text.length , readLimit) - length)) != -1){
+			length += readCount;
+			if(length == text.length && length < readLimit){
+				text = Arrays.copyOf(text , (int)Math.min((long)text.length << 1 , readLimit));
+			}
+		}
+		batch.clear();
+		batchIndex = -1;
+		batchBase = 0;
+		if(length > bufferLimit){
+			//已读入的字符放回输入之前，由分词器从Reader分析，字符数和词元数上限仍由分词器处理
+			_IKImplement.reset(new PrefixReader(text , length , input));
+			return;
+		}
+		//超过字符数上限的部分只计数，不分析
+		inputLength = length == limit ? length + skipRemaining() : length;
+		if(queryCache.isEnabled() && length <= queryCache.getMaxLength()){
+			QueryCache.Key key = queryCache.key(text , 0 , length , configuration);
+			//在分词之前读取版本号，分词期间词典变更时缓存的条目随即失效
+			long version = Dictionary.getSingleton().getVersion();
+			QueryCache.Entry entry = queryCache.get(key , version);
+			if(entry != null){
+				entry.copyTo(batch);
+			}else{
+				_IKImplement.reset(text , 0 , length);
+				_IKImplement.segment(batch);
+				queryCache.put(key , version , batch , 0);
+			}
+			batchIndex = 0;
+		}else if(parallelThreshold > 0 && length >= parallelThreshold){
+			parallelSegmenter.segment(text , 0 , length , batch);
+			batchIndex = 0;
+		}else if(dualMode){
+			DualModeSegmenter.segment(_IKImplement , text , 0 , length , configuration , batch);
+			batchIndex = 0;
+		}else if(clauseCache.isEnabled()){
+			clauseCache.segment(_IKImplement , text , 0 , length , configuration , batch);
+			batchIndex = 0;
+		}else{
+			_IKImplement.reset(text , 0 , length);
+		}
+	}
 	
 	/*
 	 * (non-Javadoc)
@@ -113,16 +334,99 @@ public final class IKTokenizer extends Tokenizer {
 	@Override
 	public void reset() throws IOException {
 		super.reset();
-		_IKImplement.reset(input);
+		batchCount = 0;
+		truncated = false;
+		if(maxMatchSegmenter != null){
+			resetMaxMatch();
+		}else if(text != null){
+			resetBuffered();
+		}else{
+			_IKImplement.reset(input);
+		}
         skippedPositions = 0;
 		endPosition = 0;
 	}	
 	
+	/**
+	 * 读完输入中剩余的字符
+	 * @return 剩余的字符数
+	 */
+	private int skipRemaining() throws IOException{
+		char[] buffer = new char[1024];
+		int count = 0;
+		int readCount;
+		while((readCount = input.read(buffer)) != -1){
+			count += readCount;
+		}
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		//较长的字段值结束后释放缓冲区，避免每个分词器实例长期占用最长字段值的内存
+		if(text != null){
+			batch.clear();
+			if(text.length > MAX_RETAINED_CAPACITY){
+				text = new char[1024];
+			}
+			if(batch.getBegins().length > MAX_RETAINED_CAPACITY){
+				batch = new LexemeBatch();
+			}
+		}
+	}
+
+	/**
+	 * 先读出已读入的字符，再读原始输入的Reader
+	 */
+	private static final class PrefixReader extends Reader {
+		private final char[] prefix;
+		private final int prefixLength;
+		private final Reader input;
+		private int position;
+
+		PrefixReader(char[] prefix , int prefixLength , Reader input){
+			this.prefix = prefix;
+			this.prefixLength = prefixLength;
+			this.input = input;
+		}
+
+		@Override
+		public int read(char[] buffer , int offset , int length) throws IOException{
+			if(position < prefixLength){
+				int n = Math.min(length , prefixLength - position);
+				System.arraycopy(prefix , position , buffer , offset , n);
+				position += n;
+				return n;
+			}
+			return input.read(buffer , offset , length);
+		}
+
+		@Override
+		public void close() throws IOException{
+			input.close();
+		}
+	}
+
 	@Override
 	public final void end() throws IOException {
         super.end();
 	    // set final offset
-		int finalOffset = correctOffset(this.endPosition+ _IKImplement.getLastUselessCharNum());
+		int finalOffset;
+		if(batchIndex >= 0 && (truncated || (maxChars > 0 && inputLength > maxChars))){
+			//达到上限提前结束，结束位置为输入的总长度
+			finalOffset = correctOffset(inputLength);
+		}else if(batchIndex < 0 && _IKImplement.getTruncatedLength() >= 0){
+			finalOffset = correctOffset(_IKImplement.getTruncatedLength() + skipRemaining());
+		}else{
+			int lastUselessCharNum;
+			if(batchIndex < 0){
+				lastUselessCharNum = _IKImplement.getLastUselessCharNum();
+			}else{
+				lastUselessCharNum = maxMatchSegmenter != null ? windowUseless : batch.getLastUselessCharNum(0);
+			}
+			finalOffset = correctOffset(this.endPosition+ lastUselessCharNum);
+		}
 		offsetAtt.setOffset(finalOffset, finalOffset);
         posIncrAtt.setPositionIncrement(posIncrAtt.getPositionIncrement() + skippedPositions);
 	}
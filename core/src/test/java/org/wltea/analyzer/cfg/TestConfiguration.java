@@ -0,0 +1,82 @@
+package org.wltea.analyzer.cfg;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executor;
+
+/**
+ * 测试用配置，词典取自仓库根目录下的config
+ */
+public class TestConfiguration extends Configuration {
+
+	public TestConfiguration(boolean useSmart) {
+		this.useSmart = useSmart;
+		this.enableRemoteDict = false;
+	}
+
+	public static Path confDir() {
+		Path dir = Paths.get("config").toAbsolutePath();
+		if (!dir.resolve("main.dic").toFile().exists()) {
+			// 在core模块下运行测试
+			dir = Paths.get("..", "config").toAbsolutePath().normalize();
+		}
+		return dir;
+	}
+
+	@Override
+	public Path getConfDir() {
+		return confDir();
+	}
+
+	@Override
+	public Path getConfigInPluginDir() {
+		return confDir();
+	}
+
+	@Override
+	public Path getPath(String first, String... more) {
+		return Paths.get(first, more);
+	}
+
+	public TestConfiguration setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+		return this;
+	}
+
+	public TestConfiguration setParallelExecutor(Executor parallelExecutor, int parallelism) {
+		this.parallelExecutor = parallelExecutor;
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	public TestConfiguration setDualMode(boolean enableDualMode) {
+		this.enableDualMode = enableDualMode;
+		return this;
+	}
+
+	public TestConfiguration setLean(int minLength, int maxSubwords, boolean singleChar) {
+		this.useLean = true;
+		this.leanMinLength = minLength;
+		this.leanMaxSubwords = maxSubwords;
+		this.leanSingleChar = singleChar;
+		return this;
+	}
+
+	public TestConfiguration setMaxMatch(boolean bidirectional) {
+		this.useMaxMatch = true;
+		this.maxMatchBidirectional = bidirectional;
+		return this;
+	}
+
+	public TestConfiguration setMaxTokenLength(int maxTokenLength, boolean truncate) {
+		this.maxTokenLength = maxTokenLength;
+		this.truncateLongToken = truncate;
+		return this;
+	}
+
+	public TestConfiguration setLimits(int maxTokenCount, int maxChars) {
+		this.maxTokenCount = maxTokenCount;
+		this.maxChars = maxChars;
+		return this;
+	}
+}
@@ -0,0 +1,99 @@
+package org.wltea.analyzer.core;
+
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchSegmenterTests {
+
+	private static List<String> texts(int count) throws IOException {
+		List<String> texts = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			texts.add(TestTexts.mixed(i, 50 + (i * 131) % 2000));
+		}
+		return texts;
+	}
+
+	private static List<String> serial(String text, TestConfiguration configuration) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		IKSegmenter segmenter = new IKSegmenter(text, configuration);
+		Lexeme lexeme;
+		while ((lexeme = segmenter.next()) != null) {
+			tokens.add(lexeme.getBeginPosition() + ":" + lexeme.getLexemeText());
+		}
+		return tokens;
+	}
+
+	private static List<String> tokens(BatchSegmenter.Result result) {
+		List<String> tokens = new ArrayList<String>();
+		LexemeBatch batch = result.getLexemes();
+		for (int i = 0; i < batch.size(); i++) {
+			tokens.add(batch.getBegin(i) + ":" + batch.getLexemeText(i));
+		}
+		return tokens;
+	}
+
+	@Test
+	public void testOrderedDelivery() throws Exception {
+		TestConfiguration configuration = new TestConfiguration(false);
+		List<String> texts = texts(200);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Long> indexes = new ArrayList<Long>();
+			List<List<String>> results = new ArrayList<List<String>>();
+			BatchSegmenter.Stats stats = new BatchSegmenter(configuration, executor, 8).setOrdered(true)
+					.segment(texts, result -> {
+						indexes.add(result.getIndex());
+						results.add(tokens(result));
+					});
+			assertEquals(texts.size(), stats.getDocuments());
+			for (int i = 0; i < texts.size(); i++) {
+				assertEquals(i, indexes.get(i).longValue());
+				assertEquals(serial(texts.get(i), configuration), results.get(i));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testConsumerFailureIsRethrown() throws Exception {
+		List<String> texts = texts(100);
+		IllegalStateException failure = new IllegalStateException("boom");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			new BatchSegmenter(new TestConfiguration(true), executor, 4).setOrdered(true)
+					.segment(texts, result -> {
+						if (result.getIndex() == 30) {
+							throw failure;
+						}
+					});
+			fail("expected the consumer failure");
+		} catch (IllegalStateException e) {
+			assertSame(failure, e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testStreamIsClosed() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean();
+		Stream<String> stream = texts(10).stream().onClose(() -> closed.set(true));
+		BatchSegmenter.Stats stats = new BatchSegmenter(new TestConfiguration(true)).segment(stream, result -> { });
+		assertEquals(10, stats.getDocuments());
+		assertTrue(closed.get());
+	}
+}
@@ -0,0 +1,114 @@
+package org.wltea.analyzer.core;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 经子句缓存拼接的结果，无论缓存冷热，都与IKSegmenter串行分词的结果完全一致；词典变更后不再使用变更前缓存的子句
+ */
+public class ClauseCacheTests {
+
+	@BeforeClass
+	public static void setUp() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static LexemeBatch serial(String text, TestConfiguration configuration) throws IOException {
+		char[] chars = text.toCharArray();
+		LexemeBatch batch = new LexemeBatch();
+		new IKSegmenter(chars, 0, chars.length, configuration).segment(batch);
+		return batch;
+	}
+
+	private static LexemeBatch cached(ClauseCache cache, String text, TestConfiguration configuration) throws IOException {
+		char[] chars = text.toCharArray();
+		LexemeBatch batch = new LexemeBatch();
+		IKSegmenter segmenter = new IKSegmenter(chars, 0, chars.length, configuration);
+		int count = cache.segment(segmenter, chars, 0, chars.length, configuration, batch);
+		assertEquals(batch.size(), count);
+		return batch;
+	}
+
+	private static void assertSameLexemes(LexemeBatch expected, LexemeBatch actual) {
+		int count = expected.size();
+		assertEquals(count, actual.size());
+		assertArrayEquals(slice(expected.getBegins(), count), slice(actual.getBegins(), count));
+		assertArrayEquals(slice(expected.getLengths(), count), slice(actual.getLengths(), count));
+		assertArrayEquals(slice(expected.getTypes(), count), slice(actual.getTypes(), count));
+		assertEquals(expected.getLastUselessCharNum(0), actual.getLastUselessCharNum(0));
+	}
+
+	private static int[] slice(int[] values, int length) {
+		int[] result = new int[length];
+		System.arraycopy(values, 0, result, 0, length);
+		return result;
+	}
+
+	private static void assertColdAndWarm(boolean useSmart) throws IOException {
+		TestConfiguration configuration = new TestConfiguration(useSmart);
+		ClauseCache cache = new ClauseCache(16L * 1024 * 1024, ClauseCache.DEFAULT_MAX_LENGTH);
+		for (long seed = 1; seed <= 3; seed++) {
+			String text = TestTexts.mixed(seed, 50000);
+			LexemeBatch expected = serial(text, configuration);
+			assertSameLexemes(expected, cached(cache, text, configuration));
+			long hits = cache.getHits();
+			assertSameLexemes(expected, cached(cache, text, configuration));
+			assertTrue(cache.getHits() > hits);
+		}
+	}
+
+	@Test
+	public void testMixedTextSmart() throws IOException {
+		assertColdAndWarm(true);
+	}
+
+	@Test
+	public void testMixedTextMaxWord() throws IOException {
+		assertColdAndWarm(false);
+	}
+
+	@Test
+	public void testNoStaleClausesAfterAddWords() throws IOException {
+		String word = "李四和王五";
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			sb.append("张三、李四和王五一起去了上海浦东新区的陆家嘴金融中心。");
+		}
+		String text = sb.toString();
+		TestConfiguration configuration = new TestConfiguration(false);
+		ClauseCache cache = new ClauseCache(16L * 1024 * 1024, ClauseCache.DEFAULT_MAX_LENGTH);
+		assertSameLexemes(serial(text, configuration), cached(cache, text, configuration));
+		assertTrue(cache.size() > 0);
+
+		Dictionary.getSingleton().addWords(Collections.singletonList(word));
+		try {
+			LexemeBatch expected = serial(text, configuration);
+			assertTrue(contains(expected, word));
+			LexemeBatch actual = cached(cache, text, configuration);
+			assertSameLexemes(expected, actual);
+			// 再次分词命中的是变更后缓存的子句
+			assertSameLexemes(expected, cached(cache, text, configuration));
+		} finally {
+			Dictionary.getSingleton().disableWords(Collections.singletonList(word));
+		}
+		assertSameLexemes(serial(text, configuration), cached(cache, text, configuration));
+	}
+
+	private static boolean contains(LexemeBatch batch, String word) {
+		for (int i = 0; i < batch.size(); i++) {
+			if (word.equals(batch.getLexemeText(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
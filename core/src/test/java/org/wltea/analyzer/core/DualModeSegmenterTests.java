@@ -0,0 +1,95 @@
+package org.wltea.analyzer.core;
+
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+import org.wltea.analyzer.lucene.IKTokenizer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 成对分析相同文本时，交接的ik_smart、ik_max_word结果与两个独立分词器的结果完全一致；
+ * 没有另一模式的分词器时不生成交接结果
+ */
+public class DualModeSegmenterTests {
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static List<String> tokenize(String text, TestConfiguration configuration) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		try (IKTokenizer tokenizer = new IKTokenizer(configuration)) {
+			CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+			OffsetAttribute offsetAtt = tokenizer.getAttribute(OffsetAttribute.class);
+			TypeAttribute typeAtt = tokenizer.getAttribute(TypeAttribute.class);
+			tokenizer.setReader(new StringReader(text));
+			tokenizer.reset();
+			while (tokenizer.incrementToken()) {
+				tokens.add(offsetAtt.startOffset() + "-" + offsetAtt.endOffset() + ":" + termAtt + "/" + typeAtt.type());
+			}
+			tokenizer.end();
+			tokens.add("end:" + offsetAtt.endOffset());
+		}
+		return tokens;
+	}
+
+	private static List<String> dual(String text, boolean useSmart) throws IOException {
+		return tokenize(text, new TestConfiguration(useSmart).setDualMode(true));
+	}
+
+	private static List<String> independent(String text, boolean useSmart) throws IOException {
+		return tokenize(text, new TestConfiguration(useSmart));
+	}
+
+	@Test
+	public void testHandoffMatchesIndependentTokenizers() throws IOException {
+		for (boolean smartFirst : new boolean[]{true, false}) {
+			for (long seed = 1; seed <= 5; seed++) {
+				String text = TestTexts.mixed(seed, 3000);
+				long hits = DualModeSegmenter.getHits();
+				List<String> first = dual(text, smartFirst);
+				List<String> second = dual(text, !smartFirst);
+				assertEquals(independent(text, smartFirst), first);
+				assertEquals(independent(text, !smartFirst), second);
+				if (seed > 1) {
+					// 第一对之后开始生成交接结果
+					assertEquals(hits + 1, DualModeSegmenter.getHits());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNoHandoffWithoutPartner() throws IOException {
+		// 成对分析后开始生成交接结果，下一篇文档留下的结果无人取用
+		dual("上一篇文档", true);
+		dual("上一篇文档", false);
+		dual("没有另一模式的分词器", true);
+
+		long hits = DualModeSegmenter.getHits();
+		long misses = DualModeSegmenter.getMisses();
+		for (long seed = 1; seed <= 3; seed++) {
+			String text = TestTexts.mixed(seed, 1000);
+			assertEquals(independent(text, true), dual(text, true));
+		}
+		assertEquals(hits, DualModeSegmenter.getHits());
+		assertEquals(misses, DualModeSegmenter.getMisses());
+
+		// 只分析了智能模式，另一模式的分词器到来时没有交接结果
+		String text = TestTexts.mixed(3, 1000);
+		assertEquals(independent(text, false), dual(text, false));
+		assertEquals(hits, DualModeSegmenter.getHits());
+		assertEquals(misses + 1, DualModeSegmenter.getMisses());
+	}
+}
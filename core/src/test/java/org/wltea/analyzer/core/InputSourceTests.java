@@ -0,0 +1,101 @@
+package org.wltea.analyzer.core;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 字符数组（含非零起始位置）及字符序列输入的分词结果与Reader输入完全一致，包括超过缓冲区长度需要换段的文本
+ */
+public class InputSourceTests {
+
+	//数组中待分析区间前后的填充文本，不应出现在分词结果中
+	private static final String PADDING = "填充文本ABC，";
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static List<String> tokens(IKSegmenter segmenter) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		Lexeme lexeme;
+		while ((lexeme = segmenter.next()) != null) {
+			tokens.add(lexeme.getBeginPosition() + "-" + lexeme.getEndPosition() + ":" + lexeme.getLexemeText()
+					+ "/" + lexeme.getLexemeType());
+		}
+		return tokens;
+	}
+
+	private static List<String> batchTokens(IKSegmenter segmenter) throws IOException {
+		LexemeBatch batch = new LexemeBatch();
+		segmenter.segment(batch);
+		List<String> tokens = new ArrayList<String>();
+		for (int i = 0; i < batch.size(); i++) {
+			tokens.add(batch.getBegin(i) + "-" + batch.getEnd(i) + ":" + batch.getLexemeText(i) + "/" + batch.getType(i));
+		}
+		return tokens;
+	}
+
+	private static void assertSameAsReader(String text, boolean useSmart) throws IOException {
+		TestConfiguration configuration = new TestConfiguration(useSmart);
+		List<String> expected = tokens(new IKSegmenter(new StringReader(text), configuration));
+		assertTrue(expected.size() > 0);
+
+		char[] chars = text.toCharArray();
+		char[] padded = (PADDING + text + PADDING).toCharArray();
+		int begin = PADDING.length();
+		assertEquals(expected, tokens(new IKSegmenter(chars, 0, chars.length, configuration)));
+		assertEquals(expected, tokens(new IKSegmenter(padded, begin, text.length(), configuration)));
+		assertEquals(expected, tokens(new IKSegmenter(text, configuration)));
+		assertEquals(expected, tokens(new IKSegmenter(new StringBuilder(text), configuration)));
+
+		assertEquals(expected, batchTokens(new IKSegmenter(padded, begin, text.length(), configuration)));
+		assertEquals(expected, batchTokens(new IKSegmenter(new StringBuilder(text), configuration)));
+
+		// 同一实例在不同输入之间重置
+		IKSegmenter segmenter = new IKSegmenter(new StringReader(PADDING), configuration);
+		tokens(segmenter);
+		segmenter.reset(padded, begin, text.length());
+		assertEquals(expected, tokens(segmenter));
+		segmenter.reset(new StringBuilder(text));
+		assertEquals(expected, tokens(segmenter));
+		segmenter.reset(new StringReader(text));
+		assertEquals(expected, tokens(segmenter));
+	}
+
+	@Test
+	public void testLongTextSmart() throws IOException {
+		for (long seed = 1; seed <= 3; seed++) {
+			String text = TestTexts.mixed(seed, 3 * AnalyzeContext.BUFF_SIZE + 123);
+			assertSameAsReader(text, true);
+		}
+	}
+
+	@Test
+	public void testLongTextMaxWord() throws IOException {
+		for (long seed = 1; seed <= 3; seed++) {
+			String text = TestTexts.mixed(seed, 3 * AnalyzeContext.BUFF_SIZE + 123);
+			assertSameAsReader(text, false);
+		}
+	}
+
+	@Test
+	public void testBufferSizedText() throws IOException {
+		// 恰好一个缓冲区及多一个字符的文本
+		for (int length : new int[]{AnalyzeContext.BUFF_SIZE, AnalyzeContext.BUFF_SIZE + 1}) {
+			String text = TestTexts.chinese(length, length).substring(0, length);
+			assertSameAsReader(text, true);
+			assertSameAsReader(text, false);
+		}
+	}
+}
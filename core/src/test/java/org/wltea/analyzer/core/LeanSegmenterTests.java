@@ -0,0 +1,82 @@
+package org.wltea.analyzer.core;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 精简细粒度分词的子词裁剪结果，以及逐个输出与整篇分词结果的一致性
+ */
+public class LeanSegmenterTests {
+
+	private static final String SENTENCE = "中华人民共和国国歌，我们的国家博物馆在北京。";
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static List<String> lean(String text, TestConfiguration configuration) throws IOException {
+		LexemeBatch batch = new LexemeBatch();
+		new IKSegmenter(text, configuration).segmentLean(batch);
+		List<String> tokens = new ArrayList<String>();
+		for (int i = 0; i < batch.size(); i++) {
+			tokens.add(batch.getBegin(i) + ":" + batch.getLexemeText(i) + ":" + Lexeme.getLexemeTypeString(batch.getType(i)));
+		}
+		tokens.add("end:" + batch.getLastUselessCharNum(0));
+		return tokens;
+	}
+
+	private static List<String> texts(String text, TestConfiguration configuration) throws IOException {
+		LexemeBatch batch = new LexemeBatch();
+		new IKSegmenter(text, configuration).segmentLean(batch);
+		List<String> tokens = new ArrayList<String>();
+		for (int i = 0; i < batch.size(); i++) {
+			tokens.add(batch.getLexemeText(i));
+		}
+		return tokens;
+	}
+
+	@Test
+	public void testSingleSubwordPerCover() throws IOException {
+		assertEquals(Arrays.asList("中华人民共和国", "人民共和国", "国歌", "我们", "国家", "博物馆", "博物", "北京"),
+				texts(SENTENCE, new TestConfiguration(false).setLean(2, 1, false)));
+	}
+
+	@Test
+	public void testSubwordsKeepMaxWordOrder() throws IOException {
+		assertEquals(Arrays.asList("中华人民共和国", "中华人民", "人民共和国", "共和国", "国歌", "我们", "国家", "博物馆", "博物", "北京"),
+				texts(SENTENCE, new TestConfiguration(false).setLean(2, 3, false)));
+	}
+
+	@Test
+	public void testMinLengthAndSingleChars() throws IOException {
+		assertEquals(Arrays.asList("中华人民共和国", "中华人民", "人民共和国", "国歌", "我们", "的", "国家", "博物馆", "在", "北京"),
+				texts(SENTENCE, new TestConfiguration(false).setLean(3, 2, true)));
+	}
+
+	@Test
+	public void testStreamingMatchesBatch() throws IOException {
+		TestConfiguration configuration = new TestConfiguration(false).setLean(2, 2, false);
+		for (long seed = 1; seed <= 3; seed++) {
+			String text = TestTexts.mixed(seed, 50000);
+			IKSegmenter segmenter = new IKSegmenter(new StringReader(text), configuration);
+			List<String> tokens = new ArrayList<String>();
+			Lexeme lexeme;
+			while ((lexeme = segmenter.nextLean()) != null) {
+				tokens.add(lexeme.getBeginPosition() + ":" + lexeme.getLexemeText() + ":" + lexeme.getLexemeTypeString());
+			}
+			tokens.add("end:" + segmenter.getLastUselessCharNum());
+			assertEquals(lean(text, configuration), tokens);
+		}
+	}
+}
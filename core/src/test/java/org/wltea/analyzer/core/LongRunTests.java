@@ -0,0 +1,105 @@
+package org.wltea.analyzer.core;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 跨越缓冲区换段的超长字母、数字串按输入中的长度截断或跳过
+ */
+public class LongRunTests {
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static String repeat(String s, int count) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			sb.append(s);
+		}
+		return sb.toString();
+	}
+
+	private static List<Lexeme> segment(String text, TestConfiguration configuration) throws IOException {
+		IKSegmenter segmenter = new IKSegmenter(new StringReader(text), configuration);
+		List<Lexeme> lexemes = new ArrayList<Lexeme>();
+		Lexeme lexeme;
+		while ((lexeme = segmenter.next()) != null) {
+			lexemes.add(lexeme);
+		}
+		return lexemes;
+	}
+
+	/**
+	 * 以中文开头，字母串起始于第一次换段之前，跨越换段位置
+	 */
+	private static String text(int prefixLength, int runLength) {
+		String prefix = repeat("我们 ", prefixLength / 3);
+		return prefix + repeat("x", runLength) + " 结束";
+	}
+
+	@Test
+	public void testTruncateAcrossRefill() throws IOException {
+		int limit = Configuration.MAX_TOKEN_LENGTH_LIMIT;
+		for (int prefixLength : new int[]{300, 2400, 3900}) {
+			String text = text(prefixLength, 3 * limit);
+			int runStart = prefixLength / 3 * 3;
+			int runEnd = runStart + 3 * limit;
+			for (boolean useSmart : new boolean[]{false, true}) {
+				List<Lexeme> lexemes = segment(text, new TestConfiguration(useSmart).setMaxTokenLength(limit, true));
+				boolean truncated = false;
+				for (Lexeme l : lexemes) {
+					assertTrue(l.toString(), l.getLength() <= limit);
+					if (l.getBeginPosition() == runStart && l.getLength() == limit) {
+						truncated = true;
+					} else {
+						assertTrue(l.toString(), l.getBeginPosition() < runStart || l.getBeginPosition() >= runEnd);
+					}
+				}
+				assertTrue(truncated);
+				assertEquals("结束", lexemes.get(lexemes.size() - 1).getLexemeText());
+			}
+		}
+	}
+
+	@Test
+	public void testSkipAcrossRefill() throws IOException {
+		int limit = 1000;
+		for (int prefixLength : new int[]{300, 3600, 3900}) {
+			String text = text(prefixLength, 3 * limit);
+			int runStart = prefixLength / 3 * 3;
+			int runEnd = runStart + 3 * limit;
+			List<Lexeme> lexemes = segment(text, new TestConfiguration(false).setMaxTokenLength(limit, false));
+			for (Lexeme l : lexemes) {
+				assertTrue(l.toString(), l.getBeginPosition() < runStart || l.getBeginPosition() >= runEnd);
+			}
+			assertEquals("结束", lexemes.get(lexemes.size() - 1).getLexemeText());
+		}
+	}
+
+	@Test
+	public void testRunBelowLimitKeptWhole() throws IOException {
+		String text = text(3900, 900);
+		int runStart = 3900;
+		List<Lexeme> lexemes = segment(text, new TestConfiguration(false).setMaxTokenLength(1000, true));
+		boolean whole = false;
+		for (Lexeme l : lexemes) {
+			if (l.getBeginPosition() == runStart && l.getLength() == 900) {
+				whole = true;
+			}
+		}
+		assertTrue(whole);
+	}
+}
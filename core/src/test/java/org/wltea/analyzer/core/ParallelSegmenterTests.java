@@ -0,0 +1,101 @@
+package org.wltea.analyzer.core;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 并行分词拼接后的结果与IKSegmenter串行分词的结果完全一致
+ */
+public class ParallelSegmenterTests {
+
+	private static ExecutorService executor;
+
+	@BeforeClass
+	public static void setUp() {
+		Dictionary.initial(new TestConfiguration(false));
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		executor.shutdown();
+	}
+
+	private static void assertSameAsSerial(String text, boolean useSmart) throws IOException {
+		TestConfiguration configuration = new TestConfiguration(useSmart);
+		assertSameAsSerial(text, configuration, new ParallelSegmenter(configuration, executor, 8, AnalyzeContext.BUFF_SIZE));
+	}
+
+	private static void assertSameAsSerial(String text, TestConfiguration configuration, ParallelSegmenter segmenter)
+			throws IOException {
+		char[] chars = text.toCharArray();
+
+		LexemeBatch expected = new LexemeBatch();
+		int expectedCount = new IKSegmenter(chars, 0, chars.length, configuration).segment(expected);
+
+		LexemeBatch actual = new LexemeBatch();
+		int actualCount = segmenter.segment(chars, 0, chars.length, actual);
+
+		assertEquals(expectedCount, actualCount);
+		assertArrayEquals(slice(expected.getBegins(), expectedCount), slice(actual.getBegins(), actualCount));
+		assertArrayEquals(slice(expected.getLengths(), expectedCount), slice(actual.getLengths(), actualCount));
+		assertArrayEquals(slice(expected.getTypes(), expectedCount), slice(actual.getTypes(), actualCount));
+		assertEquals(expected.getLastUselessCharNum(0), actual.getLastUselessCharNum(0));
+	}
+
+	private static int[] slice(int[] values, int length) {
+		int[] result = new int[length];
+		System.arraycopy(values, 0, result, 0, length);
+		return result;
+	}
+
+	@Test
+	public void testMixedTextSmart() throws IOException {
+		for (long seed = 1; seed <= 3; seed++) {
+			assertSameAsSerial(TestTexts.mixed(seed, 200000), true);
+		}
+	}
+
+	@Test
+	public void testMixedTextMaxWord() throws IOException {
+		for (long seed = 1; seed <= 3; seed++) {
+			assertSameAsSerial(TestTexts.mixed(seed, 200000), false);
+		}
+	}
+
+	@Test
+	public void testShortTextFallsBackToSerial() throws IOException {
+		assertSameAsSerial(TestTexts.mixed(7, 3000), false);
+	}
+
+	@Test
+	public void testReusedSegmentersOnConfiguredExecutor() throws IOException {
+		AtomicInteger tasks = new AtomicInteger();
+		Executor counting = task -> {
+			tasks.incrementAndGet();
+			executor.execute(task);
+		};
+		for (boolean useSmart : new boolean[]{true, false}) {
+			TestConfiguration configuration = new TestConfiguration(useSmart).setParallelExecutor(counting, 4);
+			ParallelSegmenter segmenter = new ParallelSegmenter(configuration);
+			// 同一实例交替切分长短文本，复用的分词器不残留上一篇文档的状态
+			for (long seed = 1; seed <= 4; seed++) {
+				assertSameAsSerial(TestTexts.mixed(seed, seed % 2 == 0 ? 3000 : 100000), configuration, segmenter);
+			}
+		}
+		assertTrue(tasks.get() > 0);
+	}
+}
@@ -0,0 +1,131 @@
+package org.wltea.analyzer.core;
+
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+import org.wltea.analyzer.lucene.IKTokenizer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 经短文本缓存输出的词元流，无论是否命中，都与不使用缓存的分词器完全一致，包括end()之后的最终位移
+ */
+public class QueryCacheTests {
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	@After
+	public void resetShared() {
+		QueryCache.setShared(null);
+	}
+
+	private static List<String> tokenize(String text, QueryCache cache, boolean useSmart) throws IOException {
+		QueryCache.setShared(cache);
+		List<String> tokens = new ArrayList<String>();
+		try (IKTokenizer tokenizer = new IKTokenizer(new TestConfiguration(useSmart))) {
+			CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+			OffsetAttribute offsetAtt = tokenizer.getAttribute(OffsetAttribute.class);
+			TypeAttribute typeAtt = tokenizer.getAttribute(TypeAttribute.class);
+			PositionIncrementAttribute posIncrAtt = tokenizer.getAttribute(PositionIncrementAttribute.class);
+			tokenizer.setReader(new StringReader(text));
+			tokenizer.reset();
+			while (tokenizer.incrementToken()) {
+				tokens.add(offsetAtt.startOffset() + "-" + offsetAtt.endOffset() + ":" + termAtt + "/" + typeAtt.type()
+						+ "+" + posIncrAtt.getPositionIncrement());
+			}
+			tokenizer.end();
+			tokens.add("end:" + offsetAtt.endOffset());
+		}
+		return tokens;
+	}
+
+	private static List<String> uncached(String text, boolean useSmart) throws IOException {
+		return tokenize(text, new QueryCache(0, 0), useSmart);
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		QueryCache cache = new QueryCache(64, QueryCache.DEFAULT_MAX_LENGTH);
+		for (boolean useSmart : new boolean[]{true, false}) {
+			for (String text : new String[]{"中华人民共和国成立", "iPhone 15 Pro的价格 ", "哈佛大学，", "  "}) {
+				List<String> expected = uncached(text, useSmart);
+				assertEquals(text, expected, tokenize(text, cache, useSmart));
+				assertEquals(text, expected, tokenize(text, cache, useSmart));
+			}
+		}
+	}
+
+	@Test
+	public void testHitAndMissCounts() throws IOException {
+		QueryCache cache = new QueryCache(64, 8);
+		tokenize("北京大学", cache, true);
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		tokenize("北京大学", cache, true);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		// 分词模式不同，键不同
+		tokenize("北京大学", cache, false);
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		// 超过长度上限的文本不查找缓存
+		List<String> expected = uncached("北京大学的研究人员", true);
+		assertEquals(expected, tokenize("北京大学的研究人员", cache, true));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testKeyNormalization() throws IOException {
+		QueryCache cache = new QueryCache(64, QueryCache.DEFAULT_MAX_LENGTH);
+		tokenize("hello world 北京2024", cache, false);
+		assertEquals(1, cache.getMisses());
+		// 大写及全角字符规格化后与已缓存的文本相同
+		for (String text : new String[]{"HELLO World 北京2024", "ｈｅｌｌｏ　ｗｏｒｌｄ 北京２０２４"}) {
+			long hits = cache.getHits();
+			assertEquals(text, uncached(text, false), tokenize(text, cache, false));
+			assertEquals(text, hits + 1, cache.getHits());
+		}
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testVersionBumpDropsEntries() throws IOException {
+		String word = "研究人员发表";
+		String text = "研究人员发表了论文";
+		QueryCache cache = new QueryCache(64, QueryCache.DEFAULT_MAX_LENGTH);
+		List<String> before = tokenize(text, cache, false);
+		assertEquals(before, tokenize(text, cache, false));
+		assertEquals(1, cache.getHits());
+
+		Dictionary.getSingleton().addWords(Collections.singletonList(word));
+		try {
+			List<String> expected = uncached(text, false);
+			assertTrue(expected.toString(), expected.contains("0-6:" + word + "/CN_WORD+1"));
+			long misses = cache.getMisses();
+			assertEquals(expected, tokenize(text, cache, false));
+			assertEquals(misses + 1, cache.getMisses());
+			assertEquals(1, cache.getHits());
+		} finally {
+			Dictionary.getSingleton().disableWords(Collections.singletonList(word));
+		}
+		assertEquals(before, tokenize(text, cache, false));
+	}
+}
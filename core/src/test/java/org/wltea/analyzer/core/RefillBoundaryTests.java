@@ -0,0 +1,106 @@
+package org.wltea.analyzer.core;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 缓冲区换段不能改变分词结果：Reader输入分多段分析的结果，与不换段（文本短于缓冲区）分析同一区间的结果一致
+ */
+public class RefillBoundaryTests {
+
+	//比较区间的长度，参考分词的区间在其前后各多取一段，避开区间边界对分词的影响
+	private static final int STRIDE = 1000;
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	/**
+	 * 每次只读入随机长度字符的Reader
+	 */
+	private static final class ChunkedReader extends Reader {
+		private final String text;
+		private final Random random;
+		private int position;
+
+		ChunkedReader(String text, long seed) {
+			this.text = text;
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if (position >= text.length()) {
+				return -1;
+			}
+			int n = Math.min(Math.min(length, 1 + random.nextInt(700)), text.length() - position);
+			text.getChars(position, position + n, buffer, offset);
+			position += n;
+			return n;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private static List<String> tokens(IKSegmenter segmenter, int base, int from, int to) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		Lexeme lexeme;
+		while ((lexeme = segmenter.next()) != null) {
+			int begin = base + lexeme.getBeginPosition();
+			if (begin >= from && begin < to) {
+				tokens.add(begin + ":" + lexeme.getLexemeText() + ":" + lexeme.getLexemeTypeString());
+			}
+		}
+		return tokens;
+	}
+
+	private static void assertSameAsSingleWindow(String text, boolean useSmart, long seed) throws IOException {
+		TestConfiguration configuration = new TestConfiguration(useSmart);
+		assertTrue(text.length() > 20 * AnalyzeContext.BUFF_SIZE);
+		List<String> streamed = tokens(new IKSegmenter(new ChunkedReader(text, seed), configuration), 0, 0, text.length());
+		List<String> windowed = new ArrayList<String>();
+		for (int from = 0; from < text.length(); from += STRIDE) {
+			int start = Math.max(0, from - STRIDE);
+			int end = Math.min(text.length(), from + 2 * STRIDE);
+			IKSegmenter segmenter = new IKSegmenter(text.substring(start, end), configuration);
+			windowed.addAll(tokens(segmenter, start, from, from + STRIDE));
+		}
+		assertEquals(windowed.size(), streamed.size());
+		for (int i = 0; i < streamed.size(); i++) {
+			assertEquals("token " + i, windowed.get(i), streamed.get(i));
+		}
+	}
+
+	@Test
+	public void testMixedText() throws IOException {
+		for (long seed = 1; seed <= 3; seed++) {
+			String text = TestTexts.mixed(seed, 30 * AnalyzeContext.BUFF_SIZE);
+			assertSameAsSingleWindow(text, true, seed);
+			assertSameAsSingleWindow(text, false, seed);
+		}
+	}
+
+	@Test
+	public void testTextWithoutPunctuation() throws IOException {
+		for (long seed = 11; seed <= 13; seed++) {
+			String text = TestTexts.chinese(seed, 30 * AnalyzeContext.BUFF_SIZE);
+			assertSameAsSingleWindow(text, true, seed);
+			assertSameAsSingleWindow(text, false, seed);
+		}
+	}
+}
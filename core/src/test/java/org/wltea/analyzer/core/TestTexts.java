@@ -0,0 +1,85 @@
+package org.wltea.analyzer.core;
+
+import org.wltea.analyzer.cfg.TestConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 生成测试用的中英文、数字、标点混排长文本，同一seed生成的文本相同
+ */
+public final class TestTexts {
+
+	private static final String[] SENTENCES = {
+			"中华人民共和国成立于1949年10月1日，首都北京。",
+			"哈佛大学的研究人员发表了一篇关于人工智能的论文。",
+			"美国总统在白宫发表讲话，讨论了经济和就业问题。",
+			"IK Analyzer是一个开源的，基于java语言开发的轻量级的中文分词工具包。",
+			"他说：“我们明天去颐和园玩吧！”大家都很高兴。",
+			"iPhone 15 Pro的价格是7999元，比去年贵了5%。",
+			"云原生数据库和分布式存储系统正在改变企业的IT架构",
+			"张三、李四和王五一起去了上海浦东新区的陆家嘴金融中心",
+	};
+
+	private static List<String> words;
+
+	private TestTexts() {
+	}
+
+	private static synchronized List<String> words() throws IOException {
+		if (words == null) {
+			List<String> all = Files.readAllLines(TestConfiguration.confDir().resolve("main.dic"), StandardCharsets.UTF_8);
+			words = new ArrayList<String>();
+			for (int i = 0; i < all.size(); i += 37) {
+				String word = all.get(i).trim();
+				if (!word.isEmpty()) {
+					words.add(word);
+				}
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * 生成至少length个字符、只由词典词条组成的中文文本，没有标点
+	 */
+	public static String chinese(long seed, int length) throws IOException {
+		Random random = new Random(seed);
+		List<String> words = words();
+		StringBuilder sb = new StringBuilder(length + 64);
+		while (sb.length() < length) {
+			sb.append(words.get(random.nextInt(words.size())));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 生成至少length个字符的文本
+	 */
+	public static String mixed(long seed, int length) throws IOException {
+		Random random = new Random(seed);
+		List<String> words = words();
+		StringBuilder sb = new StringBuilder(length + 64);
+		while (sb.length() < length) {
+			int r = random.nextInt(100);
+			if (r < 15) {
+				sb.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+			} else if (r < 80) {
+				sb.append(words.get(random.nextInt(words.size())));
+			} else if (r < 88) {
+				sb.append("，。！？、；：".charAt(random.nextInt(7)));
+			} else if (r < 93) {
+				sb.append(' ').append(Integer.toString(random.nextInt(100000))).append(' ');
+			} else if (r < 97) {
+				sb.append(" hello-world v2.0 ");
+			} else {
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,97 @@
+package org.wltea.analyzer.dic;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 词条变更按变更前后的大小计入词典内存，超过上限时拒绝变更且词典不变
+ */
+public class DictMemoryTests {
+
+	/**
+	 * 记录已计入的字节数，超过limit时拒绝申请
+	 */
+	private static class CountingBreaker implements DictMemoryBreaker {
+		private final long limit;
+		private long used;
+
+		CountingBreaker(long limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public boolean tryAdd(long bytes, String label) {
+			if (used + bytes > limit) {
+				return false;
+			}
+			used += bytes;
+			return true;
+		}
+
+		@Override
+		public void add(long bytes) {
+			used += bytes;
+		}
+	}
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	@After
+	public void resetBreaker() {
+		Dictionary.setMemoryBreaker(null);
+	}
+
+	private static boolean inMainDict(String word) {
+		return Dictionary.getSingleton().matchInMainDict(word.toCharArray()).isMatch();
+	}
+
+	private static long accounted() {
+		return ((Number) Dictionary.getSingleton().getStatus().get("accounted_heap_bytes")).longValue();
+	}
+
+	@Test
+	public void testRefusedUpdateLeavesDictUnchanged() throws IOException {
+		String word = "甲乙丙丁戊己庚辛壬癸子丑";
+		CountingBreaker breaker = new CountingBreaker(0);
+		Dictionary.setMemoryBreaker(breaker);
+		try {
+			Dictionary.getSingleton().updateWords(Dictionary.LIVE_DICT_MAIN, Collections.singletonList(word), true, false);
+			fail("update should be refused");
+		} catch (IllegalStateException e) {
+			// 预期
+		}
+		assertFalse(inMainDict(word));
+		assertEquals(0, breaker.used);
+	}
+
+	@Test
+	public void testUpdateIsAccounted() throws IOException {
+		String word = "寅卯辰巳午未申酉戌亥";
+		CountingBreaker breaker = new CountingBreaker(Long.MAX_VALUE);
+		Dictionary.setMemoryBreaker(breaker);
+		long before = accounted();
+		Dictionary.getSingleton().updateWords(Dictionary.LIVE_DICT_MAIN, Collections.singletonList(word), true, false);
+		assertTrue(inMainDict(word));
+		long added = accounted() - before;
+		assertTrue(added > 0);
+		assertEquals(added, breaker.used);
+
+		Dictionary.getSingleton().updateWords(Dictionary.LIVE_DICT_MAIN, Collections.singletonList(word), false, false);
+		assertFalse(inMainDict(word));
+		assertEquals(before, accounted());
+		assertEquals(0, breaker.used);
+	}
+}
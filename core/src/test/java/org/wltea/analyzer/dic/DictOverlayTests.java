@@ -0,0 +1,109 @@
+package org.wltea.analyzer.dic;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 索引级扩展词典在索引释放或使用者不再可达后卸载，不能经由符号链接读取配置目录之外的文件
+ */
+public class DictOverlayTests {
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static int overlayCount(String file) {
+		int count = 0;
+		for (Object status : DictOverlay.getStatus()) {
+			List<?> files = (List<?>) ((Map<?, ?>) status).get("ext_dict_files");
+			for (Object f : files) {
+				if (f.toString().endsWith(file)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private static DictOverlay acquire(Object user, String index, String file) {
+		return Dictionary.getSingleton().acquireOverlay(user, index, Collections.singletonList(file),
+				Collections.<String>emptyList());
+	}
+
+	@Test
+	public void testReleaseByIndex() {
+		Object user = new Object();
+		DictOverlay overlay = acquire(user, "index-a", "surname.dic");
+		assertSame(overlay, acquire(new Object(), "index-a", "surname.dic"));
+		assertEquals(1, overlayCount("surname.dic"));
+		Dictionary.releaseOverlays("index-a");
+		assertEquals(0, overlayCount("surname.dic"));
+	}
+
+	@Test
+	public void testReleaseUnreachableUser() throws InterruptedException {
+		assertNotNull(acquire(new Object(), "_na_", "suffix.dic"));
+		assertEquals(1, overlayCount("suffix.dic"));
+		for (int i = 0; i < 100 && overlayCount("suffix.dic") > 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertEquals(0, overlayCount("suffix.dic"));
+	}
+
+	@Test
+	public void testSweepThreadIsDaemon() {
+		Object user = new Object();
+		assertNotNull(acquire(user, "index-c", "preposition.dic"));
+		try {
+			for (Thread thread : Thread.getAllStackTraces().keySet()) {
+				// 除运行测试的线程外，不应留下阻止JVM退出的线程
+				assertFalse(thread.getName(), thread != Thread.currentThread() && thread.isAlive() && !thread.isDaemon()
+						&& !"DestroyJavaVM".equals(thread.getName()));
+			}
+		} finally {
+			Dictionary.releaseOverlays("index-c");
+		}
+	}
+
+	@Test
+	public void testSymlinkOutsideConfDir() throws IOException {
+		Path outside = Files.createTempFile("ik-overlay", ".dic");
+		Path link = TestConfiguration.confDir().resolve("overlay-link-" + System.nanoTime() + ".dic");
+		try {
+			Files.write(outside, Collections.singletonList("配置目录之外"), StandardCharsets.UTF_8);
+			try {
+				Files.createSymbolicLink(link, outside);
+			} catch (UnsupportedOperationException | IOException e) {
+				// 不支持符号链接的文件系统
+				return;
+			}
+			try {
+				acquire(new Object(), "index-b", link.getFileName().toString());
+				fail("symlink outside the config dir should be rejected");
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("must be inside"));
+			}
+		} finally {
+			Files.deleteIfExists(link);
+			Files.deleteIfExists(outside);
+		}
+	}
+}
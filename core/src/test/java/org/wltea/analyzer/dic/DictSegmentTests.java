@@ -0,0 +1,178 @@
+package org.wltea.analyzer.dic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 屏蔽词条后不再有词的分枝从词典树中移除，重新加入后恢复原状；移除期间的并发匹配不受影响
+ */
+public class DictSegmentTests {
+
+	private static DictSegment build(String... words) {
+		DictSegment root = new DictSegment((char) 0);
+		for (String word : words) {
+			root.fillSegment(word.toCharArray());
+		}
+		return root;
+	}
+
+	private static long[] stats(DictSegment root) {
+		long[] stats = new long[3];
+		root.collectStats(stats);
+		return stats;
+	}
+
+	private static void assertCounts(DictSegment root, long nodes, long words) {
+		long[] stats = stats(root);
+		assertEquals("nodes", nodes, stats[0]);
+		assertEquals("words", words, stats[1]);
+	}
+
+	@Test
+	public void testNodeCountsAfterDisableAndReAdd() {
+		String[] words = {"ab", "abc", "abd", "xyz"};
+		DictSegment root = build(words);
+		// 根节点及a、b、c、d、x、y、z
+		assertCounts(root, 8, 4);
+
+		root.disableSegment("xyz".toCharArray());
+		assertCounts(root, 5, 3);
+		root.disableSegment("abc".toCharArray());
+		assertCounts(root, 4, 2);
+		// b仍是abd的前缀，节点保留
+		root.disableSegment("ab".toCharArray());
+		assertCounts(root, 4, 1);
+		// 屏蔽不存在的词不改变词典树
+		root.disableSegment("abe".toCharArray());
+		root.disableSegment("q".toCharArray());
+		assertCounts(root, 4, 1);
+		root.disableSegment("abd".toCharArray());
+		assertCounts(root, 1, 0);
+		assertFalse(root.hasNextNode());
+
+		for (String word : words) {
+			root.fillSegment(word.toCharArray());
+		}
+		assertCounts(root, 8, 4);
+		for (String word : words) {
+			assertTrue(word, root.match(word.toCharArray()).isMatch());
+		}
+	}
+
+	@Test
+	public void testEmptiedBranchesArePruned() {
+		DictSegment root = build("ab", "abc", "abd");
+		Hit hit = root.match("ab".toCharArray());
+		assertTrue(hit.isMatch());
+		assertTrue(hit.isPrefix());
+
+		root.disableSegment("abc".toCharArray());
+		root.disableSegment("abd".toCharArray());
+		// b下已没有词，不再是前缀
+		hit = root.match("ab".toCharArray());
+		assertTrue(hit.isMatch());
+		assertFalse(hit.isPrefix());
+		assertNull(hit.getMatchedDictSegment());
+		assertTrue(root.match("abc".toCharArray()).isUnmatch());
+
+		root.disableSegment("ab".toCharArray());
+		assertTrue(root.match("a".toCharArray()).isUnmatch());
+		assertFalse(root.hasNextNode());
+	}
+
+	@Test
+	public void testPruneAcrossArrayAndMapStorage() {
+		// 同一前缀下的子节点超过数组容量时改用Map存储，移除到数组容量以内时切换回数组
+		List<String> words = new ArrayList<String>();
+		for (char c = 'a'; c <= 'z'; c++) {
+			words.add("前" + c);
+		}
+		DictSegment root = build(words.toArray(new String[0]));
+		assertCounts(root, 28, 26);
+		for (int i = words.size() - 1; i >= 0; i--) {
+			root.disableSegment(words.get(i).toCharArray());
+			assertCounts(root, i == 0 ? 1 : i + 2, i);
+			for (int j = 0; j < i; j++) {
+				assertTrue(words.get(j), root.match(words.get(j).toCharArray()).isMatch());
+			}
+			assertTrue(root.match(words.get(i).toCharArray()).isUnmatch());
+		}
+		assertFalse(root.hasNextNode());
+
+		for (String word : words) {
+			root.fillSegment(word.toCharArray());
+		}
+		assertCounts(root, 28, 26);
+	}
+
+	@Test
+	public void testConcurrentMatchWhileRemoving() throws InterruptedException {
+		// 变动的词与保留的词共享前缀，变动的子节点数跨越数组与Map存储的界限
+		List<String> changing = new ArrayList<String>();
+		for (char c = 'a'; c <= 'j'; c++) {
+			changing.add("共" + c);
+			changing.add("共同" + c);
+		}
+		String[] stable = {"共", "共同", "共同体", "共k"};
+		List<String> all = new ArrayList<String>(changing);
+		for (String word : stable) {
+			all.add(word);
+		}
+		DictSegment root = build(all.toArray(new String[0]));
+
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> readers = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			Thread reader = new Thread(() -> {
+				try {
+					while (!done.get()) {
+						for (String word : stable) {
+							if (!root.match(word.toCharArray()).isMatch()) {
+								throw new AssertionError(word + " should stay in the dictionary");
+							}
+						}
+						for (String word : changing) {
+							Hit hit = root.match(word.toCharArray());
+							if (hit.isPrefix() && hit.getMatchedDictSegment() == null) {
+								throw new AssertionError(word + " prefix hit without a segment");
+							}
+						}
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			reader.start();
+			readers.add(reader);
+		}
+		try {
+			for (int round = 0; round < 2000 && failure.get() == null; round++) {
+				for (String word : changing) {
+					root.disableSegment(word.toCharArray());
+				}
+				for (String word : changing) {
+					root.fillSegment(word.toCharArray());
+				}
+			}
+		} finally {
+			done.set(true);
+			for (Thread reader : readers) {
+				reader.join();
+			}
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		assertCounts(root, stats(build(all.toArray(new String[0])))[0], all.size());
+	}
+}
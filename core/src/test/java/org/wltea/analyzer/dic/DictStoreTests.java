@@ -0,0 +1,148 @@
+package org.wltea.analyzer.dic;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 集群词典库的变更按序号及变更链摘要应用：序号不连续时拒绝，摘要不一致时撤销已应用的变更并从序号1重新应用
+ * 词典库以列表模拟，写入与拉取的步骤与宿主的IkDictStore相同
+ */
+public class DictStoreTests {
+
+	private static final class Change {
+		final long seq;
+		final String dict;
+		final boolean add;
+		final List<String> words;
+		final String digest;
+
+		Change(long seq, String dict, boolean add, List<String> words, String digest) {
+			this.seq = seq;
+			this.dict = dict;
+			this.add = add;
+			this.words = words;
+			this.digest = digest;
+		}
+	}
+
+	private final List<Change> store = new ArrayList<Change>();
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	@Before
+	public void resetStore() {
+		assertTrue(Dictionary.getSingleton().resetStore());
+	}
+
+	/**
+	 * 从最后一条变更接续序号及摘要写入
+	 */
+	private Change write(String dict, boolean add, String word) {
+		String previous = store.isEmpty() ? "" : store.get(store.size() - 1).digest;
+		List<String> words = Collections.singletonList(word);
+		Change change = new Change(store.size() + 1, dict, add, words, Dictionary.storeDigest(previous, dict, add, words));
+		store.add(change);
+		return change;
+	}
+
+	/**
+	 * 应用已应用序号之后的变更，摘要与记录的不符时停止
+	 * @return 是否全部应用且摘要与最后一条变更一致
+	 */
+	private boolean pull() {
+		Dictionary dictionary = Dictionary.getSingleton();
+		for (Change change : store.subList((int) dictionary.getStoreVersion(), store.size())) {
+			String digest = Dictionary.storeDigest(dictionary.getStoreDigest(), change.dict, change.add, change.words);
+			if (!digest.equals(change.digest)) {
+				return false;
+			}
+			assertTrue(dictionary.applyStoreChange(change.seq, digest, change.dict, change.words, change.add));
+		}
+		return store.isEmpty() || store.get(store.size() - 1).digest.equals(dictionary.getStoreDigest());
+	}
+
+	private static boolean inMainDict(String word) {
+		return Dictionary.getSingleton().matchInMainDict(word.toCharArray()).isMatch();
+	}
+
+	@Test
+	public void testPullAppliesInOrder() {
+		write(Dictionary.LIVE_DICT_MAIN, true, "天地玄黄宇宙洪荒");
+		write(Dictionary.LIVE_DICT_MAIN, true, "日月盈昃辰宿列张");
+		assertTrue(pull());
+		assertEquals(2, Dictionary.getSingleton().getStoreVersion());
+		assertTrue(inMainDict("天地玄黄宇宙洪荒"));
+
+		write(Dictionary.LIVE_DICT_MAIN, false, "天地玄黄宇宙洪荒");
+		assertTrue(pull());
+		assertEquals(3, Dictionary.getSingleton().getStoreVersion());
+		assertEquals(store.get(2).digest, Dictionary.getSingleton().getStoreDigest());
+		assertFalse(inMainDict("天地玄黄宇宙洪荒"));
+		assertTrue(inMainDict("日月盈昃辰宿列张"));
+	}
+
+	@Test
+	public void testOutOfOrderRejected() {
+		Change first = write(Dictionary.LIVE_DICT_MAIN, true, "寒来暑往秋收冬藏");
+		write(Dictionary.LIVE_DICT_MAIN, true, "闰余成岁律吕调阳");
+		Change third = write(Dictionary.LIVE_DICT_MAIN, true, "云腾致雨露结为霜");
+		Dictionary dictionary = Dictionary.getSingleton();
+		assertTrue(dictionary.applyStoreChange(first.seq, first.digest, first.dict, first.words, first.add));
+
+		// 跳过序号
+		assertFalse(dictionary.applyStoreChange(third.seq, third.digest, third.dict, third.words, third.add));
+		// 重复序号
+		assertFalse(dictionary.applyStoreChange(first.seq, first.digest, first.dict, first.words, first.add));
+		assertEquals(1, dictionary.getStoreVersion());
+		assertEquals(first.digest, dictionary.getStoreDigest());
+		assertFalse(inMainDict("云腾致雨露结为霜"));
+
+		assertTrue(pull());
+		assertTrue(inMainDict("云腾致雨露结为霜"));
+	}
+
+	@Test
+	public void testDigestMismatchResyncs() throws IOException {
+		Dictionary dictionary = Dictionary.getSingleton();
+		dictionary.updateWords(Dictionary.LIVE_DICT_MAIN, Collections.singletonList("金生丽水玉出昆冈"), true, false);
+		write(Dictionary.LIVE_DICT_MAIN, true, "剑号巨阙珠称夜光");
+		write(Dictionary.LIVE_DICT_MAIN, true, "果珍李柰菜重芥姜");
+		assertTrue(pull());
+
+		// 词典库中的变更链被替换，本地已应用的第二条变更不再属于变更链
+		store.remove(1);
+		write(Dictionary.LIVE_DICT_MAIN, true, "海咸河淡鳞潜羽翔");
+		write(Dictionary.LIVE_DICT_MAIN, true, "龙师火帝鸟官人皇");
+		assertFalse(pull());
+		assertEquals(2, dictionary.getStoreVersion());
+
+		assertTrue(dictionary.resetStore());
+		assertEquals(0, dictionary.getStoreVersion());
+		assertEquals("", dictionary.getStoreDigest());
+		assertFalse(inMainDict("剑号巨阙珠称夜光"));
+		assertFalse(inMainDict("果珍李柰菜重芥姜"));
+		// updateWords()的变更不属于词典库，保留
+		assertTrue(inMainDict("金生丽水玉出昆冈"));
+
+		assertTrue(pull());
+		assertEquals(3, dictionary.getStoreVersion());
+		assertTrue(inMainDict("剑号巨阙珠称夜光"));
+		assertFalse(inMainDict("果珍李柰菜重芥姜"));
+		assertTrue(inMainDict("海咸河淡鳞潜羽翔"));
+		assertTrue(inMainDict("龙师火帝鸟官人皇"));
+	}
+}
@@ -0,0 +1,81 @@
+package org.wltea.analyzer.dic;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 首字索引给出的单字匹配结果与直接检索词典的结果一致，屏蔽及重新加入词条后同样一致
+ */
+public class FirstCharIndexTests {
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	/**
+	 * 逐一比较全部字符经首字索引的匹配结果与直接检索的结果
+	 */
+	private static void assertIndexAgrees() {
+		Dictionary dictionary = Dictionary.getSingleton();
+		char[] single = new char[1];
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			single[0] = (char) c;
+			Hit indexed = dictionary.matchInMainDict(single, 0, 1);
+			Hit raw = dictionary.matchInMainDict(single);
+			String message = "U+" + Integer.toHexString(c);
+			assertEquals(message, raw.isMatch(), indexed.isMatch());
+			assertEquals(message, raw.isPrefix(), indexed.isPrefix());
+			assertEquals(message, raw.isUnmatch(), indexed.isUnmatch());
+		}
+	}
+
+	private static List<String> mainDictWords() throws IOException {
+		List<String> words = new ArrayList<String>();
+		for (String line : Files.readAllLines(TestConfiguration.confDir().resolve("main.dic"), StandardCharsets.UTF_8)) {
+			String word = line.trim();
+			if (!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+
+	@Test
+	public void testAgreesAfterDisableAndReAdd() throws IOException {
+		List<String> all = mainDictWords();
+		// 抽样的词条，以及以同一个字开头的全部词条，使该字的分枝被整个移除
+		char first = all.get(all.size() / 2).charAt(0);
+		List<String> words = new ArrayList<String>();
+		for (int i = 0; i < all.size(); i++) {
+			String word = all.get(i);
+			if (i % 97 == 0 || word.charAt(0) == first) {
+				words.add(word);
+			}
+		}
+		char[] single = {first};
+		assertIndexAgrees();
+		assertTrue(Dictionary.getSingleton().matchInMainDict(single).isPrefix());
+
+		Dictionary.getSingleton().disableWords(words);
+		try {
+			assertIndexAgrees();
+			assertFalse(Dictionary.getSingleton().matchInMainDict(single, 0, 1).isPrefix());
+		} finally {
+			Dictionary.getSingleton().addWords(words);
+		}
+		assertIndexAgrees();
+		assertTrue(Dictionary.getSingleton().matchInMainDict(single, 0, 1).isPrefix());
+	}
+}
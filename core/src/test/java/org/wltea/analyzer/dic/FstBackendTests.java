@@ -0,0 +1,67 @@
+package org.wltea.analyzer.dic;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.core.IKSegmenter;
+import org.wltea.analyzer.core.Lexeme;
+import org.wltea.analyzer.core.TestTexts;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * dict_backend为trie和fst时分词结果完全一致
+ */
+public class FstBackendTests {
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static List<String> texts() throws IOException {
+		List<String> texts = new ArrayList<String>();
+		for (long seed = 1; seed <= 8; seed++) {
+			texts.add(TestTexts.mixed(seed, 5000));
+			texts.add(TestTexts.chinese(seed, 5000));
+		}
+		return texts;
+	}
+
+	private static List<String> segment(List<String> texts, boolean useSmart) throws IOException {
+		TestConfiguration configuration = new TestConfiguration(useSmart);
+		List<String> tokens = new ArrayList<String>();
+		for (String text : texts) {
+			IKSegmenter segmenter = new IKSegmenter(text, configuration);
+			Lexeme lexeme;
+			while ((lexeme = segmenter.next()) != null) {
+				tokens.add(lexeme.getBeginPosition() + "-" + lexeme.getEndPosition() + ":" + lexeme.getLexemeText() + "/"
+						+ lexeme.getLexemeTypeString());
+			}
+			tokens.add("|");
+		}
+		return tokens;
+	}
+
+	@Test
+	public void testSameTokens() throws IOException {
+		Dictionary dictionary = Dictionary.getSingleton();
+		List<String> texts = texts();
+		boolean fst = "fst".equals(dictionary.getStatus().get("dict_backend"));
+		List<String> maxWord = segment(texts, false);
+		List<String> smart = segment(texts, true);
+		dictionary.switchBackend();
+		try {
+			assertEquals(!fst ? "fst" : "trie", dictionary.getStatus().get("dict_backend"));
+			assertEquals(maxWord, segment(texts, false));
+			assertEquals(smart, segment(texts, true));
+		} finally {
+			dictionary.switchBackend();
+		}
+		assertEquals(maxWord, segment(texts, false));
+	}
+}
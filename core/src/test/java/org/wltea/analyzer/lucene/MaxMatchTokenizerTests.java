@@ -0,0 +1,89 @@
+package org.wltea.analyzer.lucene;
+
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.core.Lexeme;
+import org.wltea.analyzer.core.LexemeBatch;
+import org.wltea.analyzer.core.MaxMatchSegmenter;
+import org.wltea.analyzer.core.TestTexts;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 最大匹配模式分段读入的分词结果，与整篇分词的结果一致
+ */
+public class MaxMatchTokenizerTests {
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static List<String> tokenize(String text, TestConfiguration configuration) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		try (IKTokenizer tokenizer = new IKTokenizer(configuration)) {
+			CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+			OffsetAttribute offsetAtt = tokenizer.getAttribute(OffsetAttribute.class);
+			TypeAttribute typeAtt = tokenizer.getAttribute(TypeAttribute.class);
+			tokenizer.setReader(new StringReader(text));
+			tokenizer.reset();
+			while (tokenizer.incrementToken()) {
+				tokens.add(offsetAtt.startOffset() + ":" + termAtt + ":" + typeAtt.type());
+			}
+			tokenizer.end();
+			tokens.add("end:" + offsetAtt.endOffset());
+		}
+		return tokens;
+	}
+
+	private static List<String> segment(String text, TestConfiguration configuration, int maxTokenCount) {
+		char[] chars = text.toCharArray();
+		LexemeBatch batch = new LexemeBatch();
+		new MaxMatchSegmenter(configuration).segment(chars, 0, chars.length, batch);
+		List<String> tokens = new ArrayList<String>();
+		int count = maxTokenCount > 0 ? Math.min(maxTokenCount, batch.size()) : batch.size();
+		for (int i = 0; i < count; i++) {
+			tokens.add(batch.getBegin(i) + ":" + batch.getLexemeText(i) + ":" + Lexeme.getLexemeTypeString(batch.getType(i)));
+		}
+		int end = count < batch.size() ? chars.length : batch.getEnd(batch.size() - 1) + batch.getLastUselessCharNum(0);
+		tokens.add("end:" + end);
+		return tokens;
+	}
+
+	@Test
+	public void testWindowsMatchWholeText() throws IOException {
+		for (boolean bidirectional : new boolean[]{false, true}) {
+			TestConfiguration configuration = new TestConfiguration(false).setMaxMatch(bidirectional);
+			for (long seed = 1; seed <= 3; seed++) {
+				String text = TestTexts.mixed(seed, 100000);
+				assertEquals(segment(text, configuration, 0), tokenize(text, configuration));
+			}
+		}
+	}
+
+	@Test
+	public void testMaxTokenCountAcrossWindows() throws IOException {
+		TestConfiguration configuration = new TestConfiguration(false).setMaxMatch(false).setLimits(20000, 0);
+		String text = TestTexts.mixed(5, 100000);
+		assertEquals(segment(text, configuration, 20000), tokenize(text, configuration));
+	}
+
+	@Test
+	public void testMaxCharsAcrossWindows() throws IOException {
+		TestConfiguration configuration = new TestConfiguration(false).setMaxMatch(false).setLimits(0, 40000);
+		String text = TestTexts.mixed(6, 100000);
+		List<String> expected = segment(text.substring(0, 40000), configuration, 0);
+		expected.set(expected.size() - 1, "end:" + text.length());
+		assertEquals(expected, tokenize(text, configuration));
+	}
+}
@@ -0,0 +1,79 @@
+package org.wltea.analyzer.lucene;
+
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.cfg.TestConfiguration;
+import org.wltea.analyzer.core.IKSegmenter;
+import org.wltea.analyzer.core.Lexeme;
+import org.wltea.analyzer.core.SegmenterStats;
+import org.wltea.analyzer.core.TestTexts;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 限制词元数时，各分词模式达到上限即停止分析
+ */
+public class TokenLimitTests {
+
+	private static final int MAX_TOKEN_COUNT = 100;
+
+	@BeforeClass
+	public static void initDictionary() {
+		Dictionary.initial(new TestConfiguration(false));
+	}
+
+	private static List<String> tokenize(String text, TestConfiguration configuration) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		try (IKTokenizer tokenizer = new IKTokenizer(configuration)) {
+			CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+			OffsetAttribute offsetAtt = tokenizer.getAttribute(OffsetAttribute.class);
+			tokenizer.setReader(new StringReader(text));
+			tokenizer.reset();
+			while (tokenizer.incrementToken()) {
+				tokens.add(offsetAtt.startOffset() + ":" + termAtt);
+			}
+			tokenizer.end();
+			tokens.add("end:" + offsetAtt.endOffset());
+		}
+		return tokens;
+	}
+
+	private static List<String> firstTokens(String text, boolean useSmart) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		IKSegmenter segmenter = new IKSegmenter(text, new TestConfiguration(useSmart));
+		Lexeme lexeme;
+		while (tokens.size() < MAX_TOKEN_COUNT && (lexeme = segmenter.next()) != null) {
+			tokens.add(lexeme.getBeginPosition() + ":" + lexeme.getLexemeText());
+		}
+		tokens.add("end:" + text.length());
+		return tokens;
+	}
+
+	private static void assertStopsEarly(String name, TestConfiguration configuration, boolean useSmart) throws IOException {
+		String text = TestTexts.mixed(9, 200000);
+		configuration.setLimits(MAX_TOKEN_COUNT, 0).setAnalyzerName(name);
+		assertEquals(firstTokens(text, useSmart), tokenize(text, configuration));
+		SegmenterStats stats = SegmenterStats.getAll().get(name);
+		assertEquals(1, stats.getDocuments());
+		assertTrue(String.valueOf(stats.getChars()), stats.getChars() < 10000);
+	}
+
+	@Test
+	public void testParallelStopsAtLimit() throws IOException {
+		assertStopsEarly("limit_parallel", new TestConfiguration(false).setParallelThreshold(4096), false);
+	}
+
+	@Test
+	public void testDualModeStopsAtLimit() throws IOException {
+		assertStopsEarly("limit_dual", new TestConfiguration(true).setDualMode(true), true);
+	}
+}
@@ -1,20 +1,79 @@
 package com.infinilabs.ik.elasticsearch;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.client.internal.Client;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.IndexScopedSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.analysis.AnalyzerProvider;
 import org.elasticsearch.index.analysis.TokenizerFactory;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.indices.SystemIndexDescriptor;
 import org.elasticsearch.indices.analysis.AnalysisModule;
+import org.elasticsearch.indices.breaker.BreakerSettings;
+import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.plugins.AnalysisPlugin;
+import org.elasticsearch.plugins.CircuitBreakerPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.SystemIndexPlugin;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestHandler;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.threadpool.ExecutorBuilder;
+import org.elasticsearch.threadpool.FixedExecutorBuilder;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.tracing.Tracer;
+import org.elasticsearch.watcher.ResourceWatcherService;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.wltea.analyzer.dic.Dictionary;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 
-public class AnalysisIkPlugin extends Plugin implements AnalysisPlugin {
+public class AnalysisIkPlugin extends Plugin implements AnalysisPlugin, SystemIndexPlugin, CircuitBreakerPlugin {
 
 	public static String PLUGIN_NAME = "analysis-ik";
 
+    public static final String DICTIONARY_BREAKER = "ik_dictionary";
+
+    /**
+     * 并行分词（parallel_threshold）使用的线程池，可通过thread_pool.ik_analysis.size调整
+     */
+    public static final String ANALYSIS_THREAD_POOL = "ik_analysis";
+
+    private static volatile ExecutorService analysisExecutor;
+    private static volatile int analysisThreads;
+
+    /**
+     * 词典内存上限，包括重新加载期间同时存在的新旧词典
+     */
+    public static final Setting<ByteSizeValue> DICTIONARY_BREAKER_LIMIT =
+            Setting.memorySizeSetting("breaker.ik_dictionary.limit", "20%", Setting.Property.NodeScope);
+
     @Override
     public Map<String, AnalysisModule.AnalysisProvider<TokenizerFactory>> getTokenizers() {
         Map<String, AnalysisModule.AnalysisProvider<TokenizerFactory>> extra = new HashMap<>();
@@ -22,6 +81,8 @@ public class AnalysisIkPlugin extends Plugin implements AnalysisPlugin {
 
         extra.put("ik_smart", IkTokenizerFactory::getIkSmartTokenizerFactory);
         extra.put("ik_max_word", IkTokenizerFactory::getIkTokenizerFactory);
+        extra.put("ik_lean", IkTokenizerFactory::getIkLeanTokenizerFactory);
+        extra.put("ik_smart_mm", IkTokenizerFactory::getIkSmartMaxMatchTokenizerFactory);
 
         return extra;
     }
@@ -32,8 +93,108 @@ public class AnalysisIkPlugin extends Plugin implements AnalysisPlugin {
 
         extra.put("ik_smart", IkAnalyzerProvider::getIkSmartAnalyzerProvider);
         extra.put("ik_max_word", IkAnalyzerProvider::getIkAnalyzerProvider);
+        extra.put("ik_lean", IkAnalyzerProvider::getIkLeanAnalyzerProvider);
+        extra.put("ik_smart_mm", IkAnalyzerProvider::getIkSmartMaxMatchAnalyzerProvider);
 
         return extra;
     }
 
+    @Override
+    public Collection<Object> createComponents(Client client, ClusterService clusterService, ThreadPool threadPool,
+                                               ResourceWatcherService resourceWatcherService, ScriptService scriptService,
+                                               NamedXContentRegistry xContentRegistry, Environment environment,
+                                               NodeEnvironment nodeEnvironment, NamedWriteableRegistry namedWriteableRegistry,
+                                               IndexNameExpressionResolver indexNameExpressionResolver,
+                                               Supplier<RepositoriesService> repositoriesServiceSupplier, Tracer tracer) {
+        analysisThreads = threadPool.info(ANALYSIS_THREAD_POOL).getMax();
+        analysisExecutor = threadPool.executor(ANALYSIS_THREAD_POOL);
+        return Collections.singletonList(new IkDictStore(environment.settings(), client, clusterService, threadPool));
+    }
+
+    @Override
+    public List<ExecutorBuilder<?>> getExecutorBuilders(Settings settings) {
+        int size = EsExecutors.allocatedProcessors(settings);
+        return Collections.singletonList(new FixedExecutorBuilder(settings, ANALYSIS_THREAD_POOL, size, size * 4,
+                "thread_pool." + ANALYSIS_THREAD_POOL, false));
+    }
+
+    /**
+     * 并行分词的线程池，节点启动后可用
+     */
+    static ExecutorService getAnalysisExecutor() {
+        ExecutorService executor = analysisExecutor;
+        if (executor == null) {
+            throw new IllegalStateException("thread pool [" + ANALYSIS_THREAD_POOL + "] is not started");
+        }
+        return executor;
+    }
+
+    /**
+     * 并行分词线程池的线程数
+     */
+    static int getAnalysisThreads() {
+        return analysisThreads;
+    }
+
+    @Override
+    public Collection<SystemIndexDescriptor> getSystemIndexDescriptors(Settings settings) {
+        return Collections.singletonList(new SystemIndexDescriptor(IkDictStore.INDEX + "*", "IK dictionary store"));
+    }
+
+    @Override
+    public String getFeatureName() {
+        return PLUGIN_NAME;
+    }
+
+    @Override
+    public String getFeatureDescription() {
+        return "IK analysis dictionary store";
+    }
+
+    @Override
+    public void onIndexModule(IndexModule indexModule) {
+        // 索引关闭或删除后释放其分词器取得的扩展词典，参见ConfigurationSub
+        indexModule.addIndexEventListener(new IndexEventListener() {
+            @Override
+            public void afterIndexRemoved(Index index, IndexSettings indexSettings,
+                                          IndicesClusterStateService.AllocatedIndices.IndexRemovalReason reason) {
+                Dictionary.releaseOverlays(index.getUUID());
+            }
+        });
+    }
+
+    @Override
+    public List<RestHandler> getRestHandlers(Settings settings, RestController restController, ClusterSettings clusterSettings,
+                                             IndexScopedSettings indexScopedSettings, SettingsFilter settingsFilter,
+                                             IndexNameExpressionResolver indexNameExpressionResolver,
+                                             Supplier<DiscoveryNodes> nodesInCluster) {
+        return Arrays.asList(new RestIkStatsAction(), new RestIkDictStatusAction(), new RestIkDictHitsAction(),
+                new RestIkDictWordsAction(), new RestIkDictStoreAction());
+    }
+
+    @Override
+    public List<Setting<?>> getSettings() {
+        return Arrays.asList(DICTIONARY_BREAKER_LIMIT, IkDictStore.ENABLED, IkDictStore.VERSION, IkDictStore.DIGEST);
+    }
+
+    @Override
+    public BreakerSettings getCircuitBreaker(Settings settings) {
+        return new BreakerSettings(DICTIONARY_BREAKER, DICTIONARY_BREAKER_LIMIT.get(settings).getBytes(), 1.0,
+                CircuitBreaker.Type.MEMORY, CircuitBreaker.Durability.PERMANENT);
+    }
+
+    @Override
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        Dictionary.setMemoryBreaker(new DictCircuitBreaker(circuitBreaker));
+    }
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return Arrays.asList(new ActionHandler<>(IkDictStatusAction.INSTANCE, TransportIkDictStatusAction.class),
+                new ActionHandler<>(IkDictWordsAction.INSTANCE, TransportIkDictWordsAction.class),
+                new ActionHandler<>(IkDictStoreAction.INSTANCE, TransportIkDictStoreAction.class),
+                new ActionHandler<>(IkDictHitsAction.INSTANCE, TransportIkDictHitsAction.class),
+                new ActionHandler<>(IkDictLayoutAction.INSTANCE, TransportIkDictLayoutAction.class));
+    }
+
 }
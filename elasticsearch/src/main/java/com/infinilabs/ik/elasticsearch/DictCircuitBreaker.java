@@ -0,0 +1,31 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.wltea.analyzer.dic.DictMemoryBreaker;
+
+/**
+ * 将词典内存计入插件注册的断路器breaker.ik_dictionary，并受父断路器（节点实际内存）约束
+ */
+public class DictCircuitBreaker implements DictMemoryBreaker {
+    private final CircuitBreaker breaker;
+
+    public DictCircuitBreaker(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    @Override
+    public boolean tryAdd(long bytes, String label) {
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(bytes, label);
+            return true;
+        } catch (CircuitBreakingException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void add(long bytes) {
+        breaker.addWithoutBreaking(bytes);
+    }
+}
@@ -11,11 +11,17 @@ public class IkAnalyzerProvider extends AbstractIndexAnalyzerProvider<IKAnalyzer
     private final IKAnalyzer analyzer;
 
     public IkAnalyzerProvider(IndexSettings indexSettings, Environment env, String name, Settings settings,boolean useSmart) {
-        super(name, settings);
+        this(indexSettings,env,name,settings,useSmart,false);
+    }
 
-        Configuration configuration = new ConfigurationSub(env,settings).setUseSmart(useSmart);
+    public IkAnalyzerProvider(IndexSettings indexSettings, Environment env, String name, Settings settings,boolean useSmart,boolean useLean) {
+        this(indexSettings,name,settings,new ConfigurationSub(env,indexSettings,settings).setUseSmart(useSmart).setUseLean(useLean));
+    }
+
+    private IkAnalyzerProvider(IndexSettings indexSettings, String name, Settings settings,Configuration configuration) {
+        super(name, settings);
 
-        analyzer=new IKAnalyzer(configuration);
+        analyzer=new IKAnalyzer(configuration.setAnalyzerName(name));
     }
 
     public static IkAnalyzerProvider getIkSmartAnalyzerProvider(IndexSettings indexSettings, Environment env, String name, Settings settings) {
@@ -26,6 +32,14 @@ public class IkAnalyzerProvider extends AbstractIndexAnalyzerProvider<IKAnalyzer
         return new IkAnalyzerProvider(indexSettings,env,name,settings,false);
     }
 
+    public static IkAnalyzerProvider getIkLeanAnalyzerProvider(IndexSettings indexSettings, Environment env, String name, Settings settings) {
+        return new IkAnalyzerProvider(indexSettings,env,name,settings,false,true);
+    }
+
+    public static IkAnalyzerProvider getIkSmartMaxMatchAnalyzerProvider(IndexSettings indexSettings, Environment env, String name, Settings settings) {
+        return new IkAnalyzerProvider(indexSettings,name,settings,new ConfigurationSub(env,indexSettings,settings).setUseSmart(true).setUseMaxMatch(true));
+    }
+
     @Override public IKAnalyzer get() {
         return this.analyzer;
     }
@@ -0,0 +1,117 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询各节点的词典状态，参见Dictionary.getStatus()
+ */
+public class IkDictStatusAction extends ActionType<IkDictStatusAction.Response> {
+
+    public static final IkDictStatusAction INSTANCE = new IkDictStatusAction();
+    public static final String NAME = "cluster:monitor/ik/dict/status";
+
+    private IkDictStatusAction() {
+        super(NAME, Response::new);
+    }
+
+    public static class Request extends BaseNodesRequest<Request> {
+
+        public Request(String... nodesIds) {
+            super(nodesIds);
+        }
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+        }
+    }
+
+    public static class NodeRequest extends TransportRequest {
+
+        public NodeRequest() {
+        }
+
+        public NodeRequest(StreamInput in) throws IOException {
+            super(in);
+        }
+    }
+
+    public static class NodeResponse extends BaseNodeResponse {
+        //词典尚未初始化时为null
+        private final Map<String, Object> status;
+
+        public NodeResponse(DiscoveryNode node, Map<String, Object> status) {
+            super(node);
+            this.status = status;
+        }
+
+        @SuppressWarnings("unchecked")
+        public NodeResponse(StreamInput in, DiscoveryNode node) throws IOException {
+            super(in, node);
+            this.status = (Map<String, Object>) in.readGenericValue();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeGenericValue(status);
+        }
+
+        public Map<String, Object> getStatus() {
+            return status;
+        }
+    }
+
+    public static class Response extends BaseNodesResponse<NodeResponse> implements ToXContentFragment {
+
+        public Response(ClusterName clusterName, List<NodeResponse> nodes, List<FailedNodeException> failures) {
+            super(clusterName, nodes, failures);
+        }
+
+        public Response(StreamInput in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected List<NodeResponse> readNodesFrom(StreamInput in) throws IOException {
+            return in.readList(input -> new NodeResponse(input, null));
+        }
+
+        @Override
+        protected void writeNodesTo(StreamOutput out, List<NodeResponse> nodes) throws IOException {
+            out.writeList(nodes);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("nodes");
+            for (NodeResponse node : getNodes()) {
+                builder.startObject(node.getNode().getId());
+                builder.field("name", node.getNode().getName());
+                builder.field("initialized", node.getStatus() != null);
+                if (node.getStatus() != null) {
+                    for (Map.Entry<String, Object> entry : node.getStatus().entrySet()) {
+                        builder.field(entry.getKey(), entry.getValue());
+                    }
+                }
+                builder.endObject();
+            }
+            builder.endObject();
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestActions;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+/**
+ * GET /_ik/dict/status              所有节点的词典状态
+ * GET /_ik/dict/status/{node_id}    指定节点的词典状态，如_local
+ */
+public class RestIkDictStatusAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "ik_dict_status_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return Arrays.asList(new Route(GET, "/_ik/dict/status"), new Route(GET, "/_ik/dict/status/{node_id}"));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) {
+        String[] nodesIds = Strings.splitStringByCommaToArray(request.param("node_id"));
+        IkDictStatusAction.Request statusRequest = new IkDictStatusAction.Request(nodesIds);
+        statusRequest.timeout(request.param("timeout"));
+        return channel -> client.execute(IkDictStatusAction.INSTANCE, statusRequest, new RestActions.NodesResponseRestListener<>(channel));
+    }
+}
@@ -0,0 +1,42 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestToXContentListener;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * POST /_ik/dict/store/_add        向集群词典库写入加入词条的变更
+ * POST /_ik/dict/store/_disable    向集群词典库写入屏蔽词条的变更
+ * 请求体为{"words": ["..."]}，参数dict为main（默认）或stopwords，返回新的词典库序号及变更链摘要，各节点随后拉取变更
+ */
+public class RestIkDictStoreAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "ik_dict_store_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return Arrays.asList(new Route(POST, "/_ik/dict/store/_add"), new Route(POST, "/_ik/dict/store/_disable"));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        String dict = request.param("dict", Dictionary.LIVE_DICT_MAIN);
+        boolean add = request.path().endsWith("/_add");
+        List<String> words = RestIkDictWordsAction.parseWords(request);
+        Dictionary.checkWords(dict, words);
+        IkDictStoreAction.Request storeRequest = new IkDictStoreAction.Request(dict, add, words);
+        storeRequest.masterNodeTimeout(request.paramAsTime("master_timeout", storeRequest.masterNodeTimeout()));
+        return channel -> client.execute(IkDictStoreAction.INSTANCE, storeRequest, new RestToXContentListener<>(channel));
+    }
+}
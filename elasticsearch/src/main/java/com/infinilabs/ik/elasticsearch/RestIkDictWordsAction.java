@@ -0,0 +1,71 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestActions;
+import org.elasticsearch.xcontent.XContentParser;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * POST /_ik/dict/words/_add        在所有节点加入词条
+ * POST /_ik/dict/words/_disable    在所有节点屏蔽词条
+ * 请求体为{"words": ["..."]}，参数dict为main（默认）或stopwords，persist=true时同时追加到各节点配置目录中的live_dict.txt
+ */
+public class RestIkDictWordsAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "ik_dict_words_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return Arrays.asList(new Route(POST, "/_ik/dict/words/_add"), new Route(POST, "/_ik/dict/words/_disable"));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        String dict = request.param("dict", Dictionary.LIVE_DICT_MAIN);
+        if (!dict.equals(Dictionary.LIVE_DICT_MAIN) && !dict.equals(Dictionary.LIVE_DICT_STOPWORDS)) {
+            throw new IllegalArgumentException("dict must be one of [" + Dictionary.LIVE_DICT_MAIN + ", " + Dictionary.LIVE_DICT_STOPWORDS
+                    + "], but was [" + dict + "]");
+        }
+        boolean add = request.path().endsWith("/_add");
+        boolean persist = request.paramAsBoolean("persist", false);
+        List<String> words = parseWords(request);
+        IkDictWordsAction.Request wordsRequest = new IkDictWordsAction.Request(dict, add, words, persist);
+        wordsRequest.timeout(request.param("timeout"));
+        return channel -> client.execute(IkDictWordsAction.INSTANCE, wordsRequest, new RestActions.NodesResponseRestListener<>(channel));
+    }
+
+    static List<String> parseWords(RestRequest request) throws IOException {
+        if (!request.hasContent()) {
+            throw new IllegalArgumentException("request body with [words] is required");
+        }
+        Map<String, Object> body;
+        try (XContentParser parser = request.contentParser()) {
+            body = parser.map();
+        }
+        Object value = body.get("words");
+        if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+            throw new IllegalArgumentException("[words] must be a non-empty array of strings");
+        }
+        List<String> words = new ArrayList<>();
+        for (Object word : (List<?>) value) {
+            if (!(word instanceof String)) {
+                throw new IllegalArgumentException("[words] must be a non-empty array of strings");
+            }
+            words.add((String) word);
+        }
+        return words;
+    }
+}
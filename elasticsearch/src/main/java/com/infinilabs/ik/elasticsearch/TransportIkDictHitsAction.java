@@ -0,0 +1,40 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.wltea.analyzer.dic.Dictionary;
+
+public class TransportIkDictHitsAction extends HandledTransportAction<IkDictHitsAction.Request, IkDictHitsAction.Response> {
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+
+    @Inject
+    public TransportIkDictHitsAction(TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
+                                     ActionFilters actionFilters) {
+        super(IkDictHitsAction.NAME, transportService, actionFilters, IkDictHitsAction.Request::new);
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+    }
+
+    @Override
+    protected void doExecute(Task task, IkDictHitsAction.Request request, ActionListener<IkDictHitsAction.Response> listener) {
+        // 遍历词典耗时较长，不能在网络线程上执行
+        threadPool.executor(ThreadPool.Names.MANAGEMENT).execute(ActionRunnable.supply(listener, () -> {
+            if (!Dictionary.isInitialized()) {
+                throw new IllegalArgumentException("ik dictionary has not been initialized on this node");
+            }
+            Dictionary dictionary = Dictionary.getSingleton();
+            return new IkDictHitsAction.Response(clusterService.localNode().getId(), request.isDead()
+                    ? dictionary.getDeadWords(request.getFrom(), request.getSize())
+                    : dictionary.getHitStats(request.getSize()));
+        }));
+    }
+}
@@ -0,0 +1,51 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.util.List;
+
+public class TransportIkDictStatusAction extends TransportNodesAction<IkDictStatusAction.Request, IkDictStatusAction.Response,
+        IkDictStatusAction.NodeRequest, IkDictStatusAction.NodeResponse> {
+
+    @Inject
+    public TransportIkDictStatusAction(ThreadPool threadPool, ClusterService clusterService, TransportService transportService,
+                                       ActionFilters actionFilters) {
+        super(IkDictStatusAction.NAME, threadPool, clusterService, transportService, actionFilters,
+                IkDictStatusAction.Request::new, IkDictStatusAction.NodeRequest::new, ThreadPool.Names.MANAGEMENT,
+                IkDictStatusAction.NodeResponse.class);
+    }
+
+    @Override
+    protected IkDictStatusAction.Response newResponse(IkDictStatusAction.Request request, List<IkDictStatusAction.NodeResponse> nodes,
+                                                      List<FailedNodeException> failures) {
+        return new IkDictStatusAction.Response(clusterService.getClusterName(), nodes, failures);
+    }
+
+    @Override
+    protected IkDictStatusAction.NodeRequest newNodeRequest(IkDictStatusAction.Request request) {
+        return new IkDictStatusAction.NodeRequest();
+    }
+
+    @Override
+    protected IkDictStatusAction.NodeResponse newNodeResponse(StreamInput in, DiscoveryNode node) throws IOException {
+        return new IkDictStatusAction.NodeResponse(in, node);
+    }
+
+    @Override
+    protected IkDictStatusAction.NodeResponse nodeOperation(IkDictStatusAction.NodeRequest request, Task task) {
+        //节点上还没有使用IK的索引时词典尚未初始化
+        return new IkDictStatusAction.NodeResponse(clusterService.localNode(),
+                Dictionary.isInitialized() ? Dictionary.getSingleton().getStatus() : null);
+    }
+}
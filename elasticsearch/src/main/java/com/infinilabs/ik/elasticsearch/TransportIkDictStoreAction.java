@@ -0,0 +1,40 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.master.TransportMasterNodeAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+public class TransportIkDictStoreAction extends TransportMasterNodeAction<IkDictStoreAction.Request, IkDictStoreAction.Response> {
+
+    private final IkDictStore store;
+
+    @Inject
+    public TransportIkDictStoreAction(TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
+                                      ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
+                                      IkDictStore store) {
+        // 写入过程中同步等待索引及更新设置，不能在传输线程上执行
+        super(IkDictStoreAction.NAME, transportService, clusterService, threadPool, actionFilters, IkDictStoreAction.Request::new,
+                indexNameExpressionResolver, IkDictStoreAction.Response::new, ThreadPool.Names.GENERIC);
+        this.store = store;
+    }
+
+    @Override
+    protected void masterOperation(Task task, IkDictStoreAction.Request request, ClusterState state,
+                                   ActionListener<IkDictStoreAction.Response> listener) {
+        listener.onResponse(store.write(request.getDict(), request.isAdd(), request.getWords()));
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(IkDictStoreAction.Request request, ClusterState state) {
+        return state.blocks().globalBlockedException(ClusterBlockLevel.METADATA_WRITE);
+    }
+}
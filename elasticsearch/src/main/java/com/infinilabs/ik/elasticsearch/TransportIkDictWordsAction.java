@@ -0,0 +1,60 @@
+package com.infinilabs.ik.elasticsearch;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+public class TransportIkDictWordsAction extends TransportNodesAction<IkDictWordsAction.Request, IkDictWordsAction.Response,
+        IkDictWordsAction.NodeRequest, IkDictWordsAction.NodeResponse> {
+
+    @Inject
+    public TransportIkDictWordsAction(ThreadPool threadPool, ClusterService clusterService, TransportService transportService,
+                                      ActionFilters actionFilters) {
+        super(IkDictWordsAction.NAME, threadPool, clusterService, transportService, actionFilters,
+                IkDictWordsAction.Request::new, IkDictWordsAction.NodeRequest::new, ThreadPool.Names.MANAGEMENT,
+                IkDictWordsAction.NodeResponse.class);
+    }
+
+    @Override
+    protected IkDictWordsAction.Response newResponse(IkDictWordsAction.Request request, List<IkDictWordsAction.NodeResponse> nodes,
+                                                     List<FailedNodeException> failures) {
+        return new IkDictWordsAction.Response(clusterService.getClusterName(), nodes, failures);
+    }
+
+    @Override
+    protected IkDictWordsAction.NodeRequest newNodeRequest(IkDictWordsAction.Request request) {
+        return new IkDictWordsAction.NodeRequest(request);
+    }
+
+    @Override
+    protected IkDictWordsAction.NodeResponse newNodeResponse(StreamInput in, DiscoveryNode node) throws IOException {
+        return new IkDictWordsAction.NodeResponse(in, node);
+    }
+
+    @Override
+    protected IkDictWordsAction.NodeResponse nodeOperation(IkDictWordsAction.NodeRequest request, Task task) {
+        //节点上还没有使用IK的索引时词典尚未初始化，不应用变更
+        if (!Dictionary.isInitialized()) {
+            return new IkDictWordsAction.NodeResponse(clusterService.localNode(), -1);
+        }
+        Dictionary dictionary = Dictionary.getSingleton();
+        try {
+            dictionary.updateWords(request.getDict(), request.getWords(), request.isAdd(), request.isPersist());
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to persist ik dictionary changes", e);
+        }
+        return new IkDictWordsAction.NodeResponse(clusterService.localNode(), dictionary.getVersion());
+    }
+}
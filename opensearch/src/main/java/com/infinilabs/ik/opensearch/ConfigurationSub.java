@@ -6,25 +6,103 @@ package com.infinilabs.ik.opensearch;
 import org.opensearch.SpecialPermission;
 import org.opensearch.common.io.PathUtils;
 import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
 import org.opensearch.env.Environment;
+import org.opensearch.index.IndexSettings;
 import org.wltea.analyzer.cfg.Configuration;
 import org.wltea.analyzer.dic.Dictionary;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.List;
 
 public class ConfigurationSub extends Configuration {
 	
 	private Environment environment;
 	
-	public ConfigurationSub(Environment env,Settings settings) {
+	public ConfigurationSub(Environment env,IndexSettings indexSettings,Settings settings) {
 		this.environment = env;
 		this.useSmart = settings.get("use_smart", "false").equals("true");
 		this.enableLowercase = settings.get("enable_lowercase", "true").equals("true");
 		this.enableRemoteDict = settings.get("enable_remote_dict", "true").equals("true");
+		this.parallelThreshold = settings.getAsInt("parallel_threshold", 0);
+		if (this.parallelThreshold < 0) {
+			throw new IllegalArgumentException("parallel_threshold must not be negative");
+		}
+		if (this.parallelThreshold > 0) {
+			// 分段任务在插件的线程池上执行，调用线程同时处理一段
+			this.parallelExecutor = AnalysisIkPlugin.getAnalysisExecutor();
+			this.parallelism = AnalysisIkPlugin.getAnalysisThreads() + 1;
+		}
+		this.enableDualMode = settings.get("enable_dual_mode", "false").equals("true");
+		this.leanMinLength = settings.getAsInt("lean_min_length", 2);
+		if (this.leanMinLength < 1) {
+			throw new IllegalArgumentException("lean_min_length must be positive");
+		}
+		this.leanMaxSubwords = settings.getAsInt("lean_max_subwords", 3);
+		if (this.leanMaxSubwords < 0) {
+			throw new IllegalArgumentException("lean_max_subwords must not be negative");
+		}
+		this.leanSingleChar = settings.get("lean_single_char", "true").equals("true");
+		String maxMatchDirection = settings.get("max_match_direction", "bidirectional");
+		if (!maxMatchDirection.equals("bidirectional") && !maxMatchDirection.equals("forward")) {
+			throw new IllegalArgumentException("max_match_direction must be one of [bidirectional, forward], but was [" + maxMatchDirection + "]");
+		}
+		this.maxMatchBidirectional = maxMatchDirection.equals("bidirectional");
+		this.arbitrationBeamWidth = settings.getAsInt("arbitration_beam_width", 0);
+		if (this.arbitrationBeamWidth < 0) {
+			throw new IllegalArgumentException("arbitration_beam_width must not be negative");
+		}
+		this.arbitrationBudget = settings.getAsLong("arbitration_budget", 0L);
+		if (this.arbitrationBudget < 0) {
+			throw new IllegalArgumentException("arbitration_budget must not be negative");
+		}
+		this.maxTokenLength = settings.getAsInt("max_token_length", 0);
+		if (this.maxTokenLength < 0) {
+			throw new IllegalArgumentException("max_token_length must not be negative");
+		}
+		if (this.maxTokenLength > MAX_TOKEN_LENGTH_LIMIT) {
+			throw new IllegalArgumentException("max_token_length must not be greater than " + MAX_TOKEN_LENGTH_LIMIT + ", but was [" + this.maxTokenLength + "]");
+		}
+		String maxTokenLengthPolicy = settings.get("max_token_length_policy", "truncate");
+		if (!maxTokenLengthPolicy.equals("truncate") && !maxTokenLengthPolicy.equals("skip")) {
+			throw new IllegalArgumentException("max_token_length_policy must be one of [truncate, skip], but was [" + maxTokenLengthPolicy + "]");
+		}
+		this.truncateLongToken = maxTokenLengthPolicy.equals("truncate");
+		this.maxTokenCount = settings.getAsInt("max_token_count", 0);
+		if (this.maxTokenCount < 0) {
+			throw new IllegalArgumentException("max_token_count must not be negative");
+		}
+		this.maxChars = settings.getAsInt("max_chars", 0);
+		if (this.maxChars < 0) {
+			throw new IllegalArgumentException("max_chars must not be negative");
+		}
+		this.slowLogWarnNanos = slowLogThreshold(settings, "warn");
+		this.slowLogInfoNanos = slowLogThreshold(settings, "info");
+		this.slowLogDebugNanos = slowLogThreshold(settings, "debug");
+		this.slowLogTraceNanos = slowLogThreshold(settings, "trace");
+		this.slowLogSourceChars = settings.getAsInt("slowlog_source_chars", 100);
+		if (this.slowLogSourceChars < 0) {
+			throw new IllegalArgumentException("slowlog_source_chars must not be negative");
+		}
 
 		Dictionary.initial(this);
 
+		// 索引级的扩展词典，由插件在索引关闭或删除后释放；临时的索引服务、不指定索引的_analyze请求在本配置不再可达后释放
+		List<String> extDictPaths = settings.getAsList("ext_dict_paths");
+		List<String> extStopWordsPaths = settings.getAsList("ext_stopwords_paths");
+		if (!extDictPaths.isEmpty() || !extStopWordsPaths.isEmpty()) {
+			this.dictOverlay = Dictionary.getSingleton().acquireOverlay(this, indexSettings.getUUID(), extDictPaths, extStopWordsPaths);
+		}
+
+	}
+
+	/**
+	 * 慢分词日志的耗时阈值（纳秒），如slowlog_threshold_warn: 500ms，-1表示不记录该级别
+	 */
+	private static long slowLogThreshold(Settings settings, String level) {
+		TimeValue threshold = settings.getAsTime("slowlog_threshold_" + level, TimeValue.MINUS_ONE);
+		return threshold.duration() < 0 ? -1 : threshold.nanos();
 	}
 
 	@Override
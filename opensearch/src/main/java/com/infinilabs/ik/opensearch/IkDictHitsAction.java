@@ -0,0 +1,115 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.ActionResponse;
+import org.opensearch.action.ActionType;
+import org.opensearch.common.io.stream.StreamInput;
+import org.opensearch.common.io.stream.StreamOutput;
+import org.opensearch.common.xcontent.ToXContentObject;
+import org.opensearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.opensearch.action.ValidateActions.addValidationError;
+
+/**
+ * 查询当前节点主词典命中频率的采样结果或没有命中的词，参见Dictionary.getHitStats()、Dictionary.getDeadWords()
+ * 没有命中的词需要遍历整个词典，在管理线程池中执行
+ */
+public class IkDictHitsAction extends ActionType<IkDictHitsAction.Response> {
+
+    public static final IkDictHitsAction INSTANCE = new IkDictHitsAction();
+    public static final String NAME = "cluster:monitor/ik/dict/hits";
+
+    private IkDictHitsAction() {
+        super(NAME, Response::new);
+    }
+
+    public static class Request extends ActionRequest {
+        //true时查询没有命中的词，false时查询命中次数最多的词
+        private final boolean dead;
+        private final int from;
+        private final int size;
+
+        public Request(boolean dead, int from, int size) {
+            this.dead = dead;
+            this.from = from;
+            this.size = size;
+        }
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+            this.dead = in.readBoolean();
+            this.from = in.readVInt();
+            this.size = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeBoolean(dead);
+            out.writeVInt(from);
+            out.writeVInt(size);
+        }
+
+        @Override
+        public ActionRequestValidationException validate() {
+            ActionRequestValidationException e = null;
+            if (from < 0) {
+                e = addValidationError("[from] must not be negative", e);
+            }
+            if (size < 0) {
+                e = addValidationError("[size] must not be negative", e);
+            }
+            return e;
+        }
+
+        public boolean isDead() {
+            return dead;
+        }
+
+        public int getFrom() {
+            return from;
+        }
+
+        public int getSize() {
+            return size;
+        }
+    }
+
+    public static class Response extends ActionResponse implements ToXContentObject {
+        private final String nodeId;
+        private final Map<String, Object> hits;
+
+        public Response(String nodeId, Map<String, Object> hits) {
+            this.nodeId = nodeId;
+            this.hits = hits;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Response(StreamInput in) throws IOException {
+            super(in);
+            this.nodeId = in.readString();
+            this.hits = (Map<String, Object>) in.readGenericValue();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(nodeId);
+            out.writeGenericValue(hits);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("node_id", nodeId);
+            for (Map.Entry<String, Object> entry : hits.entrySet()) {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+            builder.endObject();
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.ActionResponse;
+import org.opensearch.action.ActionType;
+import org.opensearch.common.io.stream.StreamInput;
+import org.opensearch.common.io.stream.StreamOutput;
+import org.opensearch.common.xcontent.ToXContentObject;
+import org.opensearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * 按词频重新排列当前节点的主词典，参见Dictionary.relayoutMainDict()
+ * 排列需要复制整个词典树，在管理线程池中执行
+ */
+public class IkDictLayoutAction extends ActionType<IkDictLayoutAction.Response> {
+
+    public static final IkDictLayoutAction INSTANCE = new IkDictLayoutAction();
+    public static final String NAME = "cluster:admin/ik/dict/layout";
+
+    private IkDictLayoutAction() {
+        super(NAME, Response::new);
+    }
+
+    public static class Request extends ActionRequest {
+
+        public Request() {
+        }
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        public ActionRequestValidationException validate() {
+            return null;
+        }
+    }
+
+    public static class Response extends ActionResponse implements ToXContentObject {
+        private final String nodeId;
+        //内存不足放弃排列时为false
+        private final boolean acknowledged;
+
+        public Response(String nodeId, boolean acknowledged) {
+            this.nodeId = nodeId;
+            this.acknowledged = acknowledged;
+        }
+
+        public Response(StreamInput in) throws IOException {
+            super(in);
+            this.nodeId = in.readString();
+            this.acknowledged = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(nodeId);
+            out.writeBoolean(acknowledged);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("node_id", nodeId);
+            builder.field("acknowledged", acknowledged);
+            builder.endObject();
+            return builder;
+        }
+    }
+}
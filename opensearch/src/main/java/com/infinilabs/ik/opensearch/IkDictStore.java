@@ -0,0 +1,282 @@
+package com.infinilabs.ik.opensearch;
+
+import org.apache.logging.log4j.Logger;
+import org.opensearch.ResourceAlreadyExistsException;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.support.WriteRequest;
+import org.opensearch.client.Client;
+import org.opensearch.cluster.ClusterChangedEvent;
+import org.opensearch.cluster.ClusterState;
+import org.opensearch.cluster.ClusterStateListener;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.sort.SortOrder;
+import org.opensearch.threadpool.ThreadPool;
+import org.wltea.analyzer.dic.Dictionary;
+import org.wltea.analyzer.help.ESPluginLoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 集群词典库：词条变更按序号存放在系统索引.ik-dict中，每个节点都有一份副本
+ * 写入由主节点串行执行，写入后将最新序号及变更链摘要更新到该索引的设置中，随集群状态发布到各节点，
+ * 各节点只从本地副本读取已应用序号之后的变更，参见Dictionary.applyStoreChange()
+ * 变更与其记录的摘要不符，或已应用的摘要与发布的摘要不符时，停止应用并从序号1开始全量重新同步，参见Dictionary.resetStore()
+ */
+public class IkDictStore implements ClusterStateListener {
+
+    private static final Logger logger = ESPluginLoggerFactory.getLogger(IkDictStore.class.getName());
+
+    public static final String INDEX = ".ik-dict";
+
+    public static final Setting<Boolean> ENABLED = Setting.boolSetting("ik.dict.store.enabled", false, Setting.Property.NodeScope);
+
+    /**
+     * 已发布的最新变更序号及变更链摘要，仅由IkDictStore更新
+     */
+    public static final Setting<Long> VERSION = Setting.longSetting("index.ik_dict.version", 0, 0,
+            Setting.Property.IndexScope, Setting.Property.Dynamic);
+    public static final Setting<String> DIGEST = Setting.simpleString("index.ik_dict.digest",
+            Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    private static final String FIELD_SEQ = "seq";
+    private static final String FIELD_DICT = "dict";
+    private static final String FIELD_OP = "op";
+    private static final String FIELD_WORDS = "words";
+    private static final String FIELD_DIGEST = "digest";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+
+    private static final String MAPPING = "{\"dynamic\":\"strict\",\"properties\":{"
+            + "\"" + FIELD_SEQ + "\":{\"type\":\"long\"},"
+            + "\"" + FIELD_DICT + "\":{\"type\":\"keyword\"},"
+            + "\"" + FIELD_OP + "\":{\"type\":\"keyword\"},"
+            + "\"" + FIELD_WORDS + "\":{\"type\":\"keyword\",\"index\":false,\"doc_values\":false},"
+            + "\"" + FIELD_DIGEST + "\":{\"type\":\"keyword\",\"index\":false,\"doc_values\":false},"
+            + "\"" + FIELD_TIMESTAMP + "\":{\"type\":\"date\"}}}";
+
+    //每次拉取的变更条数
+    private static final int PULL_BATCH = 500;
+
+    private final Client client;
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final boolean enabled;
+    private final AtomicBoolean pulling = new AtomicBoolean();
+    //重新同步后变更链仍然不一致的发布序号，发布新的序号之前不再拉取
+    private volatile long inconsistentVersion = -1;
+
+    public IkDictStore(Settings settings, Client client, ClusterService clusterService, ThreadPool threadPool) {
+        this.client = client;
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.enabled = ENABLED.get(settings);
+        if (enabled) {
+            clusterService.addListener(this);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 集群状态中已发布的最新变更序号，词典库索引不存在时为0
+     */
+    public static long publishedVersion(ClusterState state) {
+        IndexMetadata metadata = state.metadata().index(INDEX);
+        return metadata == null ? 0 : VERSION.get(metadata.getSettings());
+    }
+
+    private static String op(boolean add) {
+        return add ? "add" : "disable";
+    }
+
+    /**
+     * 写入一条变更并发布新序号，在主节点上执行
+     * 从索引中最后一条变更接续序号，主节点切换时已写入但未发布的变更随本次变更一起发布
+     * @return 新的序号及变更链摘要
+     */
+    synchronized IkDictStoreAction.Response write(String dict, boolean add, List<String> words) {
+        if (!enabled) {
+            throw new IllegalArgumentException("ik dictionary store is disabled, set [" + ENABLED.getKey() + "] to true on all nodes");
+        }
+        List<String> trimmed = Dictionary.checkWords(dict, words);
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("[words] must contain at least one non-blank word");
+        }
+        ThreadContext threadContext = threadPool.getThreadContext();
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.markAsSystemContext();
+            createIndexIfMissing();
+
+            long seq = 0;
+            String previous = "";
+            SearchResponse last = client.prepareSearch(INDEX).setSize(1).addSort(FIELD_SEQ, SortOrder.DESC).get();
+            if (last.getHits().getHits().length > 0) {
+                Map<String, Object> source = last.getHits().getHits()[0].getSourceAsMap();
+                seq = ((Number) source.get(FIELD_SEQ)).longValue();
+                previous = (String) source.get(FIELD_DIGEST);
+            }
+
+            long next = seq + 1;
+            String digest = Dictionary.storeDigest(previous, dict, add, trimmed);
+            Map<String, Object> doc = new HashMap<>();
+            doc.put(FIELD_SEQ, next);
+            doc.put(FIELD_DICT, dict);
+            doc.put(FIELD_OP, op(add));
+            doc.put(FIELD_WORDS, trimmed);
+            doc.put(FIELD_DIGEST, digest);
+            doc.put(FIELD_TIMESTAMP, System.currentTimeMillis());
+            // 以序号为文档id，序号冲突时创建失败
+            client.prepareIndex(INDEX).setId(Long.toString(next)).setCreate(true)
+                    .setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE).setSource(doc).get();
+            client.admin().indices().prepareUpdateSettings(INDEX)
+                    .setSettings(Settings.builder().put(VERSION.getKey(), next).put(DIGEST.getKey(), digest)).get();
+            logger.info("ik dictionary store version [{}]: {} {} words in [{}]", next, op(add), trimmed.size(), dict);
+            return new IkDictStoreAction.Response(next, digest);
+        }
+    }
+
+    private void createIndexIfMissing() {
+        if (clusterService.state().metadata().hasIndex(INDEX)) {
+            return;
+        }
+        Settings settings = Settings.builder()
+                .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                // 每个节点一份副本，拉取变更时只读本地
+                .put(IndexMetadata.SETTING_AUTO_EXPAND_REPLICAS, "0-all")
+                .put(IndexMetadata.SETTING_INDEX_HIDDEN, true)
+                .put(VERSION.getKey(), 0)
+                .build();
+        try {
+            client.admin().indices().prepareCreate(INDEX).setSettings(settings).setMapping(MAPPING).get();
+        } catch (ResourceAlreadyExistsException e) {
+            // 并发创建
+        }
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        maybePull(event.state());
+    }
+
+    /**
+     * 已发布的序号大于本节点已应用的序号时，在后台拉取变更
+     * 节点上还没有使用IK的索引时词典尚未初始化，之后的集群状态变更（如创建索引）会再次触发
+     * 在集群状态应用线程上只做不加锁的读取，拉取及应用变更都在generic线程池中执行
+     */
+    private void maybePull(ClusterState state) {
+        long published = publishedVersion(state);
+        if (!Dictionary.isInitialized() || published <= Dictionary.getSingleton().getStoreVersion()
+                || published == inconsistentVersion) {
+            return;
+        }
+        if (!pulling.compareAndSet(false, true)) {
+            return;
+        }
+        threadPool.generic().execute(() -> {
+            ThreadContext threadContext = threadPool.getThreadContext();
+            try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+                threadContext.markAsSystemContext();
+                pull();
+            } catch (Exception e) {
+                logger.warn("failed to pull ik dictionary store changes", e);
+                return;
+            } finally {
+                pulling.set(false);
+            }
+            // 拉取期间发布的新序号
+            maybePull(clusterService.state());
+        });
+    }
+
+    private void pull() {
+        Dictionary dictionary = Dictionary.getSingleton();
+        boolean resynced = false;
+        while (true) {
+            ClusterState state = clusterService.state();
+            long published = publishedVersion(state);
+            long applied = dictionary.getStoreVersion();
+            if (published <= applied) {
+                String expected = published == 0 ? "" : DIGEST.get(state.metadata().index(INDEX).getSettings());
+                if (published == applied && !expected.equals(dictionary.getStoreDigest())) {
+                    logger.warn("ik dictionary store digest mismatch at version [{}]: local [{}], published [{}]",
+                            applied, dictionary.getStoreDigest(), expected);
+                    if (resync(dictionary, published, resynced)) {
+                        resynced = true;
+                        continue;
+                    }
+                }
+                return;
+            }
+            SearchResponse response = client.prepareSearch(INDEX)
+                    .setPreference("_local")
+                    .setQuery(QueryBuilders.rangeQuery(FIELD_SEQ).gt(applied).lte(published))
+                    .addSort(FIELD_SEQ, SortOrder.ASC)
+                    .setSize(PULL_BATCH)
+                    .get();
+            SearchHit[] hits = response.getHits().getHits();
+            if (hits.length == 0) {
+                logger.warn("ik dictionary store changes [{}..{}] are not visible yet", applied + 1, published);
+                return;
+            }
+            boolean mismatch = false;
+            for (SearchHit hit : hits) {
+                Map<String, Object> source = hit.getSourceAsMap();
+                long seq = ((Number) source.get(FIELD_SEQ)).longValue();
+                String dict = (String) source.get(FIELD_DICT);
+                boolean add = "add".equals(source.get(FIELD_OP));
+                @SuppressWarnings("unchecked")
+                List<String> words = (List<String>) source.get(FIELD_WORDS);
+                String digest = Dictionary.storeDigest(dictionary.getStoreDigest(), dict, add, words);
+                if (!digest.equals(source.get(FIELD_DIGEST))) {
+                    logger.warn("ik dictionary store change [{}] digest mismatch: computed [{}], stored [{}]",
+                            seq, digest, source.get(FIELD_DIGEST));
+                    mismatch = true;
+                    break;
+                }
+                if (!dictionary.applyStoreChange(seq, digest, dict, words, add)) {
+                    logger.warn("ik dictionary store change [{}] is out of order, applied version is [{}]",
+                            seq, dictionary.getStoreVersion());
+                    return;
+                }
+            }
+            if (mismatch) {
+                if (resync(dictionary, published, resynced)) {
+                    resynced = true;
+                    continue;
+                }
+                return;
+            }
+            logger.info("ik dictionary store: applied changes up to version [{}]", dictionary.getStoreVersion());
+        }
+    }
+
+    /**
+     * 撤销已应用的变更，从序号1开始重新同步；每次拉取只重新同步一次，
+     * 之后仍不一致说明词典库中的变更链本身有误，在发布新的序号之前不再拉取
+     * @return 是否已重置，可以从序号1开始重新应用
+     */
+    private boolean resync(Dictionary dictionary, long published, boolean resynced) {
+        if (resynced) {
+            inconsistentVersion = published;
+            logger.warn("ik dictionary store is still inconsistent at version [{}] after a full resync, waiting for a new version",
+                    published);
+            return false;
+        }
+        logger.warn("ik dictionary store: discarding applied changes up to version [{}] and replaying from version [1]",
+                dictionary.getStoreVersion());
+        if (!dictionary.resetStore()) {
+            logger.warn("ik dictionary reload refused while resyncing the store, discarded changes stay until the next reload");
+        }
+        return true;
+    }
+}
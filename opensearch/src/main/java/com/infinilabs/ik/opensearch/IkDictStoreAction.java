@@ -0,0 +1,110 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.ActionResponse;
+import org.opensearch.action.ActionType;
+import org.opensearch.action.support.master.MasterNodeRequest;
+import org.opensearch.common.io.stream.StreamInput;
+import org.opensearch.common.io.stream.StreamOutput;
+import org.opensearch.common.xcontent.ToXContentObject;
+import org.opensearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 向集群词典库写入一条主词典或停止词词典的变更，在主节点上执行，参见IkDictStore
+ */
+public class IkDictStoreAction extends ActionType<IkDictStoreAction.Response> {
+
+    public static final IkDictStoreAction INSTANCE = new IkDictStoreAction();
+    public static final String NAME = "cluster:admin/ik/dict/store";
+
+    private IkDictStoreAction() {
+        super(NAME, Response::new);
+    }
+
+    public static class Request extends MasterNodeRequest<Request> {
+        private final String dict;
+        private final boolean add;
+        private final List<String> words;
+
+        public Request(String dict, boolean add, List<String> words) {
+            this.dict = dict;
+            this.add = add;
+            this.words = words;
+        }
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+            this.dict = in.readString();
+            this.add = in.readBoolean();
+            this.words = in.readStringList();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(dict);
+            out.writeBoolean(add);
+            out.writeStringCollection(words);
+        }
+
+        @Override
+        public ActionRequestValidationException validate() {
+            return null;
+        }
+
+        public String getDict() {
+            return dict;
+        }
+
+        public boolean isAdd() {
+            return add;
+        }
+
+        public List<String> getWords() {
+            return words;
+        }
+    }
+
+    public static class Response extends ActionResponse implements ToXContentObject {
+        //已发布的变更序号及变更链摘要
+        private final long version;
+        private final String digest;
+
+        public Response(long version, String digest) {
+            this.version = version;
+            this.digest = digest;
+        }
+
+        public Response(StreamInput in) throws IOException {
+            super(in);
+            this.version = in.readLong();
+            this.digest = in.readString();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeLong(version);
+            out.writeString(digest);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("version", version);
+            builder.field("digest", digest);
+            builder.endObject();
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.ActionType;
+import org.opensearch.action.FailedNodeException;
+import org.opensearch.action.support.nodes.BaseNodeRequest;
+import org.opensearch.action.support.nodes.BaseNodeResponse;
+import org.opensearch.action.support.nodes.BaseNodesRequest;
+import org.opensearch.action.support.nodes.BaseNodesResponse;
+import org.opensearch.cluster.ClusterName;
+import org.opensearch.cluster.node.DiscoveryNode;
+import org.opensearch.common.io.stream.StreamInput;
+import org.opensearch.common.io.stream.StreamOutput;
+import org.opensearch.common.xcontent.ToXContentFragment;
+import org.opensearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 在各节点加入或屏蔽主词典、停止词词典的词条，参见Dictionary.updateWords()
+ */
+public class IkDictWordsAction extends ActionType<IkDictWordsAction.Response> {
+
+    public static final IkDictWordsAction INSTANCE = new IkDictWordsAction();
+    public static final String NAME = "cluster:admin/ik/dict/words";
+
+    private IkDictWordsAction() {
+        super(NAME, Response::new);
+    }
+
+    public static class Request extends BaseNodesRequest<Request> {
+        private final String dict;
+        private final boolean add;
+        private final List<String> words;
+        private final boolean persist;
+
+        public Request(String dict, boolean add, List<String> words, boolean persist) {
+            super(new String[0]);
+            this.dict = dict;
+            this.add = add;
+            this.words = words;
+            this.persist = persist;
+        }
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+            this.dict = in.readString();
+            this.add = in.readBoolean();
+            this.words = in.readStringList();
+            this.persist = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(dict);
+            out.writeBoolean(add);
+            out.writeStringCollection(words);
+            out.writeBoolean(persist);
+        }
+    }
+
+    public static class NodeRequest extends BaseNodeRequest {
+        private final String dict;
+        private final boolean add;
+        private final List<String> words;
+        private final boolean persist;
+
+        public NodeRequest(Request request) {
+            this.dict = request.dict;
+            this.add = request.add;
+            this.words = request.words;
+            this.persist = request.persist;
+        }
+
+        public NodeRequest(StreamInput in) throws IOException {
+            super(in);
+            this.dict = in.readString();
+            this.add = in.readBoolean();
+            this.words = in.readStringList();
+            this.persist = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(dict);
+            out.writeBoolean(add);
+            out.writeStringCollection(words);
+            out.writeBoolean(persist);
+        }
+
+        public String getDict() {
+            return dict;
+        }
+
+        public boolean isAdd() {
+            return add;
+        }
+
+        public List<String> getWords() {
+            return words;
+        }
+
+        public boolean isPersist() {
+            return persist;
+        }
+    }
+
+    public static class NodeResponse extends BaseNodeResponse {
+        //变更后的词典版本号，词典尚未初始化、没有应用变更时为-1
+        private final long version;
+
+        public NodeResponse(DiscoveryNode node, long version) {
+            super(node);
+            this.version = version;
+        }
+
+        public NodeResponse(StreamInput in) throws IOException {
+            super(in);
+            this.version = in.readLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeLong(version);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    public static class Response extends BaseNodesResponse<NodeResponse> implements ToXContentFragment {
+
+        public Response(ClusterName clusterName, List<NodeResponse> nodes, List<FailedNodeException> failures) {
+            super(clusterName, nodes, failures);
+        }
+
+        public Response(StreamInput in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected List<NodeResponse> readNodesFrom(StreamInput in) throws IOException {
+            return in.readList(NodeResponse::new);
+        }
+
+        @Override
+        protected void writeNodesTo(StreamOutput out, List<NodeResponse> nodes) throws IOException {
+            out.writeList(nodes);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("nodes");
+            for (NodeResponse node : getNodes()) {
+                builder.startObject(node.getNode().getId());
+                builder.field("name", node.getNode().getName());
+                builder.field("applied", node.getVersion() >= 0);
+                if (node.getVersion() >= 0) {
+                    builder.field("version", node.getVersion());
+                }
+                builder.endObject();
+            }
+            builder.endObject();
+            return builder;
+        }
+    }
+}
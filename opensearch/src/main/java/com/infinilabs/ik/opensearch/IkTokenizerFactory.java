@@ -13,7 +13,7 @@ public class IkTokenizerFactory extends AbstractTokenizerFactory {
 
   public IkTokenizerFactory(IndexSettings indexSettings, Environment env, String name, Settings settings) {
       super(indexSettings, settings,name);
-      configuration = new ConfigurationSub(env,settings);
+      configuration = new ConfigurationSub(env,indexSettings,settings).setAnalyzerName(name);
   }
 
   public static IkTokenizerFactory getIkTokenizerFactory(IndexSettings indexSettings, Environment env, String name, Settings settings) {
@@ -24,11 +24,29 @@ public class IkTokenizerFactory extends AbstractTokenizerFactory {
       return new IkTokenizerFactory(indexSettings,env, name, settings).setSmart(true);
   }
 
+  public static IkTokenizerFactory getIkLeanTokenizerFactory(IndexSettings indexSettings, Environment env, String name, Settings settings) {
+      return new IkTokenizerFactory(indexSettings,env, name, settings).setSmart(false).setLean(true);
+  }
+
+  public static IkTokenizerFactory getIkSmartMaxMatchTokenizerFactory(IndexSettings indexSettings, Environment env, String name, Settings settings) {
+      return new IkTokenizerFactory(indexSettings,env, name, settings).setSmart(true).setMaxMatch(true);
+  }
+
   public IkTokenizerFactory setSmart(boolean smart){
         this.configuration.setUseSmart(smart);
         return this;
   }
 
+  public IkTokenizerFactory setLean(boolean lean){
+        this.configuration.setUseLean(lean);
+        return this;
+  }
+
+  public IkTokenizerFactory setMaxMatch(boolean maxMatch){
+        this.configuration.setUseMaxMatch(maxMatch);
+        return this;
+  }
+
   @Override
   public Tokenizer create() {
       return new IKTokenizer(configuration);  }
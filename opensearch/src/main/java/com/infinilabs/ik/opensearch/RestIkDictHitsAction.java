@@ -0,0 +1,66 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.client.node.NodeClient;
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.BytesRestResponse;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.RestStatus;
+import org.opensearch.rest.action.RestToXContentListener;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.opensearch.rest.RestRequest.Method.DELETE;
+import static org.opensearch.rest.RestRequest.Method.GET;
+import static org.opensearch.rest.RestRequest.Method.POST;
+
+/**
+ * GET /_ik/dict/hits?size=100   当前节点主词典命中频率的采样结果，命中次数最多的size个词
+ * GET /_ik/dict/hits/dead?from=0&size=100   当前节点主词典中没有采样到命中的词的总数，以及按词典顺序从from起的size个词
+ * DELETE /_ik/dict/hits         清空采样结果
+ * POST /_ik/dict/_layout        按采样结果（或main_dict_freq配置的词频文件）重新排列当前节点的主词典，在管理线程池中执行
+ * 需要在IKAnalyzer.cfg.xml中配置dict_hit_sample_rate或main_dict_freq
+ */
+public class RestIkDictHitsAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "ik_dict_hits_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return Arrays.asList(new Route(GET, "/_ik/dict/hits"), new Route(GET, "/_ik/dict/hits/dead"),
+                new Route(DELETE, "/_ik/dict/hits"), new Route(POST, "/_ik/dict/_layout"));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) {
+        int size = request.paramAsInt("size", 100);
+        if (request.method() == GET) {
+            // 查询在管理线程池中执行，参见TransportIkDictHitsAction
+            IkDictHitsAction.Request hitsRequest = new IkDictHitsAction.Request(request.path().endsWith("/dead"),
+                    request.paramAsInt("from", 0), size);
+            return channel -> client.execute(IkDictHitsAction.INSTANCE, hitsRequest, new RestToXContentListener<>(channel));
+        }
+        if (request.method() == POST) {
+            return channel -> client.execute(IkDictLayoutAction.INSTANCE, new IkDictLayoutAction.Request(),
+                    new RestToXContentListener<>(channel));
+        }
+        if (!Dictionary.isInitialized()) {
+            throw new IllegalArgumentException("ik dictionary has not been initialized on this node");
+        }
+        Dictionary dictionary = Dictionary.getSingleton();
+        return channel -> {
+            XContentBuilder builder = channel.newBuilder();
+            builder.startObject();
+            builder.field("node_id", client.getLocalNodeId());
+            dictionary.resetHitStats();
+            builder.field("acknowledged", true);
+            builder.endObject();
+            channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
+        };
+    }
+}
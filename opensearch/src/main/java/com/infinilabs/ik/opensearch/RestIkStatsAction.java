@@ -0,0 +1,46 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.client.node.NodeClient;
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.BytesRestResponse;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.RestStatus;
+import org.wltea.analyzer.core.SegmenterStats;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.opensearch.rest.RestRequest.Method.GET;
+
+/**
+ * GET /_ik/stats
+ * 返回当前节点的分词统计：汇总、各分词器的统计，以及歧义裁决限制、缓存和双模式交接的计数
+ */
+public class RestIkStatsAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "ik_stats_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return Collections.singletonList(new Route(GET, "/_ik/stats"));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) {
+        return channel -> {
+            XContentBuilder builder = channel.newBuilder();
+            builder.startObject();
+            builder.field("node_id", client.getLocalNodeId());
+            for (Map.Entry<String, Object> entry : SegmenterStats.nodeStats().entrySet()) {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+            builder.endObject();
+            channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.ActionRunnable;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.HandledTransportAction;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.tasks.Task;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+import org.wltea.analyzer.dic.Dictionary;
+
+public class TransportIkDictHitsAction extends HandledTransportAction<IkDictHitsAction.Request, IkDictHitsAction.Response> {
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+
+    @Inject
+    public TransportIkDictHitsAction(TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
+                                     ActionFilters actionFilters) {
+        super(IkDictHitsAction.NAME, transportService, actionFilters, IkDictHitsAction.Request::new);
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+    }
+
+    @Override
+    protected void doExecute(Task task, IkDictHitsAction.Request request, ActionListener<IkDictHitsAction.Response> listener) {
+        // 遍历词典耗时较长，不能在网络线程上执行
+        threadPool.executor(ThreadPool.Names.MANAGEMENT).execute(ActionRunnable.supply(listener, () -> {
+            if (!Dictionary.isInitialized()) {
+                throw new IllegalArgumentException("ik dictionary has not been initialized on this node");
+            }
+            Dictionary dictionary = Dictionary.getSingleton();
+            return new IkDictHitsAction.Response(clusterService.localNode().getId(), request.isDead()
+                    ? dictionary.getDeadWords(request.getFrom(), request.getSize())
+                    : dictionary.getHitStats(request.getSize()));
+        }));
+    }
+}
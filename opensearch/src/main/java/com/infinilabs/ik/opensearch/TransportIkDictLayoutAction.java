@@ -0,0 +1,39 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.ActionRunnable;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.HandledTransportAction;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.tasks.Task;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+import org.wltea.analyzer.dic.Dictionary;
+
+public class TransportIkDictLayoutAction extends HandledTransportAction<IkDictLayoutAction.Request, IkDictLayoutAction.Response> {
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+
+    @Inject
+    public TransportIkDictLayoutAction(TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
+                                       ActionFilters actionFilters) {
+        super(IkDictLayoutAction.NAME, transportService, actionFilters, IkDictLayoutAction.Request::new);
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+    }
+
+    @Override
+    protected void doExecute(Task task, IkDictLayoutAction.Request request, ActionListener<IkDictLayoutAction.Response> listener) {
+        // 复制词典树耗时较长，不能在网络线程上执行
+        threadPool.executor(ThreadPool.Names.MANAGEMENT).execute(ActionRunnable.supply(listener, () -> {
+            if (!Dictionary.isInitialized()) {
+                throw new IllegalArgumentException("ik dictionary has not been initialized on this node");
+            }
+            // 内存不足时放弃排列
+            boolean acknowledged = Dictionary.getSingleton().relayoutMainDict();
+            return new IkDictLayoutAction.Response(clusterService.localNode().getId(), acknowledged);
+        }));
+    }
+}
@@ -0,0 +1,52 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.master.TransportMasterNodeAction;
+import org.opensearch.cluster.ClusterState;
+import org.opensearch.cluster.block.ClusterBlockException;
+import org.opensearch.cluster.block.ClusterBlockLevel;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.common.io.stream.StreamInput;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+
+import java.io.IOException;
+
+public class TransportIkDictStoreAction extends TransportMasterNodeAction<IkDictStoreAction.Request, IkDictStoreAction.Response> {
+
+    private final IkDictStore store;
+
+    @Inject
+    public TransportIkDictStoreAction(TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
+                                      ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
+                                      IkDictStore store) {
+        super(IkDictStoreAction.NAME, transportService, clusterService, threadPool, actionFilters, IkDictStoreAction.Request::new,
+                indexNameExpressionResolver);
+        this.store = store;
+    }
+
+    @Override
+    protected String executor() {
+        // 写入过程中同步等待索引及更新设置，不能在传输线程上执行
+        return ThreadPool.Names.GENERIC;
+    }
+
+    @Override
+    protected IkDictStoreAction.Response read(StreamInput in) throws IOException {
+        return new IkDictStoreAction.Response(in);
+    }
+
+    @Override
+    protected void masterOperation(IkDictStoreAction.Request request, ClusterState state,
+                                   ActionListener<IkDictStoreAction.Response> listener) {
+        listener.onResponse(store.write(request.getDict(), request.isAdd(), request.getWords()));
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(IkDictStoreAction.Request request, ClusterState state) {
+        return state.blocks().globalBlockedException(ClusterBlockLevel.METADATA_WRITE);
+    }
+}
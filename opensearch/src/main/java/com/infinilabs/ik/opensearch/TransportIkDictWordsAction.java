@@ -0,0 +1,58 @@
+package com.infinilabs.ik.opensearch;
+
+import org.opensearch.action.FailedNodeException;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.nodes.TransportNodesAction;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.common.io.stream.StreamInput;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+import org.wltea.analyzer.dic.Dictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+public class TransportIkDictWordsAction extends TransportNodesAction<IkDictWordsAction.Request, IkDictWordsAction.Response,
+        IkDictWordsAction.NodeRequest, IkDictWordsAction.NodeResponse> {
+
+    @Inject
+    public TransportIkDictWordsAction(ThreadPool threadPool, ClusterService clusterService, TransportService transportService,
+                                      ActionFilters actionFilters) {
+        super(IkDictWordsAction.NAME, threadPool, clusterService, transportService, actionFilters,
+                IkDictWordsAction.Request::new, IkDictWordsAction.NodeRequest::new, ThreadPool.Names.MANAGEMENT,
+                IkDictWordsAction.NodeResponse.class);
+    }
+
+    @Override
+    protected IkDictWordsAction.Response newResponse(IkDictWordsAction.Request request, List<IkDictWordsAction.NodeResponse> nodes,
+                                                     List<FailedNodeException> failures) {
+        return new IkDictWordsAction.Response(clusterService.getClusterName(), nodes, failures);
+    }
+
+    @Override
+    protected IkDictWordsAction.NodeRequest newNodeRequest(IkDictWordsAction.Request request) {
+        return new IkDictWordsAction.NodeRequest(request);
+    }
+
+    @Override
+    protected IkDictWordsAction.NodeResponse newNodeResponse(StreamInput in) throws IOException {
+        return new IkDictWordsAction.NodeResponse(in);
+    }
+
+    @Override
+    protected IkDictWordsAction.NodeResponse nodeOperation(IkDictWordsAction.NodeRequest request) {
+        //节点上还没有使用IK的索引时词典尚未初始化，不应用变更
+        if (!Dictionary.isInitialized()) {
+            return new IkDictWordsAction.NodeResponse(clusterService.localNode(), -1);
+        }
+        Dictionary dictionary = Dictionary.getSingleton();
+        try {
+            dictionary.updateWords(request.getDict(), request.getWords(), request.isAdd(), request.isPersist());
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to persist ik dictionary changes", e);
+        }
+        return new IkDictWordsAction.NodeResponse(clusterService.localNode(), dictionary.getVersion());
+    }
+}